@@ -0,0 +1,119 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Client for the local VaultAgent. One connection can be reused for many lookups.
+//
+// Command line use from scripts (prints the password of the first match, exit code 1 if none):
+//   java -cp <classpath> com.example.password_generator.AgentClient github.com
+//   java -cp <classpath> com.example.password_generator.AgentClient --user github.com
+public class AgentClient implements AutoCloseable {
+
+    // One credential returned by the agent
+    public static class Credential {
+        private final String service;
+        private final String username;
+        private final String password;
+
+        Credential(String service, String username, String password) {
+            this.service = service;
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getService() { return service; }
+        public String getUsername() { return username; }
+        public String getPassword() { return password; }
+    }
+
+    private final SocketChannel channel;
+
+    public AgentClient(Path socket) throws IOException {
+        this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        this.channel.connect(UnixDomainSocketAddress.of(socket));
+    }
+
+    // Entries whose service (or its domain) matches; empty if there is none
+    public List<Credential> lookup(String service) throws IOException {
+        byte[] name = service.getBytes(StandardCharsets.UTF_8);
+        if (1 + 2 + name.length > VaultAgent.MAX_REQUEST_BYTES) {
+            throw new IOException("Service name too long.");
+        }
+        ByteBuffer request = ByteBuffer.allocate(4 + 1 + 2 + name.length);
+        request.putInt(1 + 2 + name.length).put(VaultAgent.OP_LOOKUP).putShort((short) name.length).put(name);
+        ByteBuffer response = exchange(request.flip());
+
+        byte status = response.get();
+        if (status == VaultAgent.STATUS_LOCKED) {
+            throw new IOException("The vault is locked. Unlock it in the Password Manager.");
+        }
+        if (status == VaultAgent.STATUS_TOO_LARGE) {
+            throw new IOException("Too many matches for \"" + service + "\"; use a more specific name.");
+        }
+        if (status != VaultAgent.STATUS_OK) {
+            return new ArrayList<>();
+        }
+
+        int count = Short.toUnsignedInt(response.getShort());
+        List<Credential> credentials = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            credentials.add(new Credential(VaultAgent.readString(response), VaultAgent.readString(response),
+                    VaultAgent.readString(response)));
+        }
+        return credentials;
+    }
+
+    public boolean isUnlocked() throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(5).putInt(1).put(VaultAgent.OP_PING);
+        return exchange(request.flip()).get() == VaultAgent.STATUS_OK;
+    }
+
+    private ByteBuffer exchange(ByteBuffer request) throws IOException {
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        ByteBuffer header = readFully(4);
+        return readFully(header.getInt());
+    }
+
+    private ByteBuffer readFully(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Agent closed the connection.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean printUser = args.length == 2 && args[0].equals("--user");
+        if (args.length != (printUser ? 2 : 1)) {
+            System.err.println("Usage: AgentClient [--user] <service>");
+            System.exit(2);
+        }
+
+        Path socket = Path.of(System.getenv("APPDATA"), "PasswordGenerator", "agent.sock");
+        try (AgentClient client = new AgentClient(socket)) {
+            List<Credential> matches = client.lookup(args[args.length - 1]);
+            if (matches.isEmpty()) {
+                System.exit(1);
+            }
+            Credential first = matches.get(0);
+            System.out.println(printUser ? first.getUsername() : first.getPassword());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.password_generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Attachment files (SSH keys, certificates, recovery codes, ...) stored beside passwords.enc.
+// The content lives in a deduplicating ChunkStore; each attachment (blob) is a small encrypted
+// manifest with the file name, size and chunk ids. Entries only keep the blob ids.
+//
+//   attachments/store.key, attachments/chunks/..   see ChunkStore
+//   attachments/blobs/<blobId>                     encrypted manifest
+public class AttachmentStore {
+
+    private static final String BLOB_DIR = "blobs";
+    // Blobs and chunks written less than this long before a collection are kept: they may belong to an
+    // attachment that is being added right now (in this window, another window or another app instance)
+    // and is not referenced by an entry yet. A later collection removes them if they stay unreferenced.
+    private static final long GC_GRACE_MILLIS = 60 * 60 * 1000;
+
+    // Metadata of one stored attachment
+    public static class BlobInfo {
+        private final String id;
+        private final String fileName;
+        private final long size;
+        private final List<String> chunkIds;
+
+        BlobInfo(String id, String fileName, long size, List<String> chunkIds) {
+            this.id = id;
+            this.fileName = fileName;
+            this.size = size;
+            this.chunkIds = chunkIds;
+        }
+
+        public String getId() { return id; }
+        public String getFileName() { return fileName; }
+        public long getSize() { return size; }
+    }
+
+    private final ChunkStore chunks;
+
+    private AttachmentStore(ChunkStore chunks) {
+        this.chunks = chunks;
+    }
+
+    public static AttachmentStore open(Path dir, String masterPassword) throws Exception {
+        return new AttachmentStore(ChunkStore.open(dir, masterPassword));
+    }
+
+    public void changeMasterPassword(String newMasterPassword) throws Exception {
+        chunks.changeMasterPassword(newMasterPassword);
+    }
+
+    // Streams a file into the store and returns the new blob id
+    public String put(InputStream in, String fileName) throws IOException {
+        CountingInputStream counting = new CountingInputStream(in);
+        List<String> chunkIds = chunks.write(counting);
+
+        String blobId = UUID.randomUUID().toString();
+        BlobInfo info = new BlobInfo(blobId, fileName, counting.count, chunkIds);
+        ChunkStore.writeAtomically(blobPath(blobId), chunks.encrypt(encodeManifest(info)));
+        return blobId;
+    }
+
+    // Streams the decrypted content of a blob into `out`, one chunk at a time
+    public void get(String blobId, OutputStream out) throws IOException {
+        chunks.read(info(blobId).chunkIds, out);
+    }
+
+    public BlobInfo info(String blobId) throws IOException {
+        byte[] manifest = chunks.decrypt(Files.readAllBytes(blobPath(blobId)));
+        return decodeManifest(blobId, manifest);
+    }
+
+    // Removes every blob not referenced by an entry and then every chunk no remaining blob uses.
+    // Anything younger than GC_GRACE_MILLIS is kept, referenced or not.
+    public int collectGarbage(Set<String> liveBlobIds) throws IOException {
+        long keepModifiedSince = System.currentTimeMillis() - GC_GRACE_MILLIS;
+        Path blobs = chunks.getDirectory().resolve(BLOB_DIR);
+        Set<String> liveChunks = new HashSet<>();
+
+        if (Files.isDirectory(blobs)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(blobs)) {
+                for (Path file : files) {
+                    String blobId = file.getFileName().toString();
+                    boolean recent;
+                    try {
+                        recent = Files.getLastModifiedTime(file).toMillis() >= keepModifiedSince;
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    if (liveBlobIds.contains(blobId) || (recent && isBlobId(blobId))) {
+                        liveChunks.addAll(info(blobId).chunkIds);
+                    } else if (!recent) {
+                        Files.deleteIfExists(file);   // also leftovers of interrupted writes
+                    }
+                }
+            }
+        }
+        return chunks.retain(liveChunks, keepModifiedSince);
+    }
+
+    // Blob manifests are named by their UUID; anything else is a temp file of a write in progress
+    private static boolean isBlobId(String name) {
+        try {
+            UUID.fromString(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Path blobPath(String blobId) {
+        // Blob ids come from the vault JSON, only accept our own UUID format as a file name
+        UUID.fromString(blobId);
+        return chunks.getDirectory().resolve(BLOB_DIR).resolve(blobId);
+    }
+
+    private static byte[] encodeManifest(BlobInfo info) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(info.fileName);
+            out.writeLong(info.size);
+            out.writeInt(info.chunkIds.size());
+            for (String id : info.chunkIds) {
+                out.writeUTF(id);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BlobInfo decodeManifest(String blobId, byte[] manifest) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(manifest))) {
+            String fileName = in.readUTF();
+            long size = in.readLong();
+            int count = in.readInt();
+            List<String> chunkIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                chunkIds.add(in.readUTF());
+            }
+            return new BlobInfo(blobId, fileName, size, chunkIds);
+        }
+    }
+
+    // Counts the bytes that pass through, so the size is known without buffering the file
+    private static class CountingInputStream extends InputStream {
+        private final InputStream in;
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.password_generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Append-only access log: who copied, viewed or changed which entry and when.
+//
+// record() only appends to an in-memory buffer, so the FX thread never touches the disk. A daemon
+// thread flushes the buffer every few seconds (or when it is full) as one encrypted segment, appended
+// to audit/audit.log and synced once per batch. Each segment is one line:
+//
+//   <seq> <first millis> <last millis> <previous segment hash> <base64(encrypted batch)>
+//
+// The hash of a line is SHA-256 over the line, and every segment names the hash of the one before,
+// so removing, reordering or editing a segment breaks the chain (see verify). The batch is encrypted
+// with the key of a ChunkStore in audit/ and repeats the plaintext header, which ties the ciphertext
+// to its place in the chain. The time range is visible in the header so queries only decrypt the
+// segments they need; entry ids, services and actions are encrypted.
+// A last line without a newline is an append cut off by a crash. Reading treats it as not written,
+// and the next append truncates it, so a crash never breaks the chain.
+// The chain alone cannot tell a cut-off tail from a log that simply ends there, so every append also
+// rewrites audit/audit.head: the seq and hash of the new last segment, encrypted (and so authenticated)
+// with the same key. verify() requires that segment to be in the chain, which catches deleted tail
+// segments and a truncated or deleted log. Rolling back the log and the head file together to an older
+// copy is not detected.
+public class AuditLog {
+
+    public enum Action { VIEW, COPY_PASSWORD, COPY_TOTP, SHOW_ALL_PASSWORDS, CREATE, EDIT, DELETE, RESTORE, AGENT_LOOKUP }
+
+    private static final String LOG_FILE = "audit.log";
+    private static final String HEAD_FILE = "audit.head";
+    private static final String GENESIS = "0".repeat(64);
+    private static final long FLUSH_MILLIS = 5_000;
+    private static final int BATCH_SIZE = 256;
+
+    // One logged action; entryId and service are "" for actions that concern the whole vault
+    public static class Event {
+        private final long time;
+        private final Action action;
+        private final String entryId;
+        private final String service;
+
+        Event(long time, Action action, String entryId, String service) {
+            this.time = time;
+            this.action = action;
+            this.entryId = entryId;
+            this.service = service;
+        }
+
+        public long getTime() { return time; }
+        public Action getAction() { return action; }
+        public String getEntryId() { return entryId; }
+        public String getService() { return service; }
+    }
+
+    private final Path dir;
+    private final Path logFile;
+    private final Path headFile;
+    private volatile String masterPassword;
+    private final List<Event> buffer = new ArrayList<>();
+    private ChunkStore keyStore;      // opened by the flusher, so the key derivation never runs on the FX thread
+    private long nextSeq = 0;
+    private String lastHash = GENESIS;
+    private long knownSize = -1;      // log size after our last append; -1 = chain end not read yet
+    private Thread flusher;
+
+    public AuditLog(Path dir, String masterPassword) {
+        this.dir = dir;
+        this.logFile = dir.resolve(LOG_FILE);
+        this.headFile = dir.resolve(HEAD_FILE);
+        this.masterPassword = masterPassword;
+    }
+
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = new Thread(this::runFlusher, "audit-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "audit-flush-exit"));
+    }
+
+    public void record(Action action, PasswordEntry entry) {
+        record(action, entry == null ? "" : entry.getId(), entry == null ? "" : entry.getService());
+    }
+
+    // Cheap enough for every click: one synchronized append, no I/O
+    public void record(Action action, String entryId, String service) {
+        synchronized (buffer) {
+            buffer.add(new Event(System.currentTimeMillis(), action, entryId, service));
+            if (buffer.size() >= BATCH_SIZE) {
+                buffer.notifyAll();
+            }
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                synchronized (buffer) {
+                    buffer.wait(FLUSH_MILLIS);
+                }
+                flushQuietly();
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Writes all buffered events as one segment (no-op if nothing happened)
+    public synchronized void flush() throws Exception {
+        List<Event> batch;
+        synchronized (buffer) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(buffer);
+            buffer.clear();
+        }
+        try {
+            append(batch);
+        } catch (Exception e) {
+            // Keep the events for the next attempt
+            synchronized (buffer) {
+                buffer.addAll(0, batch);
+            }
+            throw e;
+        }
+    }
+
+    private void append(List<Event> batch) throws Exception {
+        if (keyStore == null) {
+            keyStore = ChunkStore.open(dir, masterPassword);
+        }
+
+        // Another app instance may append to the same log: the file lock serializes the appends,
+        // and if the file grew since our last append, the end of the chain is read again
+        try (FileChannel channel = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            if (channel.size() != knownSize) {
+                truncateTornAppend(channel);
+                readChainEnd();
+            }
+            String line = encodeSegment(batch);
+            ByteBuffer data = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            channel.position(channel.size());
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+            knownSize = channel.size();
+            lastHash = hashOf(line.strip());
+            // Still under the lock, so the head never names a segment of another instance's append
+            // that is not in the file. A crash before this leaves the head one segment behind.
+            String head = nextSeq + " " + lastHash;
+            ChunkStore.writeAtomically(headFile, keyStore.encrypt(head.getBytes(StandardCharsets.UTF_8)));
+            nextSeq++;
+        }
+    }
+
+    private String encodeSegment(List<Event> batch) throws IOException {
+        String header = nextSeq + " " + batch.get(0).time + " " + batch.get(batch.size() - 1).time + " " + lastHash;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(header);
+            out.writeInt(batch.size());
+            for (Event event : batch) {
+                out.writeLong(event.time);
+                out.writeByte(event.action.ordinal());
+                out.writeUTF(event.entryId);
+                out.writeUTF(event.service);
+            }
+        }
+        return header + " " + Base64.getEncoder().encodeToString(keyStore.encrypt(bytes.toByteArray())) + "\n";
+    }
+
+    // Another app instance re-wrapped the key: only the password that opens it changes here
+    public synchronized void masterPasswordChanged(String newMasterPassword) {
+        this.masterPassword = newMasterPassword;
+    }
+
+    // The key is re-wrapped, the log itself stays as it is
+    public synchronized void changeMasterPassword(String newMasterPassword) throws Exception {
+        if (keyStore == null && ChunkStore.exists(dir)) {
+            keyStore = ChunkStore.open(dir, masterPassword);
+        }
+        if (keyStore != null) {
+            keyStore.changeMasterPassword(newMasterPassword);
+        }
+        this.masterPassword = newMasterPassword;
+    }
+
+    // Events of one entry (null = all) between from and to (inclusive, epoch millis), oldest first.
+    // Buffered events that were not flushed yet are included.
+    public synchronized List<Event> query(String entryId, long from, long to) throws Exception {
+        List<Event> result = new ArrayList<>();
+        if (Files.exists(logFile)) {
+            openIfNeeded();
+            for (String line : completeLines()) {
+                String[] parts = line.split(" ");
+                if (parts.length != 5 || Long.parseLong(parts[2]) < from || Long.parseLong(parts[1]) > to) {
+                    continue;
+                }
+                for (Event event : decodeSegment(parts)) {
+                    if (matches(event, entryId, from, to)) result.add(event);
+                }
+            }
+        }
+        synchronized (buffer) {
+            for (Event event : buffer) {
+                if (matches(event, entryId, from, to)) result.add(event);
+            }
+        }
+        return result;
+    }
+
+    // Checks the whole chain: sequence numbers, hash links, the authenticity of every batch and that the
+    // chain reaches the segment named by the head record.
+    // Returns null if the log is intact, otherwise a description of the first problem.
+    public synchronized String verify() throws Exception {
+        if (!Files.exists(logFile) && !Files.exists(headFile)) {
+            // Nothing was ever flushed, unless the key was created for a log that is gone now
+            return ChunkStore.exists(dir) ? "The log is missing." : null;
+        }
+        openIfNeeded();
+        long headSeq;
+        String headHash;
+        try {
+            String[] head = new String(keyStore.decrypt(Files.readAllBytes(headFile)), StandardCharsets.UTF_8).split(" ");
+            headSeq = Long.parseLong(head[0]);
+            headHash = head[1];
+        } catch (NoSuchFileException e) {
+            return "The head record of the log is missing.";
+        } catch (IOException | RuntimeException e) {
+            return "The head record of the log was modified.";
+        }
+        if (!Files.exists(logFile)) {
+            return "The log is missing.";
+        }
+
+        String previous = GENESIS;
+        long seq = 0;
+        for (String line : completeLines()) {
+            String[] parts = line.split(" ");
+            if (parts.length != 5 || !parts[0].matches("\\d{1,18}")) {
+                return "Segment " + seq + " is malformed.";
+            }
+            if (Long.parseLong(parts[0]) != seq) {
+                return "Segment " + seq + " is missing (found " + parts[0] + ").";
+            }
+            if (!parts[3].equals(previous)) {
+                return "Segment " + seq + " does not follow the segment before it.";
+            }
+            try {
+                decodeSegment(parts);
+            } catch (IOException | IllegalArgumentException e) {
+                return "Segment " + seq + " was modified.";
+            }
+            previous = hashOf(line);
+            if (seq == headSeq && !previous.equals(headHash)) {
+                return "Segment " + seq + " is not the one named by the head record.";
+            }
+            seq++;
+        }
+        if (seq <= headSeq) {
+            return seq == headSeq
+                    ? "Segment " + seq + " is missing from the end of the log."
+                    : "Segments " + seq + " to " + headSeq + " are missing from the end of the log.";
+        }
+        return null;
+    }
+
+    private static boolean matches(Event event, String entryId, long from, long to) {
+        return event.time >= from && event.time <= to && (entryId == null || entryId.equals(event.entryId));
+    }
+
+    private List<Event> decodeSegment(String[] parts) throws IOException {
+        byte[] plain = keyStore.decrypt(Base64.getDecoder().decode(parts[4]));
+        List<Event> events = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+            String header = in.readUTF();
+            if (!header.equals(parts[0] + " " + parts[1] + " " + parts[2] + " " + parts[3])) {
+                throw new IOException("Segment header does not match its content.");
+            }
+            int count = in.readInt();
+            Action[] actions = Action.values();
+            for (int i = 0; i < count; i++) {
+                long time = in.readLong();
+                int ordinal = in.readUnsignedByte();
+                if (ordinal >= actions.length) {
+                    throw new IOException("Unknown action " + ordinal + ".");
+                }
+                Action action = actions[ordinal];
+                events.add(new Event(time, action, in.readUTF(), in.readUTF()));
+            }
+        }
+        return events;
+    }
+
+    private void openIfNeeded() throws Exception {
+        if (keyStore == null) {
+            keyStore = ChunkStore.open(dir, masterPassword);
+        }
+    }
+
+    // Sequence number and hash of the last complete segment (one pass over the headers, nothing is decrypted)
+    private void readChainEnd() throws IOException {
+        nextSeq = 0;
+        lastHash = GENESIS;
+        for (String line : completeLines()) {
+            String[] parts = line.split(" ");
+            if (parts.length == 5) {
+                nextSeq = Long.parseLong(parts[0]) + 1;
+                lastHash = hashOf(line);
+            }
+        }
+    }
+
+    // The lines of the log without a torn last line
+    private List<String> completeLines() throws IOException {
+        String content = Files.readString(logFile, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n') + 1;
+        return content.substring(0, end).lines().collect(Collectors.toList());
+    }
+
+    // Under the file lock: cuts off the rest of an append that a crash interrupted
+    private static void truncateTornAppend(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long end = size;
+        ByteBuffer one = ByteBuffer.allocate(1);
+        while (end > 0) {
+            one.clear();
+            channel.read(one, end - 1);
+            if (one.get(0) == '\n') {
+                break;
+            }
+            end--;
+        }
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    private static String hashOf(String line) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(line.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
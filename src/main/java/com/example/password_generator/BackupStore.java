@@ -0,0 +1,225 @@
+package com.example.password_generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Rotating snapshots of the vault in backups/, deduplicated across versions.
+// A snapshot is the plaintext vault JSON cut into content-defined chunks (see ContentChunker) and
+// stored in a ChunkStore, so a new snapshot only adds the chunks around the entries that changed;
+// hundreds of snapshots cost little more than the changed bytes. Each snapshot is a small encrypted
+// manifest with its time, entry count, size, SHA-256 of the JSON and the chunk ids.
+//
+//   backups/store.key, backups/chunks/..         see ChunkStore
+//   backups/<yyyyMMdd-HHmmss-SSS>.snap           encrypted manifest (+ .snap.sums for the IntegrityScanner)
+//   backups/backup.lock                          serializes writers and chunk cleanup across app instances
+//
+// Rotation keeps the newest -Dvault.backup.keep snapshots (default 100) and, older than that, the newest
+// snapshot of every day for a year. Chunks that no remaining snapshot uses are deleted afterwards.
+public class BackupStore {
+
+    private static final String SUFFIX = ".snap";
+    private static final String LOCK_FILE = "backup.lock";
+    private static final int KEEP_RECENT = Integer.getInteger("vault.backup.keep", 100);
+    private static final int KEEP_DAYS = 365;
+    private static final DateTimeFormatter NAME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    // One stored snapshot (manifest content)
+    public static class Snapshot {
+        private final Path file;
+        private final long time;
+        private final int entryCount;
+        private final long size;
+        private final String hash;
+        private final List<String> chunkIds;
+
+        Snapshot(Path file, long time, int entryCount, long size, String hash, List<String> chunkIds) {
+            this.file = file;
+            this.time = time;
+            this.entryCount = entryCount;
+            this.size = size;
+            this.hash = hash;
+            this.chunkIds = chunkIds;
+        }
+
+        public Path getFile() { return file; }
+        public long getTime() { return time; }
+        public int getEntryCount() { return entryCount; }
+        public long getSize() { return size; }
+    }
+
+    private final ChunkStore chunks;
+
+    private BackupStore(ChunkStore chunks) {
+        this.chunks = chunks;
+    }
+
+    // Opens (or creates) the store; one key derivation, so not on the FX thread
+    public static BackupStore open(Path dir, String masterPassword) throws Exception {
+        return new BackupStore(ChunkStore.open(dir, masterPassword));
+    }
+
+    public void changeMasterPassword(String newMasterPassword) throws Exception {
+        chunks.changeMasterPassword(newMasterPassword);
+    }
+
+    // Stores the vault JSON as a new snapshot and rotates old ones. Returns null if the newest
+    // snapshot already has exactly this content.
+    public Snapshot create(String json, int entryCount) throws Exception {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+
+        try (FileChannel channel = FileChannel.open(chunks.getDirectory().resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            List<Snapshot> existing = list();
+            if (!existing.isEmpty() && existing.get(0).hash.equals(hash)) {
+                return null;
+            }
+
+            List<String> chunkIds = chunks.write(new ByteArrayInputStream(data));
+            long time = System.currentTimeMillis();
+            Path file = chunks.getDirectory().resolve(NAME_FORMAT.format(Instant.ofEpochMilli(time)) + SUFFIX);
+            Snapshot snapshot = new Snapshot(file, time, entryCount, data.length, hash, chunkIds);
+            byte[] manifest = chunks.encrypt(encodeManifest(snapshot));
+            ChunkStore.writeAtomically(file, manifest);
+            IntegrityScanner.writeChecksums(file, manifest);
+
+            existing.add(0, snapshot);
+            rotate(existing);
+            return snapshot;
+        }
+    }
+
+    // All snapshots, newest first (decrypts the manifests, not the chunks)
+    public List<Snapshot> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(chunks.getDirectory(), "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // The names are UTC timestamps, so the name order is the time order
+        files.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+
+        List<Snapshot> snapshots = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try {
+                snapshots.add(decodeManifest(file, chunks.decrypt(Files.readAllBytes(file))));
+            } catch (IOException e) {
+                e.printStackTrace();  // a damaged manifest only loses this one snapshot
+            }
+        }
+        return snapshots;
+    }
+
+    // Reassembles the vault JSON of a snapshot; every chunk is authenticated on the way
+    public String read(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) snapshot.size);
+        chunks.read(snapshot.chunkIds, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // Reads the whole snapshot and compares it with the hash from its manifest; null if it is intact
+    public String verify(Snapshot snapshot) {
+        try {
+            byte[] data = read(snapshot).getBytes(StandardCharsets.UTF_8);
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+            return hash.equals(snapshot.hash) ? null : "The restored content does not match the snapshot.";
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    // Bytes on disk used by all chunks together (for "n snapshots in x MB")
+    public long storedBytes() throws IOException {
+        Path dir = chunks.getDirectory().resolve("chunks");
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    // Deletes the snapshots outside the retention policy and then the chunks only they used
+    private void rotate(List<Snapshot> snapshots) throws IOException {
+        List<Snapshot> keep = new ArrayList<>();
+        Set<LocalDate> keptDays = new HashSet<>();
+        LocalDate oldestDay = LocalDate.now().minusDays(KEEP_DAYS);
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            LocalDate day = Instant.ofEpochMilli(snapshot.time).atZone(ZoneId.systemDefault()).toLocalDate();
+            // Newest first: the first snapshot seen of a day is the newest of that day
+            boolean newestOfDay = keptDays.add(day);
+            if (i < KEEP_RECENT || (newestOfDay && !day.isBefore(oldestDay))) {
+                keep.add(snapshot);
+            }
+        }
+        if (keep.size() == snapshots.size()) {
+            return;
+        }
+
+        Set<String> liveChunks = new HashSet<>();
+        for (Snapshot snapshot : keep) {
+            liveChunks.addAll(snapshot.chunkIds);
+        }
+        for (Snapshot snapshot : snapshots) {
+            if (!keep.contains(snapshot)) {
+                Files.deleteIfExists(snapshot.file);
+                Files.deleteIfExists(IntegrityScanner.checksumFile(snapshot.file));
+            }
+        }
+        chunks.retain(liveChunks);
+    }
+
+    private static byte[] encodeManifest(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(snapshot.time);
+            out.writeInt(snapshot.entryCount);
+            out.writeLong(snapshot.size);
+            out.writeUTF(snapshot.hash);
+            out.writeInt(snapshot.chunkIds.size());
+            for (String id : snapshot.chunkIds) {
+                out.writeUTF(id);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Snapshot decodeManifest(Path file, byte[] manifest) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(manifest))) {
+            long time = in.readLong();
+            int entryCount = in.readInt();
+            long size = in.readLong();
+            String hash = in.readUTF();
+            int count = in.readInt();
+            List<String> chunkIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                chunkIds.add(in.readUTF());
+            }
+            return new Snapshot(file, time, entryCount, size, hash, chunkIds);
+        }
+    }
+}
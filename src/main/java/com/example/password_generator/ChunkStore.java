@@ -0,0 +1,251 @@
+package com.example.password_generator;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+// Encrypted, content-addressed chunk storage in one directory.
+// Streams are cut into content-defined chunks; every chunk is named by a keyed hash (HMAC-SHA256)
+// of its plaintext, so identical chunks are stored only once, and the names reveal nothing
+// without the key. Each chunk file is AES-GCM encrypted on its own.
+//
+//   store.key        base64(salt):base64(IV | encrypted data key), wrapped with the master password
+//   chunks/ab/abcd.. one encrypted chunk per file
+public class ChunkStore {
+
+    private static final String KEY_FILE = "store.key";
+    private static final String CHUNK_DIR = "chunks";
+    private static final int DATA_KEY_BYTES = 32;
+
+    private final Path dir;
+    private final SecretKey dataKey;
+    private final SecretKeySpec idKey;
+
+    private ChunkStore(Path dir, byte[] rawDataKey) throws Exception {
+        this.dir = dir;
+        this.dataKey = new SecretKeySpec(rawDataKey, "AES");
+
+        // Separate key for chunk ids, derived from the data key
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(rawDataKey, "HmacSHA256"));
+        this.idKey = new SecretKeySpec(mac.doFinal("chunk-id".getBytes(StandardCharsets.UTF_8)), "HmacSHA256");
+    }
+
+    // Opens the store in `dir`, creating it with a new random data key on first use.
+    // The master password is needed only here, to unwrap the data key (one PBKDF2 run).
+    public static ChunkStore open(Path dir, String masterPassword) throws Exception {
+        Path keyFile = dir.resolve(KEY_FILE);
+        if (Files.exists(keyFile)) {
+            String[] parts = Files.readString(keyFile).trim().split(":");
+            if (parts.length != 2) {
+                throw new IOException("Key file of " + dir + " is damaged.");
+            }
+            byte[] salt = Base64.getDecoder().decode(parts[0]);
+            byte[] wrapped = Base64.getDecoder().decode(parts[1]);
+            byte[] rawKey = CryptoUtils.decryptWithKey(wrapped, CryptoUtils.deriveKey(masterPassword, salt));
+            return new ChunkStore(dir, rawKey);
+        }
+
+        byte[] rawKey = new byte[DATA_KEY_BYTES];
+        new SecureRandom().nextBytes(rawKey);
+        Files.createDirectories(dir.resolve(CHUNK_DIR));
+        writeKeyFile(keyFile, rawKey, masterPassword);
+        return new ChunkStore(dir, rawKey);
+    }
+
+    public static boolean exists(Path dir) {
+        return Files.exists(dir.resolve(KEY_FILE));
+    }
+
+    // Re-wraps the data key with a new master password; the chunks themselves stay untouched
+    public void changeMasterPassword(String newMasterPassword) throws Exception {
+        writeKeyFile(dir.resolve(KEY_FILE), dataKey.getEncoded(), newMasterPassword);
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    // Stores the stream chunk by chunk and returns the chunk ids in order. Chunks that already
+    // exist are not written again. Heap use is bounded by the maximum chunk size.
+    public List<String> write(InputStream in) throws IOException {
+        List<String> ids = new ArrayList<>();
+        Mac mac = newIdMac();
+
+        ContentChunker.split(in, (data, offset, length) -> {
+            mac.update(data, offset, length);
+            String id = toHex(mac.doFinal());
+            ids.add(id);
+
+            Path file = chunkPath(id);
+            if (touch(file)) {
+                return; // deduplicated
+            }
+
+            byte[] plain = new byte[length];
+            System.arraycopy(data, offset, plain, 0, length);
+            writeAtomically(file, encrypt(plain));
+        });
+        return ids;
+    }
+
+    // Decrypts the chunks in order into the output stream
+    public void read(List<String> ids, OutputStream out) throws IOException {
+        for (String id : ids) {
+            out.write(readChunk(id));
+        }
+    }
+
+    // Decrypts one chunk and checks that its content still matches its id
+    public byte[] readChunk(String id) throws IOException {
+        byte[] plain = decrypt(Files.readAllBytes(chunkPath(id)));
+        Mac mac = newIdMac();
+        if (!MessageDigest.isEqual(mac.doFinal(plain), fromHex(id))) {
+            throw new IOException("Chunk " + id + " does not match its id.");
+        }
+        return plain;
+    }
+
+    public boolean hasChunk(String id) {
+        return Files.exists(chunkPath(id));
+    }
+
+    // Deletes every chunk that is not in `liveIds`; returns the number of removed chunks
+    public int retain(Set<String> liveIds) throws IOException {
+        return retain(liveIds, Long.MAX_VALUE);
+    }
+
+    // Same, but also keeps chunks written or reused at or after `keepModifiedSince` (epoch millis)
+    public int retain(Set<String> liveIds, long keepModifiedSince) throws IOException {
+        Path chunks = dir.resolve(CHUNK_DIR);
+        if (!Files.isDirectory(chunks)) {
+            return 0;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(chunks)) {
+            for (Path prefix : prefixes) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                    for (Path file : files) {
+                        if (!liveIds.contains(file.getFileName().toString())
+                                && modifiedMillis(file) < keepModifiedSince) {
+                            Files.deleteIfExists(file);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    // Encrypts small metadata (e.g. manifests) with the store key
+    public byte[] encrypt(byte[] plain) throws IOException {
+        try {
+            return CryptoUtils.encryptWithKey(plain, dataKey);
+        } catch (Exception e) {
+            throw new IOException("Encryption failed.", e);
+        }
+    }
+
+    public byte[] decrypt(byte[] data) throws IOException {
+        try {
+            return CryptoUtils.decryptWithKey(data, dataKey);
+        } catch (Exception e) {
+            throw new IOException("Decryption failed (wrong key or damaged data).", e);
+        }
+    }
+
+    // Writes to a temp file first so that a crash never leaves a half-written file under the final name.
+    // The temp file is synced before the rename, otherwise the rename can reach the disk before the data.
+    static void writeAtomically(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Marks an existing chunk as just used, so a concurrent garbage collection keeps it; false if it does not exist
+    private static boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    // Long.MAX_VALUE for a file that is already gone (nothing left to delete)
+    private static long modifiedMillis(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (NoSuchFileException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private Path chunkPath(String id) {
+        return dir.resolve(CHUNK_DIR).resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    private Mac newIdMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(idKey);
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeKeyFile(Path keyFile, byte[] rawKey, String masterPassword) throws Exception {
+        byte[] salt = CryptoUtils.newSalt();
+        byte[] wrapped = CryptoUtils.encryptWithKey(rawKey, CryptoUtils.deriveKey(masterPassword, salt));
+        String content = Base64.getEncoder().encodeToString(salt) + ":" + Base64.getEncoder().encodeToString(wrapped);
+        writeAtomically(keyFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+// Content-defined chunking (FastCDC style gear hash). Chunk boundaries depend on the content,
+// not on offsets, so inserting bytes into a file only changes the chunks around the insertion
+// and all other chunks deduplicate against earlier versions.
+public class ContentChunker {
+
+    public static final int MIN_SIZE = 2 * 1024;
+    public static final int AVG_SIZE = 8 * 1024;
+    public static final int MAX_SIZE = 64 * 1024;
+
+    // Normalized chunking: harder condition before the average size, easier one after it
+    private static final long MASK_SMALL = (1L << 15) - 1;
+    private static final long MASK_LARGE = (1L << 11) - 1;
+
+    // Gear table from a fixed seed: must never change, otherwise old chunks stop deduplicating
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x5EC0DEL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    // Receives every chunk; the array is reused, so consumers must copy what they keep
+    public interface ChunkConsumer {
+        void accept(byte[] data, int offset, int length) throws IOException;
+    }
+
+    private ContentChunker() {
+    }
+
+    // Streams the input and cuts it into chunks. Memory use is bounded by MAX_SIZE.
+    public static void split(InputStream in, ChunkConsumer consumer) throws IOException {
+        byte[] buffer = new byte[MAX_SIZE];
+        int length = 0;
+        boolean eof = false;
+
+        while (true) {
+            // Fill the buffer so that a cut can be searched over the full window
+            while (!eof && length < MAX_SIZE) {
+                int n = in.read(buffer, length, MAX_SIZE - length);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    length += n;
+                }
+            }
+            if (length == 0) {
+                return;
+            }
+
+            int cut = findCut(buffer, length);
+            consumer.accept(buffer, 0, cut);
+
+            System.arraycopy(buffer, cut, buffer, 0, length - cut);
+            length -= cut;
+        }
+    }
+
+    // Position after the first boundary in buffer[0..length)
+    private static int findCut(byte[] buffer, int length) {
+        if (length <= MIN_SIZE) {
+            return length;
+        }
+
+        long hash = 0;
+        int normal = Math.min(AVG_SIZE, length);
+        int i = MIN_SIZE;
+
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            if ((hash & MASK_SMALL) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < length; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            if ((hash & MASK_LARGE) == 0) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+}
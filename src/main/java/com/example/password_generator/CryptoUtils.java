@@ -25,6 +25,11 @@ public class CryptoUtils {
 
     // 1. Encrypt
     public static String encrypt(String passwordToStore, String masterPassword) throws Exception {
+        return encryptBytes(passwordToStore.getBytes(StandardCharsets.UTF_8), masterPassword);
+    }
+
+    // Same as encrypt, but for arbitrary bytes (e.g. a compressed vault payload)
+    public static String encryptBytes(byte[] data, String masterPassword) throws Exception {
         // 1. Generating random Salt
         byte[] salt = getRandomNonce(SALT_LENGTH_BYTE);
 
@@ -39,7 +44,7 @@ public class CryptoUtils {
         cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
 
         // 5. Actual encryption
-        byte[] cipherText = cipher.doFinal(passwordToStore.getBytes(StandardCharsets.UTF_8));
+        byte[] cipherText = cipher.doFinal(data);
 
         // 6. Pack everything together (salt + IV + ciphertext) so that it can be decrypted later.
         // Using ByteBuffer, to easily concatenate byte arrays
@@ -55,6 +60,11 @@ public class CryptoUtils {
 
     // 2. Decrypt
     public static String decrypt(String encodedString, String masterPassword) throws Exception {
+        return new String(decryptBytes(encodedString, masterPassword), StandardCharsets.UTF_8);
+    }
+
+    // Same as decrypt, but returns the raw plaintext bytes
+    public static byte[] decryptBytes(String encodedString, String masterPassword) throws Exception {
         // decoding Base64
         byte[] decode = Base64.getDecoder().decode(encodedString);
         ByteBuffer bb = ByteBuffer.wrap(decode);
@@ -75,9 +85,38 @@ public class CryptoUtils {
         Cipher cipher = Cipher.getInstance(ENCRYPT_ALGO);
         cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
 
-        byte[] plainText = cipher.doFinal(cipherText);
+        return cipher.doFinal(cipherText);
+    }
+
+    // Encrypts raw bytes with an already derived key (no PBKDF2 per call). Layout: IV + ciphertext
+    public static byte[] encryptWithKey(byte[] plain, SecretKey key) throws Exception {
+        byte[] iv = getRandomNonce(IV_LENGTH_BYTE);
+
+        Cipher cipher = Cipher.getInstance(ENCRYPT_ALGO);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
+        byte[] cipherText = cipher.doFinal(plain);
+
+        return ByteBuffer.allocate(iv.length + cipherText.length)
+                .put(iv)
+                .put(cipherText)
+                .array();
+    }
+
+    // Reverses encryptWithKey; fails if the key is wrong or the data was modified
+    public static byte[] decryptWithKey(byte[] data, SecretKey key) throws Exception {
+        Cipher cipher = Cipher.getInstance(ENCRYPT_ALGO);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BIT, data, 0, IV_LENGTH_BYTE));
+        return cipher.doFinal(data, IV_LENGTH_BYTE, data.length - IV_LENGTH_BYTE);
+    }
+
+    // Derives an AES key once so that many small records can be encrypted without repeating PBKDF2
+    public static SecretKey deriveKey(String password, byte[] salt) throws Exception {
+        return getSecretKey(password, salt);
+    }
 
-        return new String(plainText, StandardCharsets.UTF_8);
+    // Creates a new random salt for deriveKey
+    public static byte[] newSalt() {
+        return getRandomNonce(SALT_LENGTH_BYTE);
     }
 
     // Support method: key derivation (PBKDF2)
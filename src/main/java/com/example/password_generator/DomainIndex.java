@@ -0,0 +1,148 @@
+package com.example.password_generator;
+
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// URL -> entries index for autofill-style lookups.
+// Every entry contributes its hosts (from its URLs, or the service if that looks like a host name).
+// Hosts are indexed exactly and under their registrable domain (public suffix rules), so a lookup
+// is a handful of hash map accesses (one per label of the host), independent of the vault size.
+// Not thread-safe: build it on one thread and only read it afterwards (or confine it to one thread).
+public class DomainIndex {
+
+    private final Map<String, List<PasswordEntry>> byHost = new HashMap<>();
+    private final Map<String, List<PasswordEntry>> bySite = new HashMap<>();
+
+    public DomainIndex() {
+    }
+
+    public DomainIndex(Collection<PasswordEntry> entries) {
+        for (PasswordEntry entry : entries) {
+            add(entry);
+        }
+    }
+
+    public void add(PasswordEntry entry) {
+        for (String host : hostsOf(entry)) {
+            byHost.computeIfAbsent(host, h -> new ArrayList<>(1)).add(entry);
+            bySite.computeIfAbsent(siteOfHost(host), s -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    public void remove(PasswordEntry entry) {
+        for (String host : hostsOf(entry)) {
+            removeFrom(byHost, host, entry);
+            removeFrom(bySite, siteOfHost(host), entry);
+        }
+    }
+
+    // Best matches first: the same host, then parent hosts up to the registrable domain
+    // (example.com for login.example.com), then other hosts of the same site
+    public List<PasswordEntry> lookup(String url) {
+        String host = hostOf(url);
+        if (host == null) {
+            return new ArrayList<>();
+        }
+        String site = siteOfHost(host);
+
+        Set<PasswordEntry> result = new LinkedHashSet<>();
+        String candidate = host;
+        while (true) {
+            result.addAll(byHost.getOrDefault(candidate, List.of()));
+            if (candidate.equals(site)) break;
+            int dot = candidate.indexOf('.');
+            if (dot < 0) break;
+            candidate = candidate.substring(dot + 1);
+        }
+        result.addAll(bySite.getOrDefault(site, List.of()));
+        return new ArrayList<>(result);
+    }
+
+    // Normalized host of a URL or host name ("https://Login.Example.com:443/x" -> "login.example.com"),
+    // or null if the text is not a host name
+    public static String hostOf(String url) {
+        String host = url.trim();
+        int scheme = host.indexOf("://");
+        if (scheme >= 0) {
+            host = host.substring(scheme + 3);
+        }
+        int end = host.length();
+        for (char c : new char[]{'/', '?', '#'}) {
+            int i = host.indexOf(c);
+            if (i >= 0) end = Math.min(end, i);
+        }
+        host = host.substring(0, end);
+        host = host.substring(host.lastIndexOf('@') + 1);   // user:pass@host
+
+        if (host.startsWith("[")) {
+            int close = host.indexOf(']');
+            return close > 0 ? host.substring(0, close + 1) : null;   // IPv6 literal
+        }
+        int port = host.lastIndexOf(':');
+        if (port >= 0) {
+            host = host.substring(0, port);
+        }
+        while (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (host.isEmpty() || host.indexOf('.') < 0 || host.chars().anyMatch(Character::isWhitespace)) {
+            return null;
+        }
+
+        try {
+            host = IDN.toASCII(host, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // "www." is dropped unless the rest is a public suffix ("www.ck" is a site of its own)
+        if (host.startsWith("www.") && PublicSuffixList.get().registrableDomain(host.substring(4)) != null) {
+            return host.substring(4);
+        }
+        return host;
+    }
+
+    // Group label of an entry: the registrable domain of its first host, otherwise the service itself
+    public static String siteOf(PasswordEntry entry) {
+        List<String> hosts = hostsOf(entry);
+        return hosts.isEmpty() ? entry.getService().trim().toLowerCase(Locale.ROOT) : siteOfHost(hosts.get(0));
+    }
+
+    static String siteOfHost(String host) {
+        if (host.startsWith("[") || host.chars().allMatch(c -> c == '.' || Character.isDigit(c))) {
+            return host; // IP address
+        }
+        String site = PublicSuffixList.get().registrableDomain(host);
+        return site == null ? host : site;
+    }
+
+    static List<String> hostsOf(PasswordEntry entry) {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (String url : entry.getUrls()) {
+            String host = hostOf(url);
+            if (host != null) hosts.add(host);
+        }
+        if (hosts.isEmpty()) {
+            String host = hostOf(entry.getService());
+            if (host != null) hosts.add(host);
+        }
+        return new ArrayList<>(hosts);
+    }
+
+    private static void removeFrom(Map<String, List<PasswordEntry>> map, String key, PasswordEntry entry) {
+        List<PasswordEntry> list = map.get(key);
+        if (list == null) {
+            return;
+        }
+        list.removeIf(e -> e == entry);
+        if (list.isEmpty()) {
+            map.remove(key);
+        }
+    }
+}
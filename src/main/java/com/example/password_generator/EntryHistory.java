@@ -0,0 +1,124 @@
+package com.example.password_generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Bounded version history of one entry, stored inside the encrypted vault.
+// Every old version is kept as a delta against the next newer one (only the changed fields),
+// and the whole chain is deflate-compressed and Base64 encoded into a single JSON string field.
+public class EntryHistory {
+
+    public static final int MAX_VERSIONS = 10;
+
+    // Bit flags marking which fields a delta contains
+    private static final int SERVICE = 1;
+    private static final int USERNAME = 2;
+    private static final int PASSWORD = 4;
+
+    // One previous state of an entry and the time it was replaced
+    public static class Version {
+        private final String service;
+        private final String username;
+        private final String password;
+        private final long replacedAt;
+
+        public Version(String service, String username, String password, long replacedAt) {
+            this.service = service;
+            this.username = username;
+            this.password = password;
+            this.replacedAt = replacedAt;
+        }
+
+        public String getService() { return service; }
+        public String getUsername() { return username; }
+        public String getPassword() { return password; }
+        public long getReplacedAt() { return replacedAt; }
+    }
+
+    private EntryHistory() {
+    }
+
+    // Decodes the history of an entry, newest version first. The entry itself is the base of the delta chain.
+    public static List<Version> versions(PasswordEntry entry) {
+        String encoded = entry.getHistoryData();
+        if (encoded == null || encoded.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        byte[] compressed = Base64.getDecoder().decode(encoded);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            int count = in.readUnsignedByte();
+            List<Version> versions = new ArrayList<>(count);
+
+            String service = entry.getService();
+            String username = entry.getUsername();
+            String password = entry.getPassword();
+
+            for (int i = 0; i < count; i++) {
+                long replacedAt = in.readLong();
+                int mask = in.readUnsignedByte();
+                if ((mask & SERVICE) != 0) service = in.readUTF();
+                if ((mask & USERNAME) != 0) username = in.readUTF();
+                if ((mask & PASSWORD) != 0) password = in.readUTF();
+                versions.add(new Version(service, username, password, replacedAt));
+            }
+            return versions;
+        } catch (IOException e) {
+            throw new IllegalStateException("History of entry " + entry.getId() + " is corrupt.", e);
+        }
+    }
+
+    // History for the successor of `previous`: the previous state is added in front, the oldest dropped
+    static String push(PasswordEntry previous, String service, String username, String password) {
+        List<Version> versions = new ArrayList<>(versions(previous));
+        boolean changed = !previous.getService().equals(service)
+                || !previous.getUsername().equals(username)
+                || !previous.getPassword().equals(password);
+        if (!changed) {
+            return previous.getHistoryData();
+        }
+
+        versions.add(0, new Version(previous.getService(), previous.getUsername(), previous.getPassword(),
+                System.currentTimeMillis()));
+        if (versions.size() > MAX_VERSIONS) {
+            versions = versions.subList(0, MAX_VERSIONS);
+        }
+        return encode(versions, service, username, password);
+    }
+
+    // Encodes the versions (newest first) as deltas against the given current field values
+    private static String encode(List<Version> versions, String service, String username, String password) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(versions.size());
+            for (Version v : versions) {
+                int mask = 0;
+                if (!v.service.equals(service)) mask |= SERVICE;
+                if (!v.username.equals(username)) mask |= USERNAME;
+                if (!v.password.equals(password)) mask |= PASSWORD;
+
+                out.writeLong(v.replacedAt);
+                out.writeByte(mask);
+                if ((mask & SERVICE) != 0) out.writeUTF(v.service);
+                if ((mask & USERNAME) != 0) out.writeUTF(v.username);
+                if ((mask & PASSWORD) != 0) out.writeUTF(v.password);
+
+                service = v.service;
+                username = v.username;
+                password = v.password;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for in-memory streams
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+}
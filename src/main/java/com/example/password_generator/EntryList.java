@@ -0,0 +1,395 @@
+package com.example.password_generator;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Observable entry list with an id -> position map and batched changes.
+// Every entry sits in a small Slot that knows its position, and the map points to the slots, so
+// indexOf(id) is one map lookup. Inserting or removing in the middle only updates the positions of
+// the shifted slots (in the same pass that shifts the array), the map itself is never rebuilt.
+// batch() and the bulk methods wrap any number of modifications into one change event, so listeners
+// (search index, tag index, table view) run once per bulk action instead of once per entry.
+// A batch does not merge its modifications through JavaFX's change builder: that builder reports wrong
+// positions when one change touches the same region several times (e.g. a remove after a set or an
+// add next to it). Instead the batch remembers the slots it started with and the window of positions
+// it touched, and at the end reports the difference inside that window. Slots that leave the list get
+// index -1, and a slot that stays keeps its identity and its order relative to the other survivors.
+public class EntryList extends ModifiableObservableListBase<PasswordEntry> {
+
+    private static class Slot {
+        final PasswordEntry entry;
+        int index;
+
+        Slot(PasswordEntry entry, int index) {
+            this.entry = entry;
+            this.index = index;
+        }
+    }
+
+    private final List<Slot> slots = new ArrayList<>();
+    private final Map<String, Slot> slotsById = new HashMap<>();
+
+    // While a batch runs: the slots at its start, and how many leading / trailing positions no
+    // modification has touched yet (the trailing ones counted from the end of the list)
+    private List<Slot> batchStart;
+    private int untouchedHead;
+    private int untouchedTail;
+
+    @Override
+    public PasswordEntry get(int index) {
+        return slots.get(index).entry;
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    // Position of the entry with this id, or -1
+    public int indexOf(String id) {
+        Slot slot = slotsById.get(id);
+        return slot == null ? -1 : slot.index;
+    }
+
+    // Entries have identity equality: the entry is found through its id and must be the same object
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof PasswordEntry)) {
+            return -1;
+        }
+        Slot slot = slotsById.get(((PasswordEntry) o).getId());
+        return slot != null && slot.entry == o ? slot.index : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    // Runs all modifications made by `changes` as one change event
+    public void batch(Runnable changes) {
+        if (batchStart != null) {
+            changes.run();
+            return;
+        }
+        batchStart = new ArrayList<>(slots);
+        untouchedHead = slots.size();
+        untouchedTail = slots.size();
+        try {
+            changes.run();
+        } finally {
+            List<Slot> before = batchStart;
+            batchStart = null;
+            reportBatch(before);
+        }
+    }
+
+    // Records that a modification replaces positions from..to (exclusive) of a list of `size` entries
+    // (from == to for an insert). Outside a batch the caller reports the change itself.
+    private void touch(int from, int to, int size) {
+        if (batchStart != null) {
+            untouchedHead = Math.min(untouchedHead, from);
+            untouchedTail = Math.min(untouchedTail, size - to);
+        }
+    }
+
+    // One change event for a finished batch: walks the touched window of the old and the new slots in
+    // step. Slots with index -1 were removed, slots that are not the next surviving old slot were added.
+    private void reportBatch(List<Slot> before) {
+        int oldEnd = before.size() - untouchedTail;
+        int newEnd = slots.size() - untouchedTail;
+        int i = untouchedHead;
+        int j = untouchedHead;
+        beginChange();
+        try {
+            while (i < oldEnd || j < newEnd) {
+                if (i < oldEnd && j < newEnd && before.get(i) == slots.get(j)) {
+                    i++;
+                    j++;
+                    continue;
+                }
+                int from = j;
+                List<PasswordEntry> removed = new ArrayList<>();
+                while (i < oldEnd && before.get(i).index < 0) {
+                    removed.add(before.get(i++).entry);
+                }
+                while (j < newEnd && (i >= oldEnd || slots.get(j) != before.get(i))) {
+                    j++;
+                }
+                if (removed.isEmpty()) {
+                    nextAdd(from, j);
+                } else if (j == from) {
+                    nextRemove(from, removed);
+                } else {
+                    nextReplace(from, j, removed);
+                }
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    // Removes the entries with the given ids in one change and one compaction pass over the list
+    // (instead of one array shift per removed entry). Returns the removed entries.
+    public List<PasswordEntry> removeIds(Collection<String> ids) {
+        int[] positions = new int[ids.size()];
+        int count = 0;
+        for (String id : ids) {
+            int index = indexOf(id);
+            if (index >= 0) positions[count++] = index;
+        }
+        positions = Arrays.stream(positions, 0, count).sorted().distinct().toArray();
+
+        List<PasswordEntry> removed = new ArrayList<>(positions.length);
+        if (positions.length == 0) {
+            return removed;
+        }
+        touch(positions[0], positions[positions.length - 1] + 1, slots.size());
+        beginChange();
+        try {
+            int write = positions[0];
+            int next = 0;
+            for (int read = positions[0]; read < slots.size(); read++) {
+                Slot slot = slots.get(read);
+                if (next < positions.length && positions[next] == read) {
+                    // Reported at its index in the list as it is after the earlier removals of this call
+                    if (batchStart == null) nextRemove(read - next, slot.entry);
+                    removed.add(slot.entry);
+                    slotsById.remove(slot.entry.getId());
+                    slot.index = -1;
+                    next++;
+                } else {
+                    slot.index = write;
+                    slots.set(write++, slot);
+                }
+            }
+            slots.subList(write, slots.size()).clear();
+            modCount++;
+        } finally {
+            endChange();
+        }
+        return removed;
+    }
+
+    // The inherited bulk methods work element by element (clear() would remove index 0 n times);
+    // these do one pass over the backing list and report one change
+
+    @Override
+    public boolean setAll(Collection<? extends PasswordEntry> col) {
+        if (slots.isEmpty() && col.isEmpty()) {
+            return false;
+        }
+        touch(0, slots.size(), slots.size());
+        beginChange();
+        try {
+            List<PasswordEntry> old = new ArrayList<>(this);
+            for (Slot slot : slots) {
+                slot.index = -1;
+            }
+            slots.clear();
+            slotsById.clear();
+            for (PasswordEntry entry : col) {
+                append(entry);
+            }
+            modCount++;
+            if (batchStart == null) nextReplace(0, slots.size(), old);
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends PasswordEntry> col) {
+        if (col.isEmpty()) {
+            return false;
+        }
+        touch(slots.size(), slots.size(), slots.size());
+        beginChange();
+        try {
+            int start = slots.size();
+            for (PasswordEntry entry : col) {
+                append(entry);
+            }
+            modCount++;
+            if (batchStart == null) nextAdd(start, slots.size());
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    // Inserts in one array shift instead of one per entry
+    @Override
+    public boolean addAll(int index, Collection<? extends PasswordEntry> col) {
+        if (index < 0 || index > slots.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + slots.size());
+        }
+        if (col.isEmpty()) {
+            return false;
+        }
+        touch(index, index, slots.size());
+        beginChange();
+        try {
+            List<Slot> inserted = new ArrayList<>(col.size());
+            for (PasswordEntry entry : col) {
+                Slot slot = new Slot(entry, -1);
+                inserted.add(slot);
+                slotsById.put(entry.getId(), slot);
+            }
+            slots.addAll(index, inserted);
+            renumberFrom(index);
+            modCount++;
+            if (batchStart == null) nextAdd(index, index + inserted.size());
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        touch(fromIndex, toIndex, slots.size());
+        beginChange();
+        try {
+            List<Slot> range = slots.subList(fromIndex, toIndex);
+            List<PasswordEntry> removed = new ArrayList<>(range.size());
+            boolean all = range.size() == slots.size();
+            for (Slot slot : range) {
+                removed.add(slot.entry);
+                if (!all) slotsById.remove(slot.entry.getId());
+                slot.index = -1;
+            }
+            if (all) slotsById.clear();
+            range.clear();
+            renumberFrom(fromIndex);
+            modCount++;
+            if (batchStart == null) nextRemove(fromIndex, removed);
+        } finally {
+            endChange();
+        }
+    }
+
+    // Entries are compared by identity, so each one is found through its id
+    @Override
+    public boolean removeAll(Collection<?> col) {
+        List<String> ids = new ArrayList<>();
+        for (Object o : col) {
+            if (indexOf(o) >= 0) ids.add(((PasswordEntry) o).getId());
+        }
+        return !removeIds(ids).isEmpty();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> col) {
+        List<String> ids = new ArrayList<>();
+        for (Slot slot : slots) {
+            if (!col.contains(slot.entry)) ids.add(slot.entry.getId());
+        }
+        return !removeIds(ids).isEmpty();
+    }
+
+    // The single-element methods of ModifiableObservableListBase, except that inside a batch the
+    // change is only recorded (see touch)
+
+    @Override
+    public void add(int index, PasswordEntry element) {
+        touch(index, index, slots.size());
+        doAdd(index, element);
+        modCount++;
+        if (batchStart == null) {
+            beginChange();
+            nextAdd(index, index + 1);
+            endChange();
+        }
+    }
+
+    @Override
+    public PasswordEntry set(int index, PasswordEntry element) {
+        touch(index, index + 1, slots.size());
+        PasswordEntry old = doSet(index, element);
+        if (batchStart == null) {
+            beginChange();
+            nextSet(index, old);
+            endChange();
+        }
+        return old;
+    }
+
+    @Override
+    public PasswordEntry remove(int index) {
+        touch(index, index + 1, slots.size());
+        PasswordEntry old = doRemove(index);
+        modCount++;
+        if (batchStart == null) {
+            beginChange();
+            nextRemove(index, old);
+            endChange();
+        }
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index >= 0) {
+            remove(index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void doAdd(int index, PasswordEntry element) {
+        Slot slot = new Slot(element, index);
+        slots.add(index, slot);
+        slotsById.put(element.getId(), slot);
+        renumberFrom(index + 1);
+    }
+
+    @Override
+    protected PasswordEntry doSet(int index, PasswordEntry element) {
+        Slot old = slots.get(index);
+        Slot slot = new Slot(element, index);
+        slots.set(index, slot);
+        old.index = -1;
+        if (slotsById.get(old.entry.getId()) == old) {
+            slotsById.remove(old.entry.getId());
+        }
+        slotsById.put(element.getId(), slot);
+        return old.entry;
+    }
+
+    @Override
+    protected PasswordEntry doRemove(int index) {
+        Slot old = slots.remove(index);
+        old.index = -1;
+        if (slotsById.get(old.entry.getId()) == old) {
+            slotsById.remove(old.entry.getId());
+        }
+        renumberFrom(index);
+        return old.entry;
+    }
+
+    private void append(PasswordEntry entry) {
+        Slot slot = new Slot(entry, slots.size());
+        slots.add(slot);
+        slotsById.put(entry.getId(), slot);
+    }
+
+    // Positions after an insert or removal at `from` (same cost as the array shift that caused it)
+    private void renumberFrom(int from) {
+        for (int i = from; i < slots.size(); i++) {
+            slots.get(i).index = i;
+        }
+    }
+}
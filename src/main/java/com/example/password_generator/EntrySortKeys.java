@@ -0,0 +1,101 @@
+package com.example.password_generator;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Locale-aware sorting of entries with precomputed CollationKeys.
+// The keys of an entry are computed once and cached (entries are replaced, not mutated, on edits),
+// and a sort compares only cached keys: no reflection and no string collation per comparison.
+// FRECENCY changes with every use, so it is read once per sort instead of cached.
+// Not thread-safe: meant to be used from one background sort thread.
+public class EntrySortKeys {
+
+    public enum Field { SERVICE, USERNAME, PASSWORD, DOMAIN, FOLDER, FRECENCY }
+
+    // One sort criterion (column + direction)
+    public static class SortSpec {
+        private final Field field;
+        private final boolean descending;
+
+        public SortSpec(Field field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final Collator collator;
+    private final Map<PasswordEntry, CollationKey[]> cache = new WeakHashMap<>();
+
+    public EntrySortKeys(Locale locale) {
+        this.collator = Collator.getInstance(locale);
+        // Ignore case differences, but keep accents apart ("a" < "A" == "a" < "á")
+        this.collator.setStrength(Collator.SECONDARY);
+    }
+
+    // Returns a new list sorted by the given criteria (stable, so equal rows keep their order)
+    public List<PasswordEntry> sort(List<PasswordEntry> entries, List<SortSpec> order) {
+        if (order.isEmpty()) {
+            return new ArrayList<>(entries);
+        }
+
+        // Decorate once, so the comparator works on arrays instead of map lookups
+        // (no collation keys at all for the default frecency order)
+        boolean collated = order.stream().anyMatch(spec -> spec.field != Field.FRECENCY);
+        Keyed[] keyed = new Keyed[entries.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            PasswordEntry entry = entries.get(i);
+            keyed[i] = new Keyed(entry, collated ? keys(entry) : null, entry.getUsage().getKey());
+        }
+
+        Arrays.sort(keyed, (a, b) -> {
+            for (SortSpec spec : order) {
+                int cmp = spec.field == Field.FRECENCY ? Double.compare(a.frecency, b.frecency)
+                        : a.keys[spec.field.ordinal()].compareTo(b.keys[spec.field.ordinal()]);
+                if (cmp != 0) {
+                    return spec.descending ? -cmp : cmp;
+                }
+            }
+            return 0;
+        });
+
+        List<PasswordEntry> sorted = new ArrayList<>(keyed.length);
+        for (Keyed k : keyed) {
+            sorted.add(k.entry);
+        }
+        return sorted;
+    }
+
+    private CollationKey[] keys(PasswordEntry entry) {
+        CollationKey[] keys = cache.get(entry);
+        if (keys == null) {
+            keys = new CollationKey[FIELDS.length];
+            keys[Field.SERVICE.ordinal()] = collator.getCollationKey(entry.getService());
+            keys[Field.USERNAME.ordinal()] = collator.getCollationKey(entry.getUsername());
+            keys[Field.PASSWORD.ordinal()] = collator.getCollationKey(entry.getPassword());
+            keys[Field.DOMAIN.ordinal()] = collator.getCollationKey(DomainIndex.siteOf(entry));
+            keys[Field.FOLDER.ordinal()] = collator.getCollationKey(entry.getFolder());
+            cache.put(entry, keys);
+        }
+        return keys;
+    }
+
+    private static class Keyed {
+        final PasswordEntry entry;
+        final CollationKey[] keys;
+        final double frecency;
+
+        Keyed(PasswordEntry entry, CollationKey[] keys, double frecency) {
+            this.entry = entry;
+            this.keys = keys;
+            this.frecency = frecency;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.password_generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// The few most frecent entries (see UsageStats), for the quick-access panel.
+// A frecency key only grows when its entry is used, so after a use the entry either is in the cache
+// already or has to beat the weakest cached one: O(capacity) per use, independent of the vault size.
+// Only removing a cached entry needs a scan of the vault to find the next best one.
+// Not thread-safe: used on the JavaFX thread.
+public class FrecencyCache {
+
+    private static final Comparator<PasswordEntry> BY_KEY =
+            Comparator.comparingDouble(entry -> entry.getUsage().getKey());
+
+    private final int capacity;
+    private final Map<String, PasswordEntry> top = new HashMap<>();
+
+    public FrecencyCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Call after a use of the entry was recorded
+    public void used(PasswordEntry entry) {
+        if (entry.getUsage().isEmpty()) {
+            return;
+        }
+        if (top.containsKey(entry.getId()) || top.size() < capacity) {
+            top.put(entry.getId(), entry);
+            return;
+        }
+        PasswordEntry weakest = null;
+        for (PasswordEntry cached : top.values()) {
+            if (weakest == null || BY_KEY.compare(cached, weakest) < 0) {
+                weakest = cached;
+            }
+        }
+        if (BY_KEY.compare(entry, weakest) > 0) {
+            top.remove(weakest.getId());
+            top.put(entry.getId(), entry);
+        }
+    }
+
+    // Follows a change of the entry list; `all` is only scanned if a cached entry was deleted
+    public void update(Collection<? extends PasswordEntry> removed, Collection<? extends PasswordEntry> added,
+                       Collection<PasswordEntry> all) {
+        // Edits arrive as removed + added with the same id: the new revision takes the old one's place
+        Map<String, PasswordEntry> addedById = new HashMap<>();
+        for (PasswordEntry entry : added) {
+            addedById.put(entry.getId(), entry);
+        }
+        boolean lostOne = false;
+        for (PasswordEntry entry : removed) {
+            if (!addedById.containsKey(entry.getId())) {
+                lostOne |= top.remove(entry.getId()) != null;
+            }
+        }
+        for (PasswordEntry entry : addedById.values()) {
+            used(entry);
+        }
+        if (lostOne) {
+            rebuild(all);
+        }
+    }
+
+    // Picks the best entries from scratch: O(n log capacity)
+    public void rebuild(Collection<PasswordEntry> all) {
+        PriorityQueue<PasswordEntry> best = new PriorityQueue<>(capacity + 1, BY_KEY);
+        for (PasswordEntry entry : all) {
+            if (entry.getUsage().isEmpty()) {
+                continue;
+            }
+            best.add(entry);
+            if (best.size() > capacity) {
+                best.poll();
+            }
+        }
+        top.clear();
+        for (PasswordEntry entry : best) {
+            top.put(entry.getId(), entry);
+        }
+    }
+
+    // Cached entries, most frecent first
+    public List<PasswordEntry> entries() {
+        List<PasswordEntry> sorted = new ArrayList<>(top.values());
+        sorted.sort(BY_KEY.reversed());
+        return sorted;
+    }
+}
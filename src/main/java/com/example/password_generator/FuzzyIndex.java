@@ -0,0 +1,247 @@
+package com.example.password_generator;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// Typo-tolerant search over service and username using a trigram index.
+// Every entry gets a slot; service and username are indexed as two documents (2*slot, 2*slot+1).
+// A query counts shared trigrams per document with one pass over the posting lists of its own
+// trigrams and ranks by how much of the query was found (containment), Dice similarity,
+// substring matches and usage frequency. Trigrams are taken per word, so "gihtub" still shares
+// the word start and end with "login.github.com".
+// Not thread-safe: all calls must come from the same (background) thread.
+public class FuzzyIndex {
+
+    private static final double MIN_CONTAINMENT = 0.4;
+    private static final int MIN_SHARED = 3;
+    private static final double CONTAINMENT_WEIGHT = 0.7;
+    private static final double DICE_WEIGHT = 0.3;
+    private static final double USERNAME_WEIGHT = 0.8;
+    private static final double SUBSTRING_BONUS = 0.5;
+    private static final double USAGE_WEIGHT = 0.05;
+    private static final double MAX_USAGE_LOG = 10;
+
+    private final Map<Long, int[]> postings = new HashMap<>();   // trigram -> [size, doc, doc, ...]
+    private final Map<PasswordEntry, Integer> slots = new IdentityHashMap<>();
+    private final ToIntFunction<PasswordEntry> usage;
+
+    private PasswordEntry[] entries = new PasswordEntry[16];
+    private String[] texts = new String[32];                      // normalized text per document
+    private int[] gramCounts = new int[32];                       // distinct trigrams per document
+    private int nextSlot = 0;
+    private int deadSlots = 0;
+
+    // Per query scratch space, reused so a query does not allocate per document
+    private int[] hits = new int[32];
+    private int[] touched = new int[32];
+    private double[] slotScores = new double[16];
+    private int[] scoredSlots = new int[16];
+
+    public FuzzyIndex(ToIntFunction<PasswordEntry> usage) {
+        this.usage = usage;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public void add(PasswordEntry entry) {
+        if (slots.containsKey(entry)) {
+            return;
+        }
+        int slot = nextSlot++;
+        ensureCapacity(slot);
+        entries[slot] = entry;
+        slots.put(entry, slot);
+        indexDocument(2 * slot, normalize(entry.getService()));
+        indexDocument(2 * slot + 1, normalize(entry.getUsername()));
+    }
+
+    // Removal is lazy: the slot is marked dead and skipped; the index is compacted when many slots are dead
+    public void remove(PasswordEntry entry) {
+        Integer slot = slots.remove(entry);
+        if (slot == null) {
+            return;
+        }
+        entries[slot] = null;
+        deadSlots++;
+        if (deadSlots > 1024 && deadSlots > nextSlot / 4) {
+            rebuild();
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        slots.clear();
+        Arrays.fill(entries, null);
+        nextSlot = 0;
+        deadSlots = 0;
+    }
+
+    // Best matches first, at most `limit` results
+    public List<PasswordEntry> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    // Same, but only entries accepted by the filter (null = all) count towards the limit
+    public List<PasswordEntry> search(String query, int limit, Predicate<PasswordEntry> filter) {
+        String q = normalize(query);
+        long[] grams = distinctTrigrams(q);
+        if (grams.length == 0 || slots.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. Count shared trigrams per document
+        int touchedCount = 0;
+        for (long gram : grams) {
+            int[] list = postings.get(gram);
+            if (list == null) continue;
+            for (int i = 1; i <= list[0]; i++) {
+                int doc = list[i];
+                if (hits[doc]++ == 0) {
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        // A document containing the query as a substring misses at most the padding grams
+        // of the first and last query word, so others can skip the contains() check
+        int minShared = Math.min(MIN_SHARED, grams.length);
+        int substringShared = grams.length - 3;
+
+        // 2. Score the entries of all touched documents, keep the best `limit` in a min-heap
+        int scoredCount = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int doc = touched[t];
+            int shared = hits[doc];
+            hits[doc] = 0;
+
+            int slot = doc >> 1;
+            if (entries[slot] == null) continue;
+            if (filter != null && slotScores[slot] == 0 && !filter.test(entries[slot])) continue;
+
+            double containment = (double) shared / grams.length;
+            boolean candidate = containment >= MIN_CONTAINMENT && shared >= minShared;
+            boolean substring = (candidate || shared >= substringShared) && texts[doc].contains(q);
+            if (!candidate && !substring) continue;
+
+            double similarity = CONTAINMENT_WEIGHT * containment
+                    + DICE_WEIGHT * 2.0 * shared / (grams.length + gramCounts[doc]);
+            if (substring) similarity += SUBSTRING_BONUS;
+            if ((doc & 1) == 1) similarity *= USERNAME_WEIGHT;
+
+            if (slotScores[slot] == 0) {
+                scoredSlots[scoredCount++] = slot;
+            }
+            slotScores[slot] = Math.max(slotScores[slot], similarity);
+        }
+
+        PriorityQueue<double[]> best = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        for (int i = 0; i < scoredCount; i++) {
+            int slot = scoredSlots[i];
+            double score = slotScores[slot];
+            slotScores[slot] = 0;
+            if (best.size() == limit && score + USAGE_WEIGHT * MAX_USAGE_LOG < best.peek()[0]) {
+                continue; // cannot make it into the top results even with heavy use
+            }
+            score += USAGE_WEIGHT * Math.min(MAX_USAGE_LOG, Math.log1p(usage.applyAsInt(entries[slot])));
+            best.add(new double[]{score, slot});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        PasswordEntry[] result = new PasswordEntry[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = entries[(int) best.poll()[1]];
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private void indexDocument(int doc, String text) {
+        texts[doc] = text;
+        long[] grams = distinctTrigrams(text);
+        gramCounts[doc] = grams.length;
+        for (long gram : grams) {
+            int[] list = postings.get(gram);
+            if (list == null) {
+                list = new int[5];
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+            }
+            list[++list[0]] = doc;
+            postings.put(gram, list);
+        }
+    }
+
+    // Drops dead slots by re-indexing the live entries
+    private void rebuild() {
+        List<PasswordEntry> live = new ArrayList<>(slots.size());
+        for (int i = 0; i < nextSlot; i++) {
+            if (entries[i] != null) live.add(entries[i]);
+        }
+        clear();
+        for (PasswordEntry entry : live) {
+            add(entry);
+        }
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < entries.length) {
+            return;
+        }
+        int capacity = Math.max(entries.length * 2, slot + 1);
+        entries = Arrays.copyOf(entries, capacity);
+        texts = Arrays.copyOf(texts, 2 * capacity);
+        gramCounts = Arrays.copyOf(gramCounts, 2 * capacity);
+        hits = Arrays.copyOf(hits, 2 * capacity);
+        touched = Arrays.copyOf(touched, 2 * capacity);
+        slotScores = Arrays.copyOf(slotScores, capacity);
+        scoredSlots = Arrays.copyOf(scoredSlots, capacity);
+    }
+
+    // Lowercase without accents, so "Müller" matches "muller"
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}+", "").trim();
+    }
+
+    // Trigrams of every word padded as "  word " (so short words and word starts get grams too)
+    private static long[] distinctTrigrams(String text) {
+        String[] words = text.split("[^\\p{L}\\p{N}]+");
+        int total = 0;
+        for (String word : words) {
+            if (!word.isEmpty()) total += word.length() + 1;
+        }
+        if (total == 0) {
+            return new long[0];
+        }
+
+        long[] grams = new long[total];
+        int n = 0;
+        for (String word : words) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 2 < padded.length(); i++) {
+                grams[n++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Background verifier for the encrypted vault file and its backups.
+//
+// Whoever writes one of these files also writes a checksum tree next to it ("<file>.sums"):
+// SHA-256 hashes of 64 KiB segments of the *encrypted* bytes plus a root hash over them.
+// The scanner re-reads the files segment by segment and compares, so it never needs the master
+// password and never holds plaintext. A mismatch names the damaged segment; the root hash tells a
+// damaged checksum file apart from a damaged vault. For BackupStore snapshots only the manifests are
+// covered; their chunks are authenticated whenever a snapshot is read or verified with the key.
+//
+//   PGSUMS1 <segment size> <file length>
+//   <root hash hex>
+//   <segment hash hex>   (one line per segment)
+//
+// The scan runs on one daemon thread with minimum priority and is throttled to
+// -Dvault.scan.bytesPerSecond (default 1 MiB/s), once every -Dvault.scan.minutes (default 60).
+// A mismatch is only reported if a second pass a few seconds later confirms it (another instance
+// may have been halfway through writing), and only once per file until it is fine again.
+public class IntegrityScanner {
+
+    static final int SEGMENT_SIZE = 64 * 1024;
+    private static final String HEADER = "PGSUMS1";
+    private static final String SUFFIX = ".sums";
+
+    private static final long INTERVAL_MILLIS = Long.getLong("vault.scan.minutes", 60) * 60_000;
+    private static final long BYTES_PER_SECOND = Long.getLong("vault.scan.bytesPerSecond", 1024 * 1024);
+    private static final long FIRST_SCAN_DELAY_MILLIS = 60_000;
+    private static final long CONFIRM_DELAY_MILLIS = 5_000;
+
+    public enum Status { OK, DAMAGED, UNCHECKED }
+
+    // Outcome of one verification of one file
+    public static class Result {
+        private final Path file;
+        private final Status status;
+        private final String detail;
+        private final long checkedAt;
+
+        Result(Path file, Status status, String detail) {
+            this.file = file;
+            this.status = status;
+            this.detail = detail;
+            this.checkedAt = System.currentTimeMillis();
+        }
+
+        public Path getFile() { return file; }
+        public Status getStatus() { return status; }
+        public String getDetail() { return detail; }
+        public long getCheckedAt() { return checkedAt; }
+        public boolean isOk() { return status == Status.OK; }
+    }
+
+    // Called on the scanner thread; lastGoodBackup is null if no backup has been verified
+    public interface Listener {
+        void damaged(Result damaged, Result lastGoodBackup);
+    }
+
+    private final Path vaultFile;
+    private final Path backupDir;
+    private final Map<Path, Result> results = new ConcurrentHashMap<>();
+    private volatile Listener listener;
+    private Thread thread;
+
+    public IntegrityScanner(Path vaultFile, Path backupDir) {
+        this.vaultFile = vaultFile;
+        this.backupDir = backupDir;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "integrity-scan");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    // Latest result per file (vault first, then backups newest first)
+    public List<Result> getResults() {
+        List<Result> list = new ArrayList<>();
+        for (Path target : targets()) {
+            Result result = results.get(target);
+            if (result != null) list.add(result);
+        }
+        return list;
+    }
+
+    // Newest backup whose last scan was fine
+    public Result lastGoodBackup() {
+        for (Path backup : backups(backupDir)) {
+            Result result = results.get(backup);
+            if (result != null && result.isOk()) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private void run() {
+        try {
+            Thread.sleep(FIRST_SCAN_DELAY_MILLIS);
+            while (true) {
+                for (Path target : targets()) {
+                    Result result = verifyConfirmed(target);
+                    Result previous = results.put(target, result);
+
+                    boolean newlyDamaged = result.getStatus() == Status.DAMAGED
+                            && (previous == null || previous.getStatus() != Status.DAMAGED);
+                    Listener current = listener;
+                    if (newlyDamaged && current != null) {
+                        current.damaged(result, lastGoodBackup());
+                    }
+                }
+                results.keySet().removeIf(path -> !Files.exists(path));
+                Thread.sleep(INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    private Result verifyConfirmed(Path target) throws InterruptedException {
+        Result result = verify(target, BYTES_PER_SECOND);
+        if (result.getStatus() == Status.DAMAGED) {
+            Thread.sleep(CONFIRM_DELAY_MILLIS);
+            result = verify(target, BYTES_PER_SECOND);
+        }
+        return result;
+    }
+
+    private List<Path> targets() {
+        List<Path> targets = new ArrayList<>();
+        if (Files.exists(vaultFile)) {
+            targets.add(vaultFile);
+        }
+        targets.addAll(backups(backupDir));
+        return targets;
+    }
+
+    // Backup files (*.enc copies and BackupStore snapshot manifests) in the directory, newest first
+    static List<Path> backups(Path dir) {
+        List<Path> backups = new ArrayList<>();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return backups;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{enc,snap}")) {
+            stream.forEach(backups::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        backups.sort(Comparator.comparing(IntegrityScanner::modifiedMillis).reversed());
+        return backups;
+    }
+
+    // Newest backup in the directory that passes a full (unthrottled) check, e.g. after the vault failed to open
+    public static Result findGoodBackup(Path backupDir) throws InterruptedException {
+        for (Path backup : backups(backupDir)) {
+            Result result = verify(backup, 0);
+            if (result.isOk()) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    // Writes the checksum tree for data that was just written to `file`
+    public static void writeChecksums(Path file, byte[] data) throws IOException {
+        MessageDigest digest = sha256();
+        List<byte[]> leaves = new ArrayList<>();
+        for (int offset = 0; offset < data.length || leaves.isEmpty(); offset += SEGMENT_SIZE) {
+            digest.update(data, offset, Math.min(SEGMENT_SIZE, data.length - offset));
+            leaves.add(digest.digest());
+        }
+
+        HexFormat hex = HexFormat.of();
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append(' ').append(SEGMENT_SIZE).append(' ').append(data.length).append('\n');
+        sb.append(hex.formatHex(root(leaves))).append('\n');
+        for (byte[] leaf : leaves) {
+            sb.append(hex.formatHex(leaf)).append('\n');
+        }
+        ChunkStore.writeAtomically(checksumFile(file), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Compares the file with its checksum tree; bytesPerSecond = 0 reads at full speed
+    public static Result verify(Path file, long bytesPerSecond) throws InterruptedException {
+        Path sumsFile = checksumFile(file);
+        List<byte[]> leaves = new ArrayList<>();
+        long length;
+        try {
+            if (!Files.exists(sumsFile)) {
+                return new Result(file, Status.UNCHECKED, "No checksums yet.");
+            }
+            List<String> lines = Files.readAllLines(sumsFile, StandardCharsets.UTF_8);
+            String[] header = lines.isEmpty() ? new String[0] : lines.get(0).split(" ");
+            if (header.length != 3 || !header[0].equals(HEADER) || Integer.parseInt(header[1]) != SEGMENT_SIZE) {
+                return new Result(file, Status.UNCHECKED, "Unknown checksum format.");
+            }
+            length = Long.parseLong(header[2]);
+            HexFormat hex = HexFormat.of();
+            for (String line : lines.subList(2, lines.size())) {
+                leaves.add(hex.parseHex(line.trim()));
+            }
+            if (lines.size() < 3 || !Arrays.equals(root(leaves), hex.parseHex(lines.get(1).trim()))) {
+                return new Result(file, Status.UNCHECKED, "The checksum file itself is damaged.");
+            }
+        } catch (IOException | RuntimeException e) {
+            return new Result(file, Status.UNCHECKED, "The checksum file cannot be read.");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != length) {
+                return new Result(file, Status.DAMAGED,
+                        "The file is " + channel.size() + " bytes long, " + length + " bytes were written.");
+            }
+            MessageDigest digest = sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_SIZE);
+            for (int segment = 0; segment < leaves.size(); segment++) {
+                long start = System.nanoTime();
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // fill the segment
+                }
+                buffer.flip();
+                digest.update(buffer);
+                if (!Arrays.equals(digest.digest(), leaves.get(segment))) {
+                    return new Result(file, Status.DAMAGED,
+                            "Segment " + (segment + 1) + " of " + leaves.size() + " does not match its checksum.");
+                }
+                throttle(start, buffer.limit(), bytesPerSecond);
+            }
+        } catch (IOException e) {
+            return new Result(file, Status.DAMAGED, "The file cannot be read: " + e.getMessage());
+        }
+        return new Result(file, Status.OK, "");
+    }
+
+    // Sleeps long enough that reading `bytes` took at least bytes / bytesPerSecond
+    private static void throttle(long startNanos, int bytes, long bytesPerSecond) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = bytes * 1_000_000_000L / bytesPerSecond;
+        long sleepMillis = (budgetNanos - (System.nanoTime() - startNanos)) / 1_000_000;
+        if (sleepMillis > 0) {
+            Thread.sleep(sleepMillis);
+        }
+    }
+
+    // Binary hash tree over the segment hashes (an odd node is carried up unchanged)
+    private static byte[] root(List<byte[]> leaves) {
+        MessageDigest digest = sha256();
+        List<byte[]> level = leaves;
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    next.add(level.get(i));
+                } else {
+                    digest.update(level.get(i));
+                    digest.update(level.get(i + 1));
+                    next.add(digest.digest());
+                }
+            }
+            level = next;
+        }
+        return level.isEmpty() ? new byte[0] : level.get(0);
+    }
+
+    static Path checksumFile(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    private static long modifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -17,7 +17,7 @@ public class Main extends Application {
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("password_generator_ui.fxml"));
 
         // Creating the Scene
-        Scene scene = new Scene(fxmlLoader.load(), 500, 300);
+        Scene scene = new Scene(fxmlLoader.load(), 560, 360);
 
         // implementing CSS
         scene.getStylesheets().add(getClass().getResource("/styles/style.css").toExternalForm());
@@ -15,9 +15,7 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
 
 // Controller for the main password generator window and the entry point to the Password Manager
 public class MainController {
@@ -32,6 +30,15 @@ public class MainController {
     public Label passwordLength;
     public TextArea generatedPasswordTextArea;
 
+    // Passphrase mode: word count, separator, capitalization, number + entropy readout
+    @FXML private CheckBox passphraseCheckBox;
+    @FXML private Spinner<Integer> wordCountSpinner;
+    @FXML private TextField separatorField;
+    @FXML private ComboBox<String> capitalizationBox;
+    @FXML private CheckBox addNumberCheckBox;
+    @FXML private Label entropyLabel;
+    private PassphraseGenerator passphraseGenerator;
+
     // Current slider value and flags reflecting which character groups are enabled
     double currentSliderValue;
     boolean upper, lower, numbers, symbols;
@@ -43,79 +50,95 @@ public class MainController {
     private String cachedMasterPassword;
     private long lastMasterLoginMillis = 0L;
 
-    // Character pools used for password generation
-    private final String UPPERCASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private final String LOWERCASE = "abcdefghijklmnopqrstuvwxyz";
-    private final String DIGITS = "0123456789";
-    private final String SYMBOLS = "!@#$%^&*()-_=+<>?";
+    @FXML
+    public void initialize() {
+        capitalizationBox.getItems().addAll("lowercase", "Title Case", "Random Case");
+        capitalizationBox.getSelectionModel().selectFirst();
+        wordCountSpinner.valueProperty().addListener((obs, oldValue, newValue) -> onPassphraseOptionChange());
+        separatorField.textProperty().addListener((obs, oldValue, newValue) -> onPassphraseOptionChange());
+    }
 
     @FXML
     protected void onGeneratePasswordButtonClick() {
+        if (passphraseCheckBox.isSelected()) {
+            generatePassphrase();
+            return;
+        }
+
         if(!upper && !lower && !numbers && !symbols) {
             successMessage.setText("Please select at least one character type!");
             return;
         }
 
-        // Creating charPools List
-        List<String> charPools = new ArrayList<>();
-
-        if(upper) charPools.add(UPPERCASE);
-        if(lower) charPools.add(LOWERCASE);
-        if(numbers) charPools.add(DIGITS);
-        if(symbols) charPools.add(SYMBOLS);
-
-        // Generate random password
+        // The checkboxes describe a policy: at least one character of every selected group
         int length = (int) passwordLengthSlider.getValue();
-        String password = generateRandomPassword(charPools, length);
+        PolicySampler sampler;
+        try {
+            sampler = new PolicySampler(PasswordPolicy.fromSelection(length, upper, lower, numbers, symbols));
+        } catch (IllegalArgumentException e) {
+            successMessage.setText("The password is too short for the selected character types.");
+            return;
+        }
 
         // Show generated random password in TextArea
-        generatedPasswordTextArea.setText(password);
+        generatedPasswordTextArea.setText(sampler.next());
         successMessage.setText("Your password has been generated!");
     }
 
-    // Core generation logic: builds a random password from the selected character pools
-    private String generateRandomPassword(List<String> charPools, int length) {
-
-        Random random = new Random();
-        StringBuilder allChars = new StringBuilder();
-
-        // Merge all permitted characters
-        for (String pool : charPools) {
-            allChars.append(pool);
+    // Passphrase from the bundled (or -Dpassphrase.wordlist) word list with the chosen options
+    private void generatePassphrase() {
+        try {
+            generatedPasswordTextArea.setText(configuredPassphraseGenerator().generate());
+            successMessage.setText("Your passphrase has been generated!");
+            onPassphraseOptionChange();
+        } catch (Exception e) {
+            successMessage.setText("Could not load the word list.");
+            e.printStackTrace();
         }
+    }
 
-        List<Character> passwordChars = new ArrayList<>();
-
-        // 1. First, add at least 1 character per activated group
-        for (String pool : charPools) {
-            int index = random.nextInt(pool.length());
-            passwordChars.add(pool.charAt(index));
+    private PassphraseGenerator configuredPassphraseGenerator() throws IOException {
+        if (passphraseGenerator == null) {
+            passphraseGenerator = new PassphraseGenerator(WordList.configured());
         }
+        passphraseGenerator.setWordCount(wordCountSpinner.getValue());
+        passphraseGenerator.setSeparator(separatorField.getText());
+        passphraseGenerator.setCapitalization(PassphraseGenerator.Capitalization.values()[
+                capitalizationBox.getSelectionModel().getSelectedIndex()]);
+        passphraseGenerator.setNumberDigits(addNumberCheckBox.isSelected() ? 2 : 0);
+        return passphraseGenerator;
+    }
 
-        // 2. Fill remaining characters randomly
-        while (passwordChars.size() < length) {
-            int index = random.nextInt(allChars.length());
-            passwordChars.add(allChars.charAt(index));
+    @FXML
+    // Switches between character passwords and passphrases
+    public void onPassphraseToggle() {
+        boolean passphrase = passphraseCheckBox.isSelected();
+        for (Control control : new Control[]{wordCountSpinner, separatorField, capitalizationBox, addNumberCheckBox}) {
+            control.setDisable(!passphrase);
         }
-
-        // 3. Mix password characters (Fisher-Yates)
-        for (int i = passwordChars.size() - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            char temp = passwordChars.get(i);
-            passwordChars.set(i, passwordChars.get(j));
-            passwordChars.set(j, temp);
+        for (Control control : new Control[]{checkBox1, checkBox2, checkBox3, checkBox4, passwordLengthSlider}) {
+            control.setDisable(passphrase);
         }
+        onPassphraseOptionChange();
+    }
 
-        // 4. Transform to string
-        StringBuilder password = new StringBuilder();
-        for (char c : passwordChars) {
-            password.append(c);
+    @FXML
+    // Shows the entropy of the current passphrase settings
+    public void onPassphraseOptionChange() {
+        if (!passphraseCheckBox.isSelected()) {
+            entropyLabel.setText("");
+            return;
+        }
+        try {
+            PassphraseGenerator generator = configuredPassphraseGenerator();
+            entropyLabel.setText(String.format("Entropy: %s%.1f bits",
+                    generator.isEntropyExact() ? "" : "at most ", generator.entropyBits()));
+        } catch (IOException e) {
+            entropyLabel.setText("");
+            e.printStackTrace();
         }
-
-        return password.toString();
     }
 
-
     @FXML
     protected void onSliderChange() {
         currentSliderValue = passwordLengthSlider.getValue();
@@ -172,7 +195,7 @@ public class MainController {
             managerStage.setTitle("Password Manager");
 
             FXMLLoader managerFxmlLoader = new FXMLLoader(Main.class.getResource("password_manager_ui.fxml"));
-            Scene scene = new Scene(managerFxmlLoader.load(), 490, 430);
+            Scene scene = new Scene(managerFxmlLoader.load(), 760, 430);
 
             PasswordManagerController controller = managerFxmlLoader.getController();
 
@@ -0,0 +1,95 @@
+package com.example.password_generator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Fixed-shape Merkle tree over the sync records of one replica.
+// Records are spread over 256 leaves by the hash of their id, so two replicas with the same
+// records always build the same tree and differing subtrees can be found by comparing hashes.
+public class MerkleTree {
+
+    public static final int DEPTH = 8;
+    public static final int LEAF_COUNT = 1 << DEPTH;   // 256 leaves
+    public static final int ROOT = 1;                  // heap layout: children of n are 2n and 2n+1
+
+    // nodes[1] is the root, nodes[LEAF_COUNT .. 2*LEAF_COUNT-1] are the leaves
+    private final byte[][] nodes = new byte[2 * LEAF_COUNT][];
+    private final List<List<SyncRecord>> leaves = new ArrayList<>(LEAF_COUNT);
+
+    public MerkleTree(Collection<SyncRecord> records) {
+        for (int i = 0; i < LEAF_COUNT; i++) {
+            leaves.add(new ArrayList<>());
+        }
+        for (SyncRecord record : records) {
+            leaves.get(leafOf(record.getId())).add(record);
+        }
+
+        MessageDigest digest = sha256();
+
+        // 1. Leaf hashes: only the version stamps are hashed, never the (randomly encrypted) payload
+        for (int i = 0; i < LEAF_COUNT; i++) {
+            List<SyncRecord> leaf = leaves.get(i);
+            leaf.sort(Comparator.comparing(SyncRecord::getId));
+            for (SyncRecord record : leaf) {
+                digest.update(record.getId().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(longBytes(record.getVersion()));
+                digest.update(record.getOrigin().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) (record.isDeleted() ? 1 : 0));
+            }
+            nodes[LEAF_COUNT + i] = digest.digest();
+        }
+
+        // 2. Inner nodes bottom-up
+        for (int n = LEAF_COUNT - 1; n >= ROOT; n--) {
+            digest.update(nodes[2 * n]);
+            digest.update(nodes[2 * n + 1]);
+            nodes[n] = digest.digest();
+        }
+    }
+
+    public byte[] hash(int node) {
+        return nodes[node];
+    }
+
+    public static boolean isLeaf(int node) {
+        return node >= LEAF_COUNT;
+    }
+
+    // Version stamps (without payload) of all records in a leaf node
+    public List<SyncRecord> leafStamps(int node) {
+        List<SyncRecord> stamps = new ArrayList<>();
+        for (SyncRecord record : leaves.get(node - LEAF_COUNT)) {
+            stamps.add(record.stampOnly());
+        }
+        return stamps;
+    }
+
+    // Leaf index of an id: first byte of its SHA-256 hash
+    static int leafOf(String id) {
+        byte[] h = sha256().digest(id.getBytes(StandardCharsets.UTF_8));
+        return h[0] & 0xff;
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] b = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            b[i] = (byte) value;
+            value >>>= 8;
+        }
+        return b;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
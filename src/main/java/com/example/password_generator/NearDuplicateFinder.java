@@ -0,0 +1,331 @@
+package com.example.password_generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+// Finds passwords that are the same or almost the same across entries ("Summer2024!" / "Summer2025!").
+// Works on the distinct passwords of the vault and joins them into clusters (union-find) by two rules:
+//   - same base word: lowercased, leading/trailing digits and symbols cut off and leetspeak undone,
+//     so "P@ssw0rd1" and "password!!" share "password" (one hash map, no comparisons)
+//   - small edit distance: MinHash signatures over character bigrams, split into LSH bands; only
+//     passwords that share a band bucket are compared with a bounded Levenshtein distance
+// Random passwords share almost no bigrams and so almost never meet in a bucket; the work grows with
+// the number of passwords, not with the number of pairs. Signatures and bands run in parallel.
+// Nothing is stored: the result lives as long as the caller keeps it (the dialog, while the vault is open).
+public class NearDuplicateFinder {
+
+    private static final int MIN_LENGTH = 6;
+    private static final int MIN_BASE_LENGTH = 4;
+    private static final int BANDS = 32;
+    private static final int ROWS = 3;
+    private static final int HASHES = BANDS * ROWS;
+    // Members of one bucket are sorted and each is compared with this many neighbours, so a huge bucket
+    // (many passwords sharing their lowest-hashing bigrams) stays linear
+    private static final int BUCKET_WINDOW = 32;
+    // Fixed seed: the same vault always gives the same clusters
+    private static final long[] MULTIPLIERS = new SplittableRandom(0x5EED).longs(HASHES).map(m -> m | 1).toArray();
+    private static final long[] ADDENDS = new SplittableRandom(0xADD).longs(HASHES).toArray();
+
+    public enum Kind {
+        IDENTICAL("Same password"),
+        SAME_BASE("Same base word, different digits or symbols"),
+        SIMILAR("Differ in a few characters");
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() { return description; }
+    }
+
+    // Entries whose passwords are linked (directly or through other members of the cluster)
+    public static class Cluster {
+        private final Kind kind;
+        private final List<PasswordEntry> entries;
+        private final int distinctPasswords;
+
+        Cluster(Kind kind, List<PasswordEntry> entries, int distinctPasswords) {
+            this.kind = kind;
+            this.entries = entries;
+            this.distinctPasswords = distinctPasswords;
+        }
+
+        public Kind getKind() { return kind; }
+        public List<PasswordEntry> getEntries() { return entries; }
+        public int getDistinctPasswords() { return distinctPasswords; }
+    }
+
+    private NearDuplicateFinder() {
+    }
+
+    // Clusters with at least two entries, largest first
+    public static List<Cluster> find(List<PasswordEntry> entries) {
+        Map<String, List<PasswordEntry>> byPassword = new LinkedHashMap<>();
+        for (PasswordEntry entry : entries) {
+            String password = entry.getPassword();
+            if (password != null && !password.isEmpty()) {
+                byPassword.computeIfAbsent(password, p -> new ArrayList<>()).add(entry);
+            }
+        }
+        String[] passwords = byPassword.keySet().toArray(new String[0]);
+        int n = passwords.length;
+        String[] lowered = new String[n];
+        String[] bases = new String[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            lowered[i] = passwords[i].toLowerCase(Locale.ROOT);
+            bases[i] = baseWord(lowered[i]);
+        });
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        Map<String, Integer> firstWithBase = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (bases[i] != null) {
+                Integer first = firstWithBase.putIfAbsent(bases[i], i);
+                if (first != null) union(parent, first, i);
+            }
+        }
+
+        for (long pair : similarPairs(lowered)) {
+            union(parent, (int) (pair >>> 32), (int) pair);
+        }
+
+        Map<Integer, List<Integer>> components = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            components.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+        }
+        List<Cluster> clusters = new ArrayList<>();
+        for (List<Integer> members : components.values()) {
+            List<PasswordEntry> clusterEntries = new ArrayList<>();
+            for (int i : members) {
+                clusterEntries.addAll(byPassword.get(passwords[i]));
+            }
+            if (clusterEntries.size() < 2) {
+                continue;
+            }
+            Kind kind;
+            if (members.size() == 1) {
+                kind = Kind.IDENTICAL;
+            } else if (bases[members.get(0)] != null
+                    && members.stream().allMatch(i -> bases[members.get(0)].equals(bases[i]))) {
+                kind = Kind.SAME_BASE;
+            } else {
+                kind = Kind.SIMILAR;
+            }
+            clusters.add(new Cluster(kind, clusterEntries, members.size()));
+        }
+        clusters.sort(Comparator.comparingInt((Cluster c) -> c.getEntries().size()).reversed());
+        return clusters;
+    }
+
+    // Pairs (i << 32 | j, i < j) of passwords within the edit distance limit, found through LSH buckets
+    private static Queue<Long> similarPairs(String[] passwords) {
+        int n = passwords.length;
+        int[][] signatures = new int[n][];
+        IntStream.range(0, n).parallel().forEach(i -> signatures[i] = signature(passwords[i]));
+
+        // First pass: which passwords sit in a bucket small enough that all its pairs get compared.
+        // Only such a bucket lets a later band skip a pair; in a bigger one most pairs are never compared.
+        boolean[][] fullyCompared = new boolean[BANDS][n];
+        IntStream.range(0, BANDS).parallel().forEach(band -> {
+            long[] keys = bandKeys(signatures, band);
+            for (int start = 0, end; start < keys.length; start = end) {
+                end = bucketEnd(keys, start);
+                if (end - start <= BUCKET_WINDOW) {
+                    for (int k = start; k < end; k++) fullyCompared[band][(int) keys[k]] = true;
+                }
+            }
+        });
+
+        Queue<Long> pairs = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, BANDS).parallel().forEach(band -> {
+            long[] keys = bandKeys(signatures, band);
+            for (int start = 0, end; start < keys.length; start = end) {
+                end = bucketEnd(keys, start);
+                if (end - start > 1) {
+                    compareBucket(passwords, signatures, fullyCompared, band, keys, start, end, pairs);
+                }
+            }
+        });
+        return pairs;
+    }
+
+    // (32-bit band hash << 32 | index) of every comparable password, sorted: a run of equal hashes is one
+    // bucket. Hash collisions only add candidates, the edit distance decides.
+    private static long[] bandKeys(int[][] signatures, int band) {
+        long[] keys = new long[signatures.length];
+        int count = 0;
+        for (int i = 0; i < signatures.length; i++) {
+            if (signatures[i] != null) {
+                keys[count++] = (long) bandHash(signatures[i], band) << 32 | i;
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static int bucketEnd(long[] keys, int start) {
+        int end = start + 1;
+        while (end < keys.length && keys[end] >>> 32 == keys[start] >>> 32) end++;
+        return end;
+    }
+
+    private static void compareBucket(String[] passwords, int[][] signatures, boolean[][] fullyCompared, int band,
+                                      long[] keys, int start, int end, Queue<Long> pairs) {
+        int[] bucket = new int[end - start];
+        for (int k = start; k < end; k++) bucket[k - start] = (int) keys[k];
+        if (bucket.length > BUCKET_WINDOW) {
+            bucket = Arrays.stream(bucket).boxed().sorted(Comparator.comparing(i -> passwords[i]))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+        for (int a = 0; a < bucket.length; a++) {
+            for (int b = a + 1; b < bucket.length && b <= a + BUCKET_WINDOW; b++) {
+                int i = Math.min(bucket[a], bucket[b]);
+                int j = Math.max(bucket[a], bucket[b]);
+                // A pair that was compared in an earlier band does not need a second look
+                if (!comparedBefore(signatures, fullyCompared, i, j, band) && isSimilar(passwords[i], passwords[j])) {
+                    pairs.add((long) i << 32 | j);
+                }
+            }
+        }
+    }
+
+    // Same rows in an earlier band means the same bucket there; it was compared if that bucket was small
+    private static boolean comparedBefore(int[][] signatures, boolean[][] fullyCompared, int i, int j, int band) {
+        for (int earlier = 0; earlier < band; earlier++) {
+            int from = earlier * ROWS;
+            if (fullyCompared[earlier][i]
+                    && Arrays.equals(signatures[i], from, from + ROWS, signatures[j], from, from + ROWS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // MinHash of the bigrams of "^password$"; null for passwords too short to compare.
+    // Each of the HASHES functions is a multiply-shift hash of one 64-bit mix of the bigram.
+    private static int[] signature(String password) {
+        if (password.length() < MIN_LENGTH) {
+            return null;
+        }
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        String padded = "\u0002" + password + "\u0003";
+        for (int k = 0; k + 1 < padded.length(); k++) {
+            long bigram = mix((long) padded.charAt(k) << 16 | padded.charAt(k + 1));
+            for (int h = 0; h < HASHES; h++) {
+                int value = (int) ((bigram * MULTIPLIERS[h] + ADDENDS[h]) >>> 33);
+                if (value < signature[h]) signature[h] = value;
+            }
+        }
+        return signature;
+    }
+
+    private static int bandHash(int[] signature, int band) {
+        long key = band;
+        for (int r = 0; r < ROWS; r++) {
+            key = key * 0x100000001B3L + signature[band * ROWS + r];
+        }
+        return (int) (mix(key) >>> 32);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Up to 2 edits (3 for passwords of 16+ characters) count as "almost the same"
+    static boolean isSimilar(String a, String b) {
+        int limit = Math.max(a.length(), b.length()) >= 16 ? 3 : 2;
+        return editDistance(a, b, limit) <= limit;
+    }
+
+    // Levenshtein distance, computed only in the diagonal band of width 2 * limit + 1; limit + 1 if larger
+    static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - limit);
+            int to = Math.min(b.length(), i + limit);
+            current[from - 1] = from == 1 ? i : limit + 1;
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, limit + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) current[to + 1] = limit + 1;
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    // "summer2024!" -> "summer", "p@ssw0rd1" -> "password"; null if less than MIN_BASE_LENGTH letters remain
+    static String baseWord(String lowered) {
+        int start = 0;
+        int end = lowered.length();
+        while (start < end && !Character.isLetter(lowered.charAt(start))) start++;
+        while (end > start && !Character.isLetter(lowered.charAt(end - 1))) end--;
+        StringBuilder base = new StringBuilder(end - start);
+        int letters = 0;
+        for (int i = start; i < end; i++) {
+            char c = unleet(lowered.charAt(i));
+            if (Character.isLetter(c)) letters++;
+            base.append(c);
+        }
+        return letters >= MIN_BASE_LENGTH ? base.toString() : null;
+    }
+
+    private static char unleet(char c) {
+        switch (c) {
+            case '0': return 'o';
+            case '1': return 'i';
+            case '3': return 'e';
+            case '4':
+            case '@': return 'a';
+            case '5':
+            case '$': return 's';
+            case '7': return 't';
+            default: return c;
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) parent[rootB] = rootA;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.password_generator;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Diceware-style passphrases: words drawn uniformly with SecureRandom from a WordList, joined with
+// a separator, optionally capitalized and with a random number appended to one random word.
+//
+// entropyBits() is exact: log2 of the number of equally likely outcomes of all random choices.
+// With an empty separator two different choices can produce the same text ("in"+"to" = "into"),
+// so the value is then an upper bound; isEntropyExact() tells which case applies.
+public class PassphraseGenerator {
+
+    public enum Capitalization { LOWER, TITLE, RANDOM }
+
+    private final WordList words;
+    private final SecureRandom random = new SecureRandom();
+
+    private int wordCount = 6;
+    private String separator = "-";
+    private Capitalization capitalization = Capitalization.LOWER;
+    private int numberDigits = 0;
+
+    public PassphraseGenerator(WordList words) {
+        this.words = words;
+    }
+
+    public void setWordCount(int wordCount) {
+        if (wordCount < 1) {
+            throw new IllegalArgumentException("A passphrase needs at least one word.");
+        }
+        this.wordCount = wordCount;
+    }
+
+    public void setSeparator(String separator) {
+        this.separator = separator == null ? "" : separator;
+    }
+
+    public void setCapitalization(Capitalization capitalization) {
+        this.capitalization = capitalization;
+    }
+
+    // Appends a random number with this many digits (0 = none) to one randomly chosen word
+    public void setNumberDigits(int numberDigits) {
+        if (numberDigits < 0 || numberDigits > 9) {
+            throw new IllegalArgumentException("Number digits must be between 0 and 9.");
+        }
+        this.numberDigits = numberDigits;
+    }
+
+    public String generate() {
+        StringBuilder sb = new StringBuilder(wordCount * 9);
+        append(sb);
+        return sb.toString();
+    }
+
+    // Batch path: one builder and one random source for all passphrases
+    public List<String> generate(int count) {
+        List<String> result = new ArrayList<>(count);
+        StringBuilder sb = new StringBuilder(wordCount * 9);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            append(sb);
+            result.add(sb.toString());
+        }
+        return result;
+    }
+
+    public double entropyBits() {
+        double bits = wordCount * words.bitsPerWord();
+        if (capitalization == Capitalization.RANDOM) {
+            bits += wordCount; // each word upper or lower: one bit (words start with a letter)
+        }
+        if (numberDigits > 0) {
+            bits += numberDigits * log2(10) + log2(wordCount); // the number and the word it follows
+        }
+        return bits;
+    }
+
+    public boolean isEntropyExact() {
+        return !separator.isEmpty();
+    }
+
+    private void append(StringBuilder sb) {
+        int numberAfter = numberDigits > 0 ? random.nextInt(wordCount) : -1;
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            String word = words.word(random.nextInt(words.size()));
+            boolean upper = capitalization == Capitalization.TITLE
+                    || (capitalization == Capitalization.RANDOM && random.nextBoolean());
+            if (upper) {
+                sb.append(word.substring(0, 1).toUpperCase(Locale.ROOT)).append(word, 1, word.length());
+            } else {
+                sb.append(word);
+            }
+            if (i == numberAfter) {
+                for (int d = 0; d < numberDigits; d++) {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+        }
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    // Prints passphrases for scripts: PassphraseGenerator [count] [words]
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int wordCount = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        PassphraseGenerator generator = new PassphraseGenerator(WordList.configured());
+        generator.setWordCount(wordCount);
+        StringBuilder out = new StringBuilder();
+        for (String passphrase : generator.generate(count)) {
+            out.append(passphrase).append('\n');
+        }
+        System.out.print(out);
+        System.err.printf("%.1f bits each%n", generator.entropyBits());
+    }
+}
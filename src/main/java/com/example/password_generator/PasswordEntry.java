@@ -2,14 +2,52 @@ package com.example.password_generator;
 
 import javafx.beans.property.SimpleStringProperty;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
 // Simple model class representing one row in the Password Manager table
 public class PasswordEntry {
     private final SimpleStringProperty service;
     private final SimpleStringProperty username;
     private final SimpleStringProperty password;
 
+    // Sync metadata: stable id across replicas + version stamp of the last change
+    private final String id;
+    private long version;
+    private String origin = "";
+
+    // Previous versions as compressed deltas (see EntryHistory); decoded only when browsed
+    private String historyData = "";
+
+    // Ids of attached files in the AttachmentStore
+    private List<String> attachmentIds = Collections.emptyList();
+
+    // Base32 TOTP secret for 2FA codes ("" = none)
+    private String totpSecret = "";
+
+    // Website addresses this login belongs to (see DomainIndex)
+    private List<String> urls = Collections.emptyList();
+
+    // Generation rules required by the site, PasswordPolicy.encode() format ("" = app defaults)
+    private String policy = "";
+
+    // Lowercase tags (see TagIndex.parseTags) and a folder path like "Team/Backend" ("" = none)
+    private List<String> tags = Collections.emptyList();
+    private String folder = "";
+
+    // Copies, views and edits with their frecency score; shared by all revisions of the entry
+    private UsageStats usage = new UsageStats();
+
     // Construct a new entry with the three display fields
     public PasswordEntry(String service, String username, String password) {
+        this(UUID.randomUUID().toString(), service, username, password);
+    }
+
+    // Construct an entry that keeps an existing id (used when loading or syncing)
+    public PasswordEntry(String id, String service, String username, String password) {
+        this.id = id;
         this.service = new SimpleStringProperty(service);
         this.username = new SimpleStringProperty(username);
         this.password = new SimpleStringProperty(password);
@@ -19,8 +57,58 @@ public class PasswordEntry {
     public String getUsername() { return username.get(); }
     public String getPassword() { return password.get(); }
 
+    public String getId() { return id; }
+    public long getVersion() { return version; }
+    public String getOrigin() { return origin; }
+    public String getHistoryData() { return historyData; }
+    public List<String> getAttachmentIds() { return attachmentIds; }
+    public String getTotpSecret() { return totpSecret; }
+    public List<String> getUrls() { return urls; }
+    public String getPolicy() { return policy; }
+    public List<String> getTags() { return tags; }
+    public String getFolder() { return folder; }
+    public UsageStats getUsage() { return usage; }
+
+    public void setVersion(long version) { this.version = version; }
+    public void setOrigin(String origin) { this.origin = origin; }
+    public void setHistoryData(String historyData) { this.historyData = historyData == null ? "" : historyData; }
+    public void setAttachmentIds(List<String> ids) { this.attachmentIds = Collections.unmodifiableList(new ArrayList<>(ids)); }
+    public void setTotpSecret(String totpSecret) { this.totpSecret = totpSecret == null ? "" : totpSecret; }
+    public void setUrls(List<String> urls) { this.urls = Collections.unmodifiableList(new ArrayList<>(urls)); }
+    public void setPolicy(String policy) { this.policy = policy == null ? "" : policy; }
+    public void setTags(List<String> tags) { this.tags = Collections.unmodifiableList(new ArrayList<>(tags)); }
+    public void setFolder(String folder) { this.folder = folder == null ? "" : folder; }
+    public void setUsage(UsageStats usage) { this.usage = usage; }
+
+    // Marks this entry as changed by the given replica (version is always increasing)
+    public void stamp(String replicaId) {
+        this.version = nextVersion(version);
+        this.origin = replicaId;
+    }
+
+    // Creates the edited successor of this entry: same id, new field values, old values moved to the history
+    public PasswordEntry revise(String service, String username, String password) {
+        PasswordEntry revised = new PasswordEntry(id, service, username, password);
+        revised.version = version;
+        revised.origin = origin;
+        revised.historyData = EntryHistory.push(this, service, username, password);
+        revised.attachmentIds = attachmentIds;
+        revised.totpSecret = totpSecret;
+        revised.urls = urls;
+        revised.policy = policy;
+        revised.tags = tags;
+        revised.folder = folder;
+        revised.usage = usage;
+        return revised;
+    }
+
+    // Next version stamp: wall clock time, but never lower than the previous stamp + 1
+    static long nextVersion(long previous) {
+        return Math.max(previous + 1, System.currentTimeMillis());
+    }
+
     // Getter für Properties (wichtig für TableView)
     public SimpleStringProperty serviceProperty() { return service; }
     public SimpleStringProperty usernameProperty() { return username; }
     public SimpleStringProperty passwordProperty() { return password; }
-}
\ No newline at end of file
+}
@@ -1,30 +1,66 @@
 package com.example.password_generator;
 
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
+import javax.crypto.SecretKey;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 // Controller for the Password Manager window (table with all stored entries)
 public class PasswordManagerController {
 
     // Table + columns for displaying saved entries
     @FXML private TableView<PasswordEntry> passwordTable;
+    @FXML private TableColumn<PasswordEntry, String> colGroup;
     @FXML private TableColumn<PasswordEntry, String> colService;
     @FXML private TableColumn<PasswordEntry, String> colUsername;
     @FXML private TableColumn<PasswordEntry, String> colPassword;
+    @FXML private TableColumn<PasswordEntry, String> colTotp;
+    @FXML private TableColumn<PasswordEntry, String> colTags;
+    @FXML private TextField searchField;
+    @FXML private TextField tagFilterField;
+    @FXML private HBox quickAccessBox;
 
     // Input fields for a single entry
     @FXML private TextField serviceField;
@@ -32,17 +68,27 @@ public class PasswordManagerController {
     @FXML private PasswordField passwordField;
     @FXML private TextField passwordVisibleField;
     @FXML private CheckBox showPasswordCheckBox;
+    @FXML private TextField totpField;
+    @FXML private TextField urlsField;
+    @FXML private TextField tagsField;
+    @FXML private TextField folderField;
 
-    // Status label for user feedback + current master password
+    // Status label for user feedback (the master password is kept by the shared vault)
     @FXML private Label statusMessage;
-    private String masterPassword;
 
     // Menu option that controls whether passwords are shown or masked in the table
     @FXML private CheckMenuItem showPasswordsInTableMenuItem;
+    @FXML private CheckMenuItem agentMenuItem;
 
     // Internal flag: true = show plaintext in table, false = show ******
     private boolean showPasswordsInTable = false;
 
+    // Grouping options in the Filter menu
+    @FXML private RadioMenuItem groupByNoneMenuItem;
+    @FXML private RadioMenuItem groupByServiceMenuItem;
+    @FXML private RadioMenuItem groupByDomainMenuItem;
+    @FXML private RadioMenuItem groupByFolderMenuItem;
+
     private final AuthManager authManager = new AuthManager();
 
     // Path where the encrypted password data is stored
@@ -52,8 +98,65 @@ public class PasswordManagerController {
             "passwords.enc"
     );
 
-    // List holding the data for the table
-    private final ObservableList<PasswordEntry> passwordData = FXCollections.observableArrayList();
+    // Directory of the attachment store (next to passwords.enc)
+    private static final Path ATTACHMENT_DIR = DATA_PATH.resolveSibling("attachments");
+
+    // Backups of passwords.enc, verified by the IntegrityScanner
+    private static final Path BACKUP_DIR = DATA_PATH.resolveSibling("backups");
+
+    // Socket of the optional local agent (see VaultAgent)
+    private static final Path AGENT_SOCKET = DATA_PATH.resolveSibling("agent.sock");
+
+    // Opened on first use, so the extra key unwrap only happens when attachments are used
+    private AttachmentStore attachmentStore;
+    // Adding attachments and garbage collection run one after the other on this thread (shared by all
+    // windows, they use the same directory), so a collection never runs in the middle of an add
+    private static final ExecutorService ATTACHMENT_EXECUTOR = newSerialExecutor("attachments");
+
+    // The vault shared with all other manager windows. Changes go through vault.getVault();
+    // passwordData is its JavaFX mirror, which the table and the indexes follow.
+    private SharedVault vault;
+    private EntryList passwordData = new EntryList();
+
+    // Held strongly here and registered weakly on the shared list, so closed windows can be collected
+    private final ListChangeListener<PasswordEntry> passwordDataListener = change -> {
+        updateIndexes(change);
+        refreshView();
+    };
+
+    // What the table actually shows: passwordData sorted/grouped off the FX thread and swapped in with setAll
+    private final ObservableList<PasswordEntry> viewData = FXCollections.observableArrayList();
+    private final EntrySortKeys sortKeys = new EntrySortKeys(Locale.getDefault());
+    private final ExecutorService viewExecutor = newViewExecutor();
+    private long viewGeneration = 0;
+    private EntrySortKeys.Field groupBy = null;
+    // Ids to select with the next view (set by "Select in Table" of the similar passwords dialog)
+    private Set<String> pendingSelectionIds = null;
+
+    // Fuzzy search: the trigram index lives on the view thread and is updated there with every
+    // change of passwordData. Usage counts (see UsageStats) give frequently used entries a boost.
+    private static final int SEARCH_LIMIT = 200;
+    private final FuzzyIndex searchIndex = new FuzzyIndex(entry -> entry.getUsage().getTotalCount());
+
+    // Quick access: the most frecent entries above the table (FX thread). Uses are stored in the entries
+    // and written with the next save, or at the latest USAGE_SAVE_DELAY after the first unsaved use.
+    private static final int QUICK_ACCESS_SIZE = 8;
+    private static final Duration USAGE_SAVE_DELAY = Duration.seconds(30);
+    private final FrecencyCache frecencyCache = new FrecencyCache(QUICK_ACCESS_SIZE);
+    private final PauseTransition usageSave = new PauseTransition(USAGE_SAVE_DELAY);
+
+    // Tag filter: bitmaps per tag/folder, also kept on the view thread. tagQuery is the last valid
+    // filter typed into tagFilterField (null = no filter).
+    private final TagIndex tagIndex = new TagIndex();
+    private TagIndex.Query tagQuery = null;
+
+    // Keys for sync record encryption, cached per salt so PBKDF2 runs once per replica
+    private final Map<String, SecretKey> syncKeys = new HashMap<>();
+
+    // 2FA codes: one engine + one ticker per window. The table only keeps cells for visible rows,
+    // so on every tick only these cells (tracked weakly) are updated, no per-row timers.
+    private final TotpEngine totpEngine = new TotpEngine();
+    private final Set<TotpCell> totpCells = Collections.newSetFromMap(new WeakHashMap<>());
 
     @FXML
     public void initialize() {
@@ -75,23 +178,62 @@ public class PasswordManagerController {
             }
         });
 
-        // Bind data list to the table view
-        passwordTable.setItems(passwordData);
+        colTotp.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getTotpSecret()));
+        colTotp.setCellFactory(column -> new TotpCell());
+        colTags.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(String.join(", ", cellData.getValue().getTags())));
+        scheduleTotpTick();
+
+        // Group column: shows the group name on the first row of every group only
+        colGroup.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(groupLabel(cellData.getValue())));
+        colGroup.setCellFactory(column -> new TableCell<PasswordEntry, String>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                int index = getIndex();
+                boolean sameAsPrevious = !empty && index > 0 && index < viewData.size()
+                        && groupLabel(viewData.get(index - 1)).equals(item);
+                setText(empty || item == null || sameAsPrevious ? null : item);
+                setStyle("-fx-font-weight: bold;");
+            }
+        });
+
+        // Bind the sorted view to the table view. Sorting (also multi-column with shift-click)
+        // goes through refreshView instead of the default comparator on the FX thread.
+        passwordTable.setItems(viewData);
+        passwordTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        passwordTable.setSortPolicy(table -> {
+            refreshView();
+            return true;
+        });
+        searchField.textProperty().addListener((obs, oldText, newText) -> refreshView());
+        tagFilterField.textProperty().addListener((obs, oldText, newText) -> onTagFilterChange(newText));
+        usageSave.setOnFinished(e -> saveEntries());
 
         // Update text fields when a table row is selected
         passwordTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
+                if (oldSelection == null || !oldSelection.getId().equals(newSelection.getId())) {
+                    audit(AuditLog.Action.VIEW, newSelection);
+                }
                 serviceField.setText(newSelection.getService());
                 usernameField.setText(newSelection.getUsername());
                 passwordField.setText(newSelection.getPassword());
                 if (showPasswordCheckBox.isSelected()) {
                     passwordVisibleField.setText(newSelection.getPassword());
                 }
+                totpField.setText(newSelection.getTotpSecret());
+                urlsField.setText(String.join(" ", newSelection.getUrls()));
+                tagsField.setText(String.join(" ", newSelection.getTags()));
+                folderField.setText(newSelection.getFolder());
             } else {
                 serviceField.clear();
                 usernameField.clear();
                 passwordField.clear();
                 passwordVisibleField.clear();
+                totpField.clear();
+                urlsField.clear();
+                tagsField.clear();
+                folderField.clear();
             }
         });
     }
@@ -99,6 +241,9 @@ public class PasswordManagerController {
     @FXML
     // Create a new entry from the input fields and persist it
     protected void onAddEntryClick() {
+        if (vault == null) {
+            return;
+        }
         String service = serviceField.getText();
         String user = usernameField.getText();
         String pass = passwordField.getText();
@@ -109,9 +254,30 @@ public class PasswordManagerController {
             statusMessage.setStyle("-fx-text-fill: red;");
             return;
         }
+        String totp = totpField.getText().trim();
+        if (!totp.isEmpty() && !TotpEngine.isValidSecret(totp)) {
+            statusMessage.setText("The 2FA secret is not valid Base32.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        List<String> tags;
+        try {
+            tags = TagIndex.parseTags(tagsField.getText());
+        } catch (IllegalArgumentException e) {
+            statusMessage.setText(e.getMessage());
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
 
         // Add new entry to the list
-        passwordData.add(new PasswordEntry(service, user, pass));
+        PasswordEntry entry = new PasswordEntry(service, user, pass);
+        entry.setTotpSecret(totp);
+        entry.setUrls(parseUrls(urlsField.getText()));
+        entry.setTags(tags);
+        entry.setFolder(TagIndex.normalizeFolder(folderField.getText()));
+        entry.stamp(SyncIdentity.get().getReplicaId());
+        vault.getVault().put(entry);
+        audit(AuditLog.Action.CREATE, entry);
 
         saveEntries();
 
@@ -120,30 +286,215 @@ public class PasswordManagerController {
         usernameField.clear();
         passwordField.clear();
         passwordVisibleField.clear();
+        totpField.clear();
+        urlsField.clear();
+        tagsField.clear();
+        folderField.clear();
 
         statusMessage.setText("Entry has been successfully added.");
         statusMessage.setStyle("-fx-text-fill: green;");
     }
 
     @FXML
-    // Remove the currently selected entry from the table and persist
+    // Remove the selected entries from the table (one list change) and persist once
     protected void onDeleteEntryClick() {
-        // Get the currently selected item
-        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+        List<PasswordEntry> selectedItems = new ArrayList<>(passwordTable.getSelectionModel().getSelectedItems());
 
-        if (selectedItem != null) {
-            passwordData.remove(selectedItem);
-            statusMessage.setText("Entry successfully deleted.");
-            saveEntries();
-        } else {
+        if (selectedItems.isEmpty()) {
             statusMessage.setText("No entry found.");
             statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        if (selectedItems.size() > 1 && !confirm("Delete the " + selectedItems.size() + " selected entries?")) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(selectedItems.size());
+        for (PasswordEntry entry : selectedItems) {
+            ids.add(entry.getId());
+        }
+        List<PasswordEntry> removed = vault.getVault().deleteAll(ids, SyncIdentity.get().getReplicaId());
+        for (PasswordEntry entry : removed) {
+            audit(AuditLog.Action.DELETE, entry);
+        }
+        statusMessage.setText(removed.size() == 1 ? "Entry successfully deleted." : removed.size() + " entries deleted.");
+        statusMessage.setStyle("-fx-text-fill: green;");
+        saveEntries();
+    }
+
+    @FXML
+    // Sets one field on all selected entries: username, folder, or tags to add / remove
+    protected void onBulkEditClick() {
+        List<PasswordEntry> selectedItems = new ArrayList<>(passwordTable.getSelectionModel().getSelectedItems());
+        if (selectedItems.isEmpty()) {
+            statusMessage.setText("No entry selected.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
+        Stage dialog = new Stage();
+        dialog.setTitle("Edit " + selectedItems.size() + " Entries");
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        String[] fields = {"Username", "Folder", "Add tags", "Remove tags"};
+        ComboBox<String> fieldBox = new ComboBox<>(FXCollections.observableArrayList(fields));
+        fieldBox.getSelectionModel().selectFirst();
+        TextField valueField = new TextField();
+        valueField.setPromptText("New value");
+
+        Button btnApply = new Button("Apply");
+        Label lblError = new Label();
+        lblError.setStyle("-fx-text-fill: red;");
+
+        btnApply.setOnAction(e -> {
+            String field = fieldBox.getValue();
+            String value = valueField.getText().trim();
+            if (value.isEmpty() && !field.equals("Folder")) {
+                lblError.setText("Please enter a value.");
+                return;
+            }
+
+            List<String> valueTags = List.of();
+            if (field.endsWith("tags")) {
+                try {
+                    valueTags = TagIndex.parseTags(value);
+                } catch (IllegalArgumentException ex) {
+                    lblError.setText(ex.getMessage());
+                    return;
+                }
+            }
+
+            String replicaId = SyncIdentity.get().getReplicaId();
+            List<PasswordEntry> revised = new ArrayList<>(selectedItems.size());
+            for (PasswordEntry entry : selectedItems) {
+                PasswordEntry updated = field.equals("Username")
+                        ? entry.revise(entry.getService(), value, entry.getPassword())
+                        : entry.revise(entry.getService(), entry.getUsername(), entry.getPassword());
+                if (field.equals("Folder")) {
+                    updated.setFolder(TagIndex.normalizeFolder(value));
+                } else if (field.equals("Add tags")) {
+                    List<String> tags = new ArrayList<>(entry.getTags());
+                    for (String tag : valueTags) {
+                        if (!tags.contains(tag)) tags.add(tag);
+                    }
+                    updated.setTags(tags);
+                } else if (field.equals("Remove tags")) {
+                    List<String> tags = new ArrayList<>(entry.getTags());
+                    tags.removeAll(valueTags);
+                    updated.setTags(tags);
+                }
+                updated.stamp(replicaId);
+                revised.add(updated);
+            }
+            applyBulkEdit(selectedItems, revised, field.toLowerCase(Locale.ROOT));
+            dialog.close();
+        });
+
+        Button btnCancel = new Button("Cancel");
+        btnCancel.setOnAction(e -> dialog.close());
+
+        HBox buttons = new HBox(10, btnApply, btnCancel);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+
+        VBox layout = new VBox(10, new Label("Field:"), fieldBox, new Label("Value:"), valueField, lblError, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 320, 260));
+        dialog.showAndWait();
+    }
+
+    @FXML
+    // Generates a new password for every selected entry, each with the entry's own policy
+    protected void onRegenerateSelectedClick() {
+        List<PasswordEntry> selectedItems = new ArrayList<>(passwordTable.getSelectionModel().getSelectedItems());
+        if (selectedItems.isEmpty()) {
+            statusMessage.setText("No entry selected.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        if (!confirm("Generate new passwords for the " + selectedItems.size() + " selected entries?\n"
+                + "The current passwords stay in the history of each entry.")) {
+            return;
+        }
+
+        // One sampler per distinct policy: the counting tables are built once, not per entry
+        Map<String, PolicySampler> samplers = new HashMap<>();
+        String replicaId = SyncIdentity.get().getReplicaId();
+        List<PasswordEntry> revised = new ArrayList<>(selectedItems.size());
+        for (PasswordEntry entry : selectedItems) {
+            PolicySampler sampler = samplers.computeIfAbsent(entry.getPolicy(), policy -> new PolicySampler(
+                    policy.isEmpty() ? new PasswordPolicy() : PasswordPolicy.decode(policy)));
+            PasswordEntry updated = entry.revise(entry.getService(), entry.getUsername(), sampler.next());
+            updated.stamp(replicaId);
+            revised.add(updated);
+        }
+        applyBulkEdit(selectedItems, revised, "password");
+    }
+
+    // Puts revised entries (revised.get(i) made from bases.get(i)) into the vault as one commit (one list
+    // change) and saves once. Entries changed or deleted in the meantime (e.g. by a merge) are skipped,
+    // so the bulk edit neither overwrites that change nor brings a deleted entry back.
+    private void applyBulkEdit(List<PasswordEntry> bases, List<PasswordEntry> revised, String fieldName) {
+        List<PasswordEntry> applied = vault.getVault().batch(batch -> {
+            List<PasswordEntry> done = new ArrayList<>();
+            for (int i = 0; i < revised.size(); i++) {
+                if (batch.get(bases.get(i).getId()) == bases.get(i)) {
+                    batch.put(revised.get(i));
+                    done.add(revised.get(i));
+                }
+            }
+            return done;
+        });
+        for (PasswordEntry entry : applied) {
+            audit(AuditLog.Action.EDIT, entry);
+        }
+        saveEntries();
+        int replaced = applied.size();
+        int skipped = revised.size() - replaced;
+        String message = "Updated the " + fieldName + " of " + replaced + (replaced == 1 ? " entry." : " entries.");
+        if (skipped > 0) {
+            statusMessage.setText(message + " " + skipped + (skipped == 1 ? " entry was" : " entries were")
+                    + " changed elsewhere in the meantime and skipped.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+        } else {
+            statusMessage.setText(message);
+            statusMessage.setStyle("-fx-text-fill: green;");
         }
     }
 
+    // Puts revised in place of base as one commit, unless the entry was changed or deleted since base was
+    // read. The check runs inside the commit: the table shows the FX mirror, which can lag behind a merge
+    // or an edit in another window, so checking there would let this edit overwrite that change.
+    private boolean replaceIfUnchanged(PasswordEntry base, PasswordEntry revised) {
+        return vault.getVault().batch(batch -> {
+            if (batch.get(base.getId()) != base) {
+                return false;
+            }
+            batch.put(revised);
+            return true;
+        });
+    }
+
+    private void reportEditConflict() {
+        statusMessage.setText("The entry was changed elsewhere in the meantime. Check it and try again.");
+        statusMessage.setStyle("-fx-text-fill: red;");
+    }
+
+    private boolean confirm(String question) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, question);
+        alert.setHeaderText(null);
+        applyWindowIcon((Stage) alert.getDialogPane().getScene().getWindow());
+        return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+    }
+
     @FXML
     // Update the currently selected entry with the values from the input fields
     protected void onEditEntryClick() {
+        if (passwordTable.getSelectionModel().getSelectedItems().size() > 1) {
+            onBulkEditClick();
+            return;
+        }
         PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
 
         if (selectedItem == null) {
@@ -161,14 +512,45 @@ public class PasswordManagerController {
             statusMessage.setStyle("-fx-text-fill: red;");
             return;
         }
+        String totp = totpField.getText().trim();
+        if (!totp.isEmpty() && !TotpEngine.isValidSecret(totp)) {
+            statusMessage.setText("The 2FA secret is not valid Base32.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        List<String> tags;
+        try {
+            tags = TagIndex.parseTags(tagsField.getText());
+        } catch (IllegalArgumentException e) {
+            statusMessage.setText(e.getMessage());
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
 
-        int index = passwordData.indexOf(selectedItem);
-        if (index >= 0) {
-            passwordData.set(index, new PasswordEntry(service, user, pass));
-            statusMessage.setText("Updated entry.");
-            statusMessage.setStyle("-fx-text-fill: green;");
-            saveEntries();
+        PasswordEntry revised = selectedItem.revise(service, user, pass);
+        revised.setTotpSecret(totp);
+        revised.setUrls(parseUrls(urlsField.getText()));
+        revised.setTags(tags);
+        revised.setFolder(TagIndex.normalizeFolder(folderField.getText()));
+        revised.stamp(SyncIdentity.get().getReplicaId());
+        if (!replaceIfUnchanged(selectedItem, revised)) {
+            reportEditConflict();
+            return;
+        }
+        recordUse(revised, UsageStats.Use.EDIT);
+        audit(AuditLog.Action.EDIT, revised);
+        statusMessage.setText("Updated entry.");
+        statusMessage.setStyle("-fx-text-fill: green;");
+        saveEntries();
+    }
+
+    // Website addresses typed into the URL field (separated by spaces or commas)
+    private static List<String> parseUrls(String text) {
+        List<String> urls = new ArrayList<>();
+        for (String url : text.trim().split("[\\s,]+")) {
+            if (!url.isEmpty()) urls.add(url);
         }
+        return urls;
     }
 
     @FXML
@@ -182,15 +564,288 @@ public class PasswordManagerController {
             ClipboardContent content = new ClipboardContent();
             content.putString(selectedItem.getPassword());
             clipboard.setContent(content);
+            recordUse(selectedItem, UsageStats.Use.COPY);
+            audit(AuditLog.Action.COPY_PASSWORD, selectedItem);
 
             statusMessage.setText("Password has been copied to your clipboard!");
             statusMessage.setStyle("-fx-text-fill: green;");
         }
     }
 
+    @FXML
+    // Switches grouping of the table between none, service and domain
+    protected void onGroupByChange() {
+        if (groupByServiceMenuItem.isSelected()) {
+            groupBy = EntrySortKeys.Field.SERVICE;
+        } else if (groupByDomainMenuItem.isSelected()) {
+            groupBy = EntrySortKeys.Field.DOMAIN;
+        } else if (groupByFolderMenuItem.isSelected()) {
+            groupBy = EntrySortKeys.Field.FOLDER;
+        } else {
+            groupBy = null;
+        }
+        colGroup.setText(groupBy == EntrySortKeys.Field.DOMAIN ? "Domain"
+                : groupBy == EntrySortKeys.Field.FOLDER ? "Folder" : "Service");
+        colGroup.setVisible(groupBy != null);
+        refreshView();
+    }
+
+    // Parses the tag filter on every keystroke; an incomplete filter keeps the last valid one active
+    private void onTagFilterChange(String text) {
+        if (text.isBlank()) {
+            tagQuery = null;
+            tagFilterField.setStyle("");
+            tagFilterField.setTooltip(null);
+            refreshView();
+            return;
+        }
+        try {
+            tagQuery = TagIndex.Query.parse(text);
+            tagFilterField.setStyle("");
+            tagFilterField.setTooltip(null);
+            refreshView();
+        } catch (IllegalArgumentException e) {
+            tagFilterField.setStyle("-fx-text-fill: red;");
+            tagFilterField.setTooltip(new Tooltip(e.getMessage()));
+        }
+    }
+
+    // Re-sorts passwordData (or the search results, best match first) in the background
+    // and replaces the table content with one list change. With a tag filter, the rows come from
+    // the tag bitmaps instead of a scan over passwordData.
+    private void refreshView() {
+        String query = searchField.getText().trim();
+        TagIndex.Query filter = tagQuery;
+        List<PasswordEntry> snapshot = query.isEmpty() && filter == null ? new ArrayList<>(passwordData) : null;
+        List<EntrySortKeys.SortSpec> order = new ArrayList<>();
+        if (groupBy != null) {
+            order.add(new EntrySortKeys.SortSpec(groupBy, false));
+        }
+        for (TableColumn<PasswordEntry, ?> column : passwordTable.getSortOrder()) {
+            EntrySortKeys.Field field = sortFieldOf(column);
+            if (field != null) {
+                order.add(new EntrySortKeys.SortSpec(field, column.getSortType() == TableColumn.SortType.DESCENDING));
+            }
+        }
+        // Without a sorted column the most frecent entries come first (search results keep their ranking)
+        if (query.isEmpty() && passwordTable.getSortOrder().isEmpty()) {
+            order.add(new EntrySortKeys.SortSpec(EntrySortKeys.Field.FRECENCY, true));
+        }
+
+        long generation = ++viewGeneration;
+        viewExecutor.execute(() -> {
+            // The indexes are up to date here: their updates were queued on this thread before this task
+            List<PasswordEntry> rows;
+            if (filter == null) {
+                rows = snapshot != null ? snapshot : searchIndex.search(query, SEARCH_LIMIT);
+            } else {
+                TagIndex.Bitmap matching = tagIndex.evaluate(filter);
+                rows = query.isEmpty() ? tagIndex.entries(matching)
+                        : searchIndex.search(query, SEARCH_LIMIT, entry -> tagIndex.matches(matching, entry));
+            }
+            List<PasswordEntry> sorted = sortKeys.sort(rows, order);
+            Platform.runLater(() -> {
+                if (generation == viewGeneration) {
+                    applyView(sorted);
+                }
+            });
+        });
+    }
+
+    // Hands added and removed entries to the search and tag indexes on the view thread
+    private void updateIndexes(ListChangeListener.Change<? extends PasswordEntry> change) {
+        List<PasswordEntry> added = new ArrayList<>();
+        List<PasswordEntry> removed = new ArrayList<>();
+        while (change.next()) {
+            added.addAll(change.getAddedSubList());
+            removed.addAll(change.getRemoved());
+        }
+        viewExecutor.execute(() -> {
+            removed.forEach(searchIndex::remove);
+            added.forEach(searchIndex::add);
+            tagIndex.update(removed, added);
+        });
+        frecencyCache.update(removed, added, passwordData);
+        updateQuickAccess();
+    }
+
+    // Records a copy, view or edit of the entry: O(1) score update, quick access follows at once,
+    // the vault is saved with the next change or after USAGE_SAVE_DELAY
+    private void recordUse(PasswordEntry entry, UsageStats.Use use) {
+        entry.getUsage().record(use, System.currentTimeMillis());
+        frecencyCache.used(entry);
+        updateQuickAccess();
+        if (usageSave.getStatus() != Animation.Status.RUNNING) {
+            usageSave.playFromStart();
+        }
+    }
+
+    // One button per cached entry, most frecent first; a click selects the entry in the table
+    private void updateQuickAccess() {
+        List<PasswordEntry> top = frecencyCache.entries();
+        quickAccessBox.getChildren().clear();
+        quickAccessBox.setVisible(!top.isEmpty());
+        quickAccessBox.setManaged(!top.isEmpty());
+        if (top.isEmpty()) {
+            return;
+        }
+        quickAccessBox.getChildren().add(new Label("Quick access:"));
+        for (PasswordEntry entry : top) {
+            Button button = new Button(entry.getService());
+            button.setTooltip(new Tooltip(entry.getUsername()));
+            button.setOnAction(e -> selectInTable(Collections.singleton(entry.getId())));
+            quickAccessBox.getChildren().add(button);
+        }
+    }
+
+    // Clears search and tag filter so all the entries are visible, and selects them with the next view
+    private void selectInTable(Set<String> ids) {
+        pendingSelectionIds = ids;
+        searchField.clear();
+        tagFilterField.clear();
+        refreshView();
+    }
+
+    // Swaps in the new view and keeps the selected entries selected (also if they were replaced by an edit).
+    // The entry shown in the form is selected last, so it stays the current one.
+    private void applyView(List<PasswordEntry> sorted) {
+        PasswordEntry current = passwordTable.getSelectionModel().getSelectedItem();
+        Set<String> selectedIds = new HashSet<>();
+        for (PasswordEntry entry : passwordTable.getSelectionModel().getSelectedItems()) {
+            selectedIds.add(entry.getId());
+        }
+        if (pendingSelectionIds != null) {
+            selectedIds = pendingSelectionIds;
+            pendingSelectionIds = null;
+            current = null;
+            passwordTable.getSelectionModel().clearSelection();
+        }
+        viewData.setAll(sorted);
+
+        if (selectedIds.isEmpty()) {
+            return;
+        }
+        int currentIndex = -1;
+        for (int i = 0; i < sorted.size(); i++) {
+            String id = sorted.get(i).getId();
+            if (current != null && id.equals(current.getId())) {
+                currentIndex = i;
+            } else if (selectedIds.contains(id)) {
+                passwordTable.getSelectionModel().select(i);
+            }
+        }
+        if (currentIndex >= 0) {
+            passwordTable.getSelectionModel().select(currentIndex);
+        } else if (current == null && !passwordTable.getSelectionModel().isEmpty()) {
+            passwordTable.scrollTo(passwordTable.getSelectionModel().getSelectedIndices().get(0));
+        }
+    }
+
+    private EntrySortKeys.Field sortFieldOf(TableColumn<PasswordEntry, ?> column) {
+        if (column == colService) return EntrySortKeys.Field.SERVICE;
+        if (column == colUsername) return EntrySortKeys.Field.USERNAME;
+        if (column == colPassword) return EntrySortKeys.Field.PASSWORD;
+        if (column == colGroup) return groupBy;
+        return null;
+    }
+
+    private String groupLabel(PasswordEntry entry) {
+        if (groupBy == EntrySortKeys.Field.FOLDER) {
+            return entry.getFolder().isEmpty() ? "(no folder)" : entry.getFolder();
+        }
+        return groupBy == EntrySortKeys.Field.DOMAIN ? DomainIndex.siteOf(entry) : entry.getService();
+    }
+
+    // Single background thread for sorting; it goes away when the window has been idle for a while
+    private static ExecutorService newViewExecutor() {
+        return newSerialExecutor("table-view");
+    }
+
+    // One daemon thread that runs the tasks in order and stops after 30 idle seconds
+    private static ExecutorService newSerialExecutor(String threadName) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @FXML
+    // Copies the current 2FA code of the selected entry to the system clipboard
+    protected void onCopyTotpClick() {
+        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+
+        if (selectedItem == null || selectedItem.getTotpSecret().isEmpty()) {
+            statusMessage.setText("The selected entry has no 2FA secret.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
+        ClipboardContent content = new ClipboardContent();
+        content.putString(totpEngine.code(selectedItem.getTotpSecret()));
+        Clipboard.getSystemClipboard().setContent(content);
+        recordUse(selectedItem, UsageStats.Use.COPY);
+        audit(AuditLog.Action.COPY_TOTP, selectedItem);
+
+        long secondsLeft = TotpEngine.millisUntilNextStep(System.currentTimeMillis()) / 1000;
+        statusMessage.setText("2FA code copied (valid for " + secondsLeft + " more seconds).");
+        statusMessage.setStyle("-fx-text-fill: green;");
+    }
+
+    // Table cell showing the current 2FA code of its row
+    private class TotpCell extends TableCell<PasswordEntry, String> {
+        @Override
+        protected void updateItem(String secret, boolean empty) {
+            super.updateItem(secret, empty);
+            if (empty || secret == null || secret.isEmpty()) {
+                totpCells.remove(this);
+                setText(null);
+            } else {
+                totpCells.add(this);
+                showCode();
+            }
+        }
+
+        void showCode() {
+            String secret = getItem();
+            if (secret == null || secret.isEmpty()) {
+                return;
+            }
+            try {
+                String code = totpEngine.code(secret);
+                setText(code.substring(0, 3) + " " + code.substring(3));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                setText("invalid");
+            }
+        }
+    }
+
+    // One tick per 30 second window: re-render only the 2FA cells that currently exist (= visible rows)
+    private void scheduleTotpTick() {
+        PauseTransition tick = new PauseTransition(
+                Duration.millis(TotpEngine.millisUntilNextStep(System.currentTimeMillis()) + 50));
+        tick.setOnFinished(e -> {
+            if (passwordTable.getScene() != null && passwordTable.getScene().getWindow() != null
+                    && !passwordTable.getScene().getWindow().isShowing()) {
+                totpEngine.clear();
+                return; // window closed, stop ticking
+            }
+            for (TotpCell cell : new ArrayList<>(totpCells)) {
+                cell.showCode();
+            }
+            scheduleTotpTick();
+        });
+        tick.play();
+    }
+
     @FXML
     // Closes the Password Manager window
     protected void onCloseClick() {
+        if (usageSave.getStatus() == Animation.Status.RUNNING) {
+            saveEntries();
+        }
         // Get the current stage (window) and close it
         Stage stage = (Stage) passwordTable.getScene().getWindow();
         applyWindowIcon(stage);
@@ -266,9 +921,14 @@ public class PasswordManagerController {
                     return;
                 }
 
+                // The vault file first: if it cannot be written, nothing else has changed yet
+                AttachmentStore attachments = ChunkStore.exists(ATTACHMENT_DIR) ? attachmentStore() : null;
+                vault.changeMasterPassword(newPw);
+                if (attachments != null) {
+                    attachments.changeMasterPassword(newPw);
+                }
                 authManager.setMasterPassword(newPw);
-                this.masterPassword = newPw;
-                saveEntries();
+                clearSyncKeys();
 
                 statusMessage.setText("Master-Password has been successfully updated.");
                 statusMessage.setStyle("-fx-text-fill: green;");
@@ -297,190 +957,1095 @@ public class PasswordManagerController {
     }
 
     @FXML
-    // Pre-fills the password field with a password generated in the main window
-    public void setGeneratedPassword(String password) {
-        this.passwordField.setText(password);
-        if (showPasswordCheckBox != null && showPasswordCheckBox.isSelected()) {
-            this.passwordVisibleField.setText(password);
-        }
-    }
-
-    @FXML
-    protected void onShowPasswordToggle() {
-        if (showPasswordCheckBox.isSelected()) {
-            // Show password as plain text
-            passwordVisibleField.setText(passwordField.getText());
-            passwordVisibleField.setVisible(true);
-            passwordVisibleField.setManaged(true);
-            passwordField.setVisible(false);
-            passwordField.setManaged(false);
-        } else {
-            // Hide password again
-            passwordField.setText(passwordVisibleField.getText());
-            passwordField.setVisible(true);
-            passwordField.setManaged(true);
-            passwordVisibleField.setVisible(false);
-            passwordVisibleField.setManaged(false);
-        }
-    }
-
-    @FXML
-    // Toggles whether the password column in the table shows real passwords or ******
-    protected void onToggleShowPasswordsInTable() {
-        if (showPasswordsInTableMenuItem != null) {
-            showPasswordsInTable = showPasswordsInTableMenuItem.isSelected();
-            // Force table to redraw cells with the new masking state
-            passwordTable.refresh();
-        }
-    }
-
-    // Receives the master password from MainController and loads existing entries
-    public void setMasterPassword(String masterPassword) {
-        this.masterPassword = masterPassword;
-        loadEntries();
-    }
-
-    // Serializes all entries, encrypts them with the master password, and writes them to disk
-    private void saveEntries() {
-        if (masterPassword == null || masterPassword.isEmpty()) {
+    // Shows the previous versions of the selected entry and lets the user restore one of them
+    protected void onShowHistoryClick() {
+        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+        if (selectedItem == null) {
+            statusMessage.setText("No entry selected.");
+            statusMessage.setStyle("-fx-text-fill: red;");
             return;
         }
 
+        List<EntryHistory.Version> versions;
         try {
-            String json = serializeEntriesToJson();
-            String encrypted = CryptoUtils.encrypt(json, masterPassword);
-
-            Files.createDirectories(DATA_PATH.getParent());
-            Files.writeString(DATA_PATH, encrypted);
-        } catch (Exception e) {
-            statusMessage.setText("Error: Could not save the entries.");
+            versions = EntryHistory.versions(selectedItem);
+        } catch (IllegalStateException e) {
+            statusMessage.setText("The history of this entry could not be read.");
             statusMessage.setStyle("-fx-text-fill: red;");
             e.printStackTrace();
-        }
-    }
-
-    // Reads, decrypts and deserializes all stored entries into the table
-    private void loadEntries() {
-        if (masterPassword == null || masterPassword.isEmpty()) {
             return;
         }
 
-        try {
-            if (!Files.exists(DATA_PATH)) {
-                return;
-            }
+        Stage dialog = new Stage();
+        dialog.setTitle("History of " + selectedItem.getService());
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
 
-            String encrypted = Files.readString(DATA_PATH);
-            if (encrypted == null || encrypted.isEmpty()) {
-                return;
-            }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+        ListView<EntryHistory.Version> versionList = new ListView<>(FXCollections.observableArrayList(versions));
+        versionList.setCellFactory(list -> new ListCell<EntryHistory.Version>() {
+            @Override
+            protected void updateItem(EntryHistory.Version item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(formatter.format(Instant.ofEpochMilli(item.getReplacedAt())) + "  |  "
+                            + item.getService() + "  |  " + item.getUsername() + "  |  "
+                            + (showPasswordsInTable ? item.getPassword() : "******"));
+                }
+            }
+        });
+        versionList.setPlaceholder(new Label("No previous versions."));
+
+        Button btnRestore = new Button("Restore");
+        btnRestore.disableProperty().bind(versionList.getSelectionModel().selectedItemProperty().isNull());
+        btnRestore.setOnAction(e -> {
+            EntryHistory.Version version = versionList.getSelectionModel().getSelectedItem();
+            if (version == null) {
+                return;
+            }
+
+            // Restoring is an edit as well, so the current state goes into the history
+            PasswordEntry restored = selectedItem.revise(version.getService(), version.getUsername(), version.getPassword());
+            restored.stamp(SyncIdentity.get().getReplicaId());
+            if (!replaceIfUnchanged(selectedItem, restored)) {
+                reportEditConflict();
+                dialog.close();
+                return;
+            }
+            audit(AuditLog.Action.RESTORE, restored);
+            saveEntries();
+
+            statusMessage.setText("Restored version from " + formatter.format(Instant.ofEpochMilli(version.getReplacedAt())) + ".");
+            statusMessage.setStyle("-fx-text-fill: green;");
+            dialog.close();
+        });
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+
+        HBox buttons = new HBox(10, btnRestore, btnClose);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+
+        VBox layout = new VBox(10, new Label("Previous versions (newest first):"), versionList, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 480, 320));
+        dialog.showAndWait();
+    }
+
+    @FXML
+    // Lists the vault snapshots in backups/ and restores the whole vault to one of them
+    protected void onRestoreBackupClick() {
+        if (vault == null) {
+            return;
+        }
+
+        Stage dialog = new Stage();
+        dialog.setTitle("Restore from Backup");
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+        ListView<BackupStore.Snapshot> snapshotList = new ListView<>();
+        snapshotList.setCellFactory(list -> new ListCell<BackupStore.Snapshot>() {
+            @Override
+            protected void updateItem(BackupStore.Snapshot item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(formatter.format(Instant.ofEpochMilli(item.getTime())) + "  |  "
+                            + item.getEntryCount() + " entries  |  " + formatSize(item.getSize()));
+                }
+            }
+        });
+        snapshotList.setPlaceholder(new Label("Loading..."));
+
+        Label lblSummary = new Label();
+        Label lblDetails = new Label("Select a snapshot to compare it with the current entries.");
+        lblDetails.setWrapText(true);
+
+        // Opening the store and decrypting the manifests happens off the FX thread
+        runInBackground("backup-list", () -> {
+            BackupStore store = vault.getBackupStore();
+            List<BackupStore.Snapshot> snapshots = store.list();
+            long stored = store.storedBytes();
+            Platform.runLater(() -> {
+                snapshotList.getItems().setAll(snapshots);
+                snapshotList.setPlaceholder(new Label("No snapshots yet. One is written shortly after the vault changes."));
+                lblSummary.setText(snapshots.size() + " snapshots, " + formatSize(stored) + " on disk.");
+            });
+        }, lblDetails);
+
+        // Snapshot content of the selection, parsed in the background; null while loading
+        AtomicReference<List<PasswordEntry>> selectedContent = new AtomicReference<>();
+        snapshotList.getSelectionModel().selectedItemProperty().addListener((obs, oldSnapshot, snapshot) -> {
+            selectedContent.set(null);
+            if (snapshot == null) {
+                return;
+            }
+            lblDetails.setText("Reading snapshot...");
+            lblDetails.setStyle("");
+            List<PasswordEntry> current = new ArrayList<>(passwordData);
+            runInBackground("backup-read", () -> {
+                List<PasswordEntry> content = VaultJson.parse(vault.getBackupStore().read(snapshot), new HashMap<>());
+                String comparison = describeDifference(current, content);
+                Platform.runLater(() -> {
+                    if (snapshotList.getSelectionModel().getSelectedItem() == snapshot) {
+                        selectedContent.set(content);
+                        lblDetails.setText(comparison);
+                    }
+                });
+            }, lblDetails);
+        });
 
-            String json = CryptoUtils.decrypt(encrypted, masterPassword);
-            List<PasswordEntry> entries = parseEntriesFromJson(json);
+        Button btnVerify = new Button("Verify");
+        btnVerify.disableProperty().bind(snapshotList.getSelectionModel().selectedItemProperty().isNull());
+        btnVerify.setOnAction(e -> {
+            BackupStore.Snapshot snapshot = snapshotList.getSelectionModel().getSelectedItem();
+            lblDetails.setText("Verifying...");
+            runInBackground("backup-verify", () -> {
+                String problem = vault.getBackupStore().verify(snapshot);
+                Platform.runLater(() -> {
+                    lblDetails.setText(problem == null ? "The snapshot is intact." : "The snapshot is damaged: " + problem);
+                    lblDetails.setStyle(problem == null ? "-fx-text-fill: green;" : "-fx-text-fill: red;");
+                });
+            }, lblDetails);
+        });
+
+        Button btnRestore = new Button("Restore");
+        btnRestore.disableProperty().bind(snapshotList.getSelectionModel().selectedItemProperty().isNull());
+        btnRestore.setOnAction(e -> {
+            BackupStore.Snapshot snapshot = snapshotList.getSelectionModel().getSelectedItem();
+            List<PasswordEntry> content = selectedContent.get();
+            if (snapshot == null || content == null) {
+                return;
+            }
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                    "Replace all entries with the snapshot from " + formatter.format(Instant.ofEpochMilli(snapshot.getTime()))
+                            + "?\nThe current state stays available as a snapshot.");
+            confirm.setHeaderText(null);
+            applyWindowIcon((Stage) confirm.getDialogPane().getScene().getWindow());
+            if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+                return;
+            }
+
+            // The snapshot of the current state is written before anything changes; the scheduled
+            // backups only keep the newest state of a burst of saves and would skip it
+            lblDetails.setText("Saving the current state as a snapshot...");
+            lblDetails.setStyle("");
+            runInBackground("backup-before-restore", () -> {
+                vault.backupNow();
+                Platform.runLater(() -> {
+                    int changes = vault.getVault().restore(content, SyncIdentity.get().getReplicaId());
+                    audit(AuditLog.Action.RESTORE, null);
+                    saveEntries();
+
+                    statusMessage.setText("Restored the snapshot from " + formatter.format(Instant.ofEpochMilli(snapshot.getTime()))
+                            + " (" + changes + " entries changed).");
+                    statusMessage.setStyle("-fx-text-fill: green;");
+                    dialog.close();
+                });
+            }, lblDetails);
+        });
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+
+        HBox buttons = new HBox(10, btnVerify, btnRestore, btnClose);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+
+        VBox layout = new VBox(10, new Label("Snapshots (newest first):"), snapshotList, lblSummary, lblDetails, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 520, 420));
+        dialog.showAndWait();
+    }
+
+    // "3 entries added, 1 removed, 5 changed" between the current entries and a snapshot
+    private static String describeDifference(List<PasswordEntry> current, List<PasswordEntry> snapshot) {
+        Map<String, PasswordEntry> byId = new HashMap<>();
+        for (PasswordEntry entry : current) {
+            byId.put(entry.getId(), entry);
+        }
+        int changed = 0;
+        int restored = 0;
+        for (PasswordEntry entry : snapshot) {
+            PasswordEntry now = byId.remove(entry.getId());
+            if (now == null) {
+                restored++;
+            } else if (now.getVersion() != entry.getVersion()) {
+                changed++;
+            }
+        }
+        if (restored == 0 && changed == 0 && byId.isEmpty()) {
+            return "The snapshot matches the current entries.";
+        }
+        return "Restoring brings back " + restored + " deleted entries, removes " + byId.size()
+                + " newer entries and resets " + changed + " changed entries.";
+    }
+
+    @FXML
+    // Edits the generation rules of the selected entry (what the site accepts) and generates passwords with them
+    protected void onPasswordPolicyClick() {
+        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+        if (selectedItem == null) {
+            statusMessage.setText("No entry selected.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+        PasswordPolicy policy = selectedItem.getPolicy().isEmpty()
+                ? new PasswordPolicy() : PasswordPolicy.decode(selectedItem.getPolicy());
+
+        Stage dialog = new Stage();
+        dialog.setTitle("Password Policy for " + selectedItem.getService());
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        javafx.scene.layout.GridPane grid = new javafx.scene.layout.GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+
+        Spinner<Integer> lengthSpinner = new Spinner<>(1, PasswordPolicy.MAX_LENGTH, policy.getLength());
+        lengthSpinner.setEditable(true);
+        grid.addRow(0, new Label("Length"), lengthSpinner);
+        grid.addRow(1, new Label(""), new Label("min"), new Label("max"));
+
+        String[] classNames = {"Uppercase", "Lowercase", "Digits", "Symbols"};
+        PasswordPolicy.CharClass[] classes = PasswordPolicy.CharClass.values();
+        List<Spinner<Integer>> minSpinners = new ArrayList<>();
+        List<Spinner<Integer>> maxSpinners = new ArrayList<>();
+        for (PasswordPolicy.CharClass c : classes) {
+            Spinner<Integer> min = new Spinner<>(0, PasswordPolicy.MAX_LENGTH, policy.getMin(c));
+            Spinner<Integer> max = new Spinner<>(0, PasswordPolicy.MAX_LENGTH, policy.getMax(c));
+            min.setEditable(true);
+            max.setEditable(true);
+            min.setPrefWidth(80);
+            max.setPrefWidth(80);
+            minSpinners.add(min);
+            maxSpinners.add(max);
+            grid.addRow(2 + c.ordinal(), new Label(classNames[c.ordinal()]), min, max);
+        }
 
-            passwordData.clear();
-            passwordData.addAll(entries);
+        TextField symbolsInput = new TextField(policy.getSymbols());
+        TextField excludedInput = new TextField(policy.getExcluded());
+        excludedInput.setPromptText("e.g. <>");
+        CheckBox ambiguousCheckBox = new CheckBox("No ambiguous characters (" + PasswordPolicy.AMBIGUOUS + ")");
+        ambiguousCheckBox.setSelected(policy.isExcludeAmbiguous());
+        Spinner<Integer> repeatSpinner = new Spinner<>(0, PasswordPolicy.MAX_LENGTH, policy.getMaxOccurrences());
+        repeatSpinner.setEditable(true);
+        grid.addRow(6, new Label("Symbol set"), symbolsInput);
+        grid.addRow(7, new Label("Excluded"), excludedInput);
+        grid.addRow(8, new Label("Max uses per char"), repeatSpinner, new Label("0 = no limit"));
+        grid.add(ambiguousCheckBox, 0, 9, 3, 1);
+
+        Label infoLabel = new Label();
+
+        // Reads the inputs into a policy and shows how strong passwords under it are (null if infeasible)
+        java.util.function.Supplier<PolicySampler> readPolicy = () -> {
+            try {
+                policy.setLength(lengthSpinner.getValue());
+                for (PasswordPolicy.CharClass c : classes) {
+                    policy.setRange(c, minSpinners.get(c.ordinal()).getValue(), maxSpinners.get(c.ordinal()).getValue());
+                }
+                policy.setSymbols(symbolsInput.getText());
+                policy.setExcluded(excludedInput.getText());
+                policy.setExcludeAmbiguous(ambiguousCheckBox.isSelected());
+                policy.setMaxOccurrences(repeatSpinner.getValue());
+                PolicySampler sampler = new PolicySampler(policy);
+                infoLabel.setText(String.format("Entropy: %.1f bits", sampler.entropyBits()));
+                infoLabel.setStyle("-fx-text-fill: green;");
+                return sampler;
+            } catch (IllegalArgumentException e) {
+                infoLabel.setText(e.getMessage());
+                infoLabel.setStyle("-fx-text-fill: red;");
+                return null;
+            }
+        };
+        List<javafx.beans.value.ObservableValue<?>> inputs = new ArrayList<>(Arrays.asList(
+                lengthSpinner.valueProperty(), repeatSpinner.valueProperty(), symbolsInput.textProperty(),
+                excludedInput.textProperty(), ambiguousCheckBox.selectedProperty()));
+        minSpinners.forEach(spinner -> inputs.add(spinner.valueProperty()));
+        maxSpinners.forEach(spinner -> inputs.add(spinner.valueProperty()));
+        inputs.forEach(input -> input.addListener((obs, oldValue, newValue) -> readPolicy.get()));
+        readPolicy.get();
+
+        Button btnGenerate = new Button("Generate Password");
+        btnGenerate.setOnAction(e -> {
+            PolicySampler sampler = readPolicy.get();
+            if (sampler != null) {
+                setGeneratedPassword(sampler.next());
+                statusMessage.setText("Generated a password; click \"Edit Entry\" to keep it.");
+                statusMessage.setStyle("-fx-text-fill: green;");
+            }
+        });
+
+        Button btnSave = new Button("Save Policy");
+        btnSave.setOnAction(e -> {
+            if (readPolicy.get() == null) {
+                return;
+            }
+            PasswordEntry revised = selectedItem.revise(selectedItem.getService(), selectedItem.getUsername(), selectedItem.getPassword());
+            revised.setPolicy(policy.encode());
+            revised.stamp(SyncIdentity.get().getReplicaId());
+            if (!replaceIfUnchanged(selectedItem, revised)) {
+                reportEditConflict();
+                dialog.close();
+                return;
+            }
+            audit(AuditLog.Action.EDIT, revised);
+            saveEntries();
+            statusMessage.setText("Saved the password policy.");
+            statusMessage.setStyle("-fx-text-fill: green;");
+            dialog.close();
+        });
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+
+        HBox buttons = new HBox(10, btnGenerate, btnSave, btnClose);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+
+        VBox layout = new VBox(10, grid, infoLabel, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 440, 440));
+        dialog.showAndWait();
+    }
+
+    // Adds an event to the audit log (buffered in memory, written in batches by the log's own thread)
+    private void audit(AuditLog.Action action, PasswordEntry entry) {
+        if (vault != null) {
+            vault.getAuditLog().record(action, entry);
+        }
+    }
+
+    @FXML
+    // Shows the audit log of the selected entry (or of the whole vault if nothing is selected)
+    protected void onAuditLogClick() {
+        if (vault == null) {
+            return;
+        }
+        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+        AuditLog auditLog = vault.getAuditLog();
+
+        Stage dialog = new Stage();
+        dialog.setTitle(selectedItem == null ? "Audit Log" : "Audit Log of " + selectedItem.getService());
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        String[] rangeNames = {"Last 24 hours", "Last 7 days", "Last 30 days", "All"};
+        long[] rangeMillis = {TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(30), Long.MAX_VALUE};
+        ComboBox<String> rangeBox = new ComboBox<>(FXCollections.observableArrayList(rangeNames));
+        rangeBox.getSelectionModel().select(1);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+        ListView<AuditLog.Event> eventList = new ListView<>();
+        eventList.setCellFactory(list -> new ListCell<AuditLog.Event>() {
+            @Override
+            protected void updateItem(AuditLog.Event item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(formatter.format(Instant.ofEpochMilli(item.getTime())) + "  |  " + item.getAction()
+                            + (item.getService().isEmpty() ? "" : "  |  " + item.getService()));
+                }
+            }
+        });
+        eventList.setPlaceholder(new Label("No events in this time range."));
+
+        Label chainLabel = new Label();
+
+        // Decrypting the segments and checking the chain happens off the FX thread
+        Runnable reload = () -> {
+            long range = rangeMillis[rangeBox.getSelectionModel().getSelectedIndex()];
+            long now = System.currentTimeMillis();
+            long from = range == Long.MAX_VALUE ? 0 : now - range;
+            String entryId = selectedItem == null ? null : selectedItem.getId();
+            chainLabel.setText("Loading...");
+            chainLabel.setStyle("");
+            runInBackground("audit-query", () -> {
+                List<AuditLog.Event> events = auditLog.query(entryId, from, Long.MAX_VALUE);
+                String problem = auditLog.verify();
+                Collections.reverse(events);
+                Platform.runLater(() -> {
+                    eventList.getItems().setAll(events);
+                    chainLabel.setText(problem == null ? "Log chain verified: no segment was removed or changed."
+                            : "Log chain broken: " + problem);
+                    chainLabel.setStyle(problem == null ? "-fx-text-fill: green;" : "-fx-text-fill: red;");
+                });
+            }, chainLabel);
+        };
+        rangeBox.setOnAction(e -> reload.run());
+        reload.run();
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+
+        HBox top = new HBox(10, new Label("Show:"), rangeBox);
+        top.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        VBox layout = new VBox(10, top, eventList, chainLabel, btnClose);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 520, 380));
+        dialog.showAndWait();
+    }
+
+    @FXML
+    // Lists groups of entries with the same or almost the same password (see NearDuplicateFinder).
+    // The clusters are computed in the background when the dialog opens and dropped when it closes.
+    protected void onFindSimilarClick() {
+        Stage dialog = new Stage();
+        dialog.setTitle("Similar Passwords");
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        ListView<NearDuplicateFinder.Cluster> clusterList = new ListView<>();
+        clusterList.setCellFactory(list -> new ListCell<NearDuplicateFinder.Cluster>() {
+            @Override
+            protected void updateItem(NearDuplicateFinder.Cluster item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    return;
+                }
+                StringBuilder text = new StringBuilder(item.getKind().getDescription())
+                        .append(" (").append(item.getEntries().size()).append(" entries");
+                if (item.getDistinctPasswords() > 1) {
+                    text.append(", ").append(item.getDistinctPasswords()).append(" passwords");
+                }
+                text.append(")");
+                for (PasswordEntry entry : item.getEntries()) {
+                    text.append("\n    ").append(entry.getService());
+                    if (!entry.getUsername().isEmpty()) {
+                        text.append("  |  ").append(entry.getUsername());
+                    }
+                }
+                setText(text.toString());
+            }
+        });
+        clusterList.setPlaceholder(new Label("Checking..."));
+
+        Label summaryLabel = new Label("Checking " + passwordData.size() + " entries...");
+
+        List<PasswordEntry> entries = new ArrayList<>(passwordData);
+        runInBackground("similar-passwords", () -> {
+            long start = System.nanoTime();
+            List<NearDuplicateFinder.Cluster> clusters = NearDuplicateFinder.find(entries);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Platform.runLater(() -> {
+                clusterList.getItems().setAll(clusters);
+                clusterList.setPlaceholder(new Label("No reused or similar passwords found."));
+                int affected = clusters.stream().mapToInt(c -> c.getEntries().size()).sum();
+                summaryLabel.setText(clusters.isEmpty() ? "Checked " + entries.size() + " entries in " + millis + " ms."
+                        : affected + " of " + entries.size() + " entries share a password or a close variant of one"
+                        + " (checked in " + millis + " ms).");
+            });
+        }, summaryLabel);
+
+        // Selects the entries of the cluster in the table (filters cleared, so all of them are visible),
+        // ready for Edit -> Regenerate Selected Passwords
+        Button btnSelect = new Button("Select in Table");
+        btnSelect.disableProperty().bind(clusterList.getSelectionModel().selectedItemProperty().isNull());
+        btnSelect.setOnAction(e -> {
+            Set<String> ids = new HashSet<>();
+            for (PasswordEntry entry : clusterList.getSelectionModel().getSelectedItem().getEntries()) {
+                ids.add(entry.getId());
+            }
+            selectInTable(ids);
+            dialog.close();
+        });
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+        dialog.setOnHidden(e -> clusterList.getItems().clear());
+
+        HBox buttons = new HBox(10, btnSelect, btnClose);
+        VBox layout = new VBox(10, summaryLabel, clusterList, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 520, 440));
+        dialog.showAndWait();
+    }
+
+    @FXML
+    // Lists the files attached to the selected entry and lets the user add, export or remove them
+    protected void onAttachmentsClick() {
+        PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+        if (selectedItem == null) {
+            statusMessage.setText("No entry selected.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
+        AttachmentStore store;
+        try {
+            store = attachmentStore();
         } catch (Exception e) {
-            statusMessage.setText("Failed to load entries.");
+            statusMessage.setText("The attachment store could not be opened.");
             statusMessage.setStyle("-fx-text-fill: red;");
             e.printStackTrace();
+            return;
         }
+
+        Stage dialog = new Stage();
+        dialog.setTitle("Attachments of " + selectedItem.getService());
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        applyWindowIcon(dialog);
+
+        // The entry is replaced on every change, so keep track of the current instance
+        PasswordEntry[] current = {selectedItem};
+
+        ObservableList<AttachmentStore.BlobInfo> attachments = FXCollections.observableArrayList();
+        ListView<AttachmentStore.BlobInfo> attachmentList = new ListView<>(attachments);
+        attachmentList.setCellFactory(list -> new ListCell<AttachmentStore.BlobInfo>() {
+            @Override
+            protected void updateItem(AttachmentStore.BlobInfo item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.getFileName() + "  (" + formatSize(item.getSize()) + ")");
+            }
+        });
+        attachmentList.setPlaceholder(new Label("No attachments."));
+
+        Label lblStatus = new Label();
+
+        Runnable reload = () -> {
+            attachments.clear();
+            for (String blobId : current[0].getAttachmentIds()) {
+                try {
+                    attachments.add(store.info(blobId));
+                } catch (Exception e) {
+                    lblStatus.setText("Attachment " + blobId + " could not be read.");
+                    e.printStackTrace();
+                }
+            }
+        };
+        reload.run();
+
+        Button btnAdd = new Button("Add File...");
+        btnAdd.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Attach file");
+            java.io.File file = chooser.showOpenDialog(dialog);
+            if (file == null) {
+                return;
+            }
+            lblStatus.setText("Encrypting " + file.getName() + "...");
+            runInBackground(ATTACHMENT_EXECUTOR, () -> {
+                String blobId;
+                try (java.io.InputStream in = Files.newInputStream(file.toPath())) {
+                    blobId = store.put(in, file.getName());
+                }
+                Platform.runLater(() -> {
+                    PasswordEntry updated = updateAttachments(current[0].getId(), ids -> ids.add(blobId));
+                    if (updated == null) {
+                        lblStatus.setText("The entry was deleted in the meantime.");
+                        return;
+                    }
+                    current[0] = updated;
+                    reload.run();
+                    lblStatus.setText(file.getName() + " attached.");
+                });
+            }, lblStatus);
+        });
+
+        Button btnSave = new Button("Save As...");
+        btnSave.disableProperty().bind(attachmentList.getSelectionModel().selectedItemProperty().isNull());
+        btnSave.setOnAction(e -> {
+            AttachmentStore.BlobInfo info = attachmentList.getSelectionModel().getSelectedItem();
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Save attachment");
+            chooser.setInitialFileName(info.getFileName());
+            java.io.File file = chooser.showSaveDialog(dialog);
+            if (file == null) {
+                return;
+            }
+            lblStatus.setText("Decrypting " + info.getFileName() + "...");
+            runInBackground("attachment-export", () -> {
+                try (java.io.OutputStream out = Files.newOutputStream(file.toPath())) {
+                    store.get(info.getId(), out);
+                }
+                Platform.runLater(() -> lblStatus.setText("Saved to " + file.getName() + "."));
+            }, lblStatus);
+        });
+
+        Button btnRemove = new Button("Remove");
+        btnRemove.disableProperty().bind(attachmentList.getSelectionModel().selectedItemProperty().isNull());
+        btnRemove.setOnAction(e -> {
+            AttachmentStore.BlobInfo info = attachmentList.getSelectionModel().getSelectedItem();
+            PasswordEntry updated = updateAttachments(current[0].getId(), ids -> ids.remove(info.getId()));
+            if (updated == null) {
+                lblStatus.setText("The entry was deleted in the meantime.");
+                return;
+            }
+            current[0] = updated;
+            reload.run();
+
+            // Drop blobs and chunks that no entry references anymore
+            Set<String> live = new HashSet<>();
+            for (PasswordEntry entry : passwordData) {
+                live.addAll(entry.getAttachmentIds());
+            }
+            runInBackground(ATTACHMENT_EXECUTOR, () -> store.collectGarbage(live), lblStatus);
+            lblStatus.setText(info.getFileName() + " removed.");
+        });
+
+        Button btnClose = new Button("Close");
+        btnClose.setOnAction(e -> dialog.close());
+
+        HBox buttons = new HBox(10, btnAdd, btnSave, btnRemove, btnClose);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+
+        VBox layout = new VBox(10, attachmentList, buttons, lblStatus);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 420, 300));
+        dialog.showAndWait();
     }
 
-    // Converts the current ObservableList to a minimal JSON array
-    private String serializeEntriesToJson() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < passwordData.size(); i++) {
-            PasswordEntry entry = passwordData.get(i);
-            sb.append("{");
-            sb.append("\"service\":\"").append(escapeJson(entry.getService())).append("\",");
-            sb.append("\"username\":\"").append(escapeJson(entry.getUsername())).append("\",");
-            sb.append("\"password\":\"").append(escapeJson(entry.getPassword())).append("\"");
-            sb.append("}");
-            if (i < passwordData.size() - 1) {
-                sb.append(",");
+    // Changes the attachment list of the entry (as a regular, synced change) and returns the new instance,
+    // or null if the entry was deleted. The change is applied to the entry's current state inside the
+    // commit, so an edit made since the dialog opened is kept.
+    private PasswordEntry updateAttachments(String entryId, Consumer<List<String>> change) {
+        String replicaId = SyncIdentity.get().getReplicaId();
+        PasswordEntry updated = vault.getVault().batch(batch -> {
+            PasswordEntry entry = batch.get(entryId);
+            if (entry == null) {
+                return null;
             }
+            List<String> ids = new ArrayList<>(entry.getAttachmentIds());
+            change.accept(ids);
+            PasswordEntry revised = entry.revise(entry.getService(), entry.getUsername(), entry.getPassword());
+            revised.setAttachmentIds(ids);
+            revised.stamp(replicaId);
+            batch.put(revised);
+            return revised;
+        });
+        if (updated != null) {
+            audit(AuditLog.Action.EDIT, updated);
+            saveEntries();
         }
-        sb.append("]");
-        return sb.toString();
+        return updated;
+    }
+
+    private AttachmentStore attachmentStore() throws Exception {
+        if (attachmentStore == null) {
+            attachmentStore = AttachmentStore.open(ATTACHMENT_DIR, vault.getMasterPassword());
+        }
+        return attachmentStore;
+    }
+
+    // Work that must not block the FX thread (file I/O, crypto); errors end up in the given label
+    private interface BackgroundTask {
+        void run() throws Exception;
+    }
+
+    private void runInBackground(String threadName, BackgroundTask task, Label errorLabel) {
+        Thread worker = new Thread(() -> runReportingErrors(task, errorLabel), threadName);
+        worker.setDaemon(true);
+        worker.start();
     }
 
-    // Parses the minimal JSON format back into PasswordEntry objects
-    private List<PasswordEntry> parseEntriesFromJson(String json) {
-        List<PasswordEntry> entries = new ArrayList<>();
-        String trimmed = json.trim();
-        if (trimmed.length() < 2 || trimmed.charAt(0) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
-            return entries;
+    // Same, but queued on an executor (for work that must not overlap with other work on it)
+    private void runInBackground(ExecutorService executor, BackgroundTask task, Label errorLabel) {
+        executor.execute(() -> runReportingErrors(task, errorLabel));
+    }
+
+    private static void runReportingErrors(BackgroundTask task, Label errorLabel) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            Platform.runLater(() -> errorLabel.setText("Error: " + e.getMessage()));
         }
+    }
 
-        String content = trimmed.substring(1, trimmed.length() - 1).trim();
-        if (content.isEmpty()) {
-            return entries;
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    @FXML
+    // Pre-fills the password field with a password generated in the main window
+    public void setGeneratedPassword(String password) {
+        this.passwordField.setText(password);
+        if (showPasswordCheckBox != null && showPasswordCheckBox.isSelected()) {
+            this.passwordVisibleField.setText(password);
         }
+    }
 
-        String[] objects = content.split("(?<=\\}),(?=\\{)");
-        for (String obj : objects) {
-            String o = obj.trim();
-            if (!o.startsWith("{") || !o.endsWith("}")) {
-                continue;
+    @FXML
+    protected void onShowPasswordToggle() {
+        if (showPasswordCheckBox.isSelected()) {
+            // Show password as plain text
+            PasswordEntry selectedItem = passwordTable.getSelectionModel().getSelectedItem();
+            if (selectedItem != null && selectedItem.getPassword().equals(passwordField.getText())) {
+                recordUse(selectedItem, UsageStats.Use.VIEW);
+                audit(AuditLog.Action.VIEW, selectedItem);
             }
-            o = o.substring(1, o.length() - 1);
+            passwordVisibleField.setText(passwordField.getText());
+            passwordVisibleField.setVisible(true);
+            passwordVisibleField.setManaged(true);
+            passwordField.setVisible(false);
+            passwordField.setManaged(false);
+        } else {
+            // Hide password again
+            passwordField.setText(passwordVisibleField.getText());
+            passwordField.setVisible(true);
+            passwordField.setManaged(true);
+            passwordVisibleField.setVisible(false);
+            passwordVisibleField.setManaged(false);
+        }
+    }
 
-            String service = extractJsonField(o, "service");
-            String username = extractJsonField(o, "username");
-            String password = extractJsonField(o, "password");
+    @FXML
+    // Toggles whether the password column in the table shows real passwords or ******
+    protected void onToggleShowPasswordsInTable() {
+        if (showPasswordsInTableMenuItem != null) {
+            showPasswordsInTable = showPasswordsInTableMenuItem.isSelected();
+            if (showPasswordsInTable) {
+                audit(AuditLog.Action.SHOW_ALL_PASSWORDS, null);
+            }
+            // Force table to redraw cells with the new masking state
+            passwordTable.refresh();
+        }
+    }
 
-            if (service != null && username != null && password != null) {
-                entries.add(new PasswordEntry(service, username, password));
+    @FXML
+    // Exchanges changed entries with another replica through a (local) sync server
+    protected void onSyncClick() {
+        if (vault == null) {
+            return;
+        }
+
+        TextInputDialog dialog = new TextInputDialog("localhost:" + SyncServer.DEFAULT_PORT);
+        dialog.setTitle("Sync vault");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Sync server (host:port):");
+        applyWindowIcon((Stage) dialog.getDialogPane().getScene().getWindow());
+
+        String target = dialog.showAndWait().orElse(null);
+        if (target == null || target.isBlank()) {
+            return;
+        }
+
+        String host;
+        int port;
+        try {
+            int colon = target.lastIndexOf(':');
+            host = colon < 0 ? target.trim() : target.substring(0, colon).trim();
+            port = colon < 0 ? SyncServer.DEFAULT_PORT : Integer.parseInt(target.substring(colon + 1).trim());
+        } catch (NumberFormatException e) {
+            statusMessage.setText("Invalid sync server address.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            return;
+        }
+
+        // Work on a snapshot so the table stays usable while the exchange runs
+        Vault.Snapshot state = vault.getVault().snapshot();
+        List<PasswordEntry> snapshot = state.getEntries();
+        List<SyncRecord> deleted = state.getTombstones();
+
+        statusMessage.setText("Synchronizing...");
+        statusMessage.setStyle("-fx-text-fill: green;");
+
+        Thread worker = new Thread(() -> {
+            try {
+                SyncStore local = new SyncStore(toSyncRecords(snapshot, deleted));
+                VaultSync.Result result;
+                try (RemoteSyncPeer remote = new RemoteSyncPeer(host, port)) {
+                    result = VaultSync.synchronize(local, remote);
+                }
+
+                List<PasswordEntry> pulledEntries = new ArrayList<>();
+                List<SyncRecord> pulledDeletions = new ArrayList<>();
+                for (SyncRecord record : result.getPulled()) {
+                    if (record.isDeleted()) {
+                        pulledDeletions.add(record);
+                    } else {
+                        pulledEntries.add(fromSyncRecord(record));
+                    }
+                }
+
+                Platform.runLater(() -> applySyncResult(pulledEntries, pulledDeletions, result.getPushed()));
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    statusMessage.setText("Sync failed: " + e.getMessage());
+                    statusMessage.setStyle("-fx-text-fill: red;");
+                });
             }
+        }, "vault-sync");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Applies records pulled from the peer, unless the entry was changed locally in the meantime
+    private void applySyncResult(List<PasswordEntry> pulledEntries, List<SyncRecord> pulledDeletions, int pushed) {
+        vault.getVault().merge(pulledEntries, pulledDeletions);
+        saveEntries();
+
+        statusMessage.setText("Sync complete: " + (pulledEntries.size() + pulledDeletions.size())
+                + " received, " + pushed + " sent.");
+        statusMessage.setStyle("-fx-text-fill: green;");
+    }
+
+    // Encrypts every entry as its own record (salt + IV + ciphertext) so that it can be synced alone
+    private List<SyncRecord> toSyncRecords(List<PasswordEntry> entries, List<SyncRecord> deleted) throws Exception {
+        byte[] salt = SyncIdentity.get().getSalt();
+        SecretKey key = syncKey(salt);
+
+        List<SyncRecord> records = new ArrayList<>(entries.size() + deleted.size());
+        for (PasswordEntry entry : entries) {
+            StringBuilder sb = new StringBuilder();
+            VaultJson.appendEntry(sb, entry);
+            byte[] encrypted = CryptoUtils.encryptWithKey(sb.toString().getBytes(StandardCharsets.UTF_8), key);
+
+            byte[] payload = new byte[salt.length + encrypted.length];
+            System.arraycopy(salt, 0, payload, 0, salt.length);
+            System.arraycopy(encrypted, 0, payload, salt.length, encrypted.length);
+
+            records.add(new SyncRecord(entry.getId(), entry.getVersion(), entry.getOrigin(), false, payload));
         }
+        records.addAll(deleted);
+        return records;
+    }
 
-        return entries;
+    // Decrypts a record from another replica back into an entry
+    private PasswordEntry fromSyncRecord(SyncRecord record) throws Exception {
+        byte[] payload = record.getPayload();
+        byte[] salt = Arrays.copyOfRange(payload, 0, 16);
+        byte[] encrypted = Arrays.copyOfRange(payload, 16, payload.length);
+
+        String json = new String(CryptoUtils.decryptWithKey(encrypted, syncKey(salt)), StandardCharsets.UTF_8);
+        String o = json.trim();
+        PasswordEntry entry = VaultJson.parseEntry(o.substring(1, o.length() - 1));
+        if (entry == null || !entry.getId().equals(record.getId())) {
+            throw new IllegalStateException("Sync record " + record.getId() + " is corrupt.");
+        }
+        entry.setVersion(record.getVersion());
+        entry.setOrigin(record.getOrigin());
+        return entry;
     }
 
-    // Extracts a single string field from a very small JSON object (no full JSON parser on purpose)
-    private String extractJsonField(String objectContent, String fieldName) {
-        String pattern = "\"" + fieldName + "\"" + ":\"";
-        int start = objectContent.indexOf(pattern);
-        if (start < 0) {
-            return null;
+    // Same lock as syncKey(): the sync thread may be deriving a key with the old password right now
+    private synchronized void clearSyncKeys() {
+        syncKeys.clear();
+    }
+
+    private synchronized SecretKey syncKey(byte[] salt) throws Exception {
+        String cacheKey = Base64.getEncoder().encodeToString(salt);
+        SecretKey key = syncKeys.get(cacheKey);
+        if (key == null) {
+            key = CryptoUtils.deriveKey(vault.getMasterPassword(), salt);
+            syncKeys.put(cacheKey, key);
         }
-        start += pattern.length();
-        int end = start;
-        StringBuilder value = new StringBuilder();
-        boolean escaped = false;
-        while (end < objectContent.length()) {
-            char c = objectContent.charAt(end);
-            if (escaped) {
-                value.append(c);
-                escaped = false;
-            } else if (c == '\\') {
-                escaped = true;
-            } else if (c == '"') {
-                break;
-            } else {
-                value.append(c);
+        return key;
+    }
+
+    // Receives the master password from MainController and binds the window to the shared vault
+    public void setMasterPassword(String masterPassword) {
+        try {
+            vault = SharedVault.open(DATA_PATH, masterPassword);
+        } catch (Exception e) {
+            statusMessage.setText("Failed to load entries.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            e.printStackTrace();
+            explainLoadFailure();
+            return;
+        }
+
+        // Static method reference: the scanner outlives this window and must not keep it alive
+        vault.getScanner().setListener(PasswordManagerController::onIntegrityProblem);
+        // Same for the rekey listener; the newest window asks for the new password
+        WeakReference<PasswordManagerController> window = new WeakReference<>(this);
+        vault.setRekeyListener(() -> Platform.runLater(() -> {
+            PasswordManagerController controller = window.get();
+            if (controller != null) {
+                controller.onVaultRekeyed();
             }
-            end++;
+        }));
+
+        passwordData = vault.getEntries();
+        passwordData.addListener(new WeakListChangeListener<>(passwordDataListener));
+        frecencyCache.rebuild(passwordData);
+        updateQuickAccess();
+
+        List<PasswordEntry> existing = new ArrayList<>(passwordData);
+        viewExecutor.execute(() -> {
+            existing.forEach(searchIndex::add);
+            tagIndex.update(Collections.emptyList(), existing);
+        });
+        refreshView();
+
+        // The master password was just entered: a locked agent may serve lookups again
+        VaultAgent agent = VaultAgent.get();
+        if (agent != null) {
+            agent.unlock();
         }
-        return unescapeJson(value.toString());
+        agentMenuItem.setSelected(agent != null);
     }
 
-    // Escapes characters that would break the simple JSON representation
-    private String escapeJson(String value) {
-        return value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n");
+    // Another app instance changed the master password, so this window can no longer save. It is locked
+    // until the new password is entered; changes made before that stay in memory and are saved then.
+    private void onVaultRekeyed() {
+        if (passwordTable.getScene() == null || !passwordTable.getScene().getWindow().isShowing()
+                || passwordTable.getScene().getRoot().isDisabled()) {
+            return;
+        }
+        Stage stage = (Stage) passwordTable.getScene().getWindow();
+        stage.getScene().getRoot().setDisable(true);
+        statusMessage.setText("The master password was changed in another instance of the app.");
+        statusMessage.setStyle("-fx-text-fill: red;");
+
+        Stage dialog = new Stage();
+        dialog.setTitle("Master password changed");
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.initOwner(stage);
+        applyWindowIcon(dialog);
+
+        Label lblInfo = new Label("The master password was changed in another instance of the app.\n"
+                + "Enter the new master password to continue.");
+        PasswordField pfNew = new PasswordField();
+        Label lblError = new Label();
+        lblError.setStyle("-fx-text-fill: red;");
+
+        Button btnUnlock = new Button("Unlock");
+        btnUnlock.setDefaultButton(true);
+        btnUnlock.setOnAction(e -> {
+            String newPw = pfNew.getText();
+            if (newPw == null || newPw.isEmpty()) {
+                lblError.setText("Please enter the new master password.");
+                return;
+            }
+            lblError.setText("Checking...");
+            runInBackground("vault-rekey", () -> {
+                try {
+                    vault.rekey(newPw);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    Platform.runLater(() -> {
+                        lblError.setText("This password does not open the vault.");
+                        pfNew.clear();
+                    });
+                    return;
+                }
+                clearSyncKeys();
+                Platform.runLater(() -> {
+                    stage.getScene().getRoot().setDisable(false);
+                    statusMessage.setText("Unlocked with the new master password.");
+                    statusMessage.setStyle("-fx-text-fill: green;");
+                    dialog.close();
+                });
+            }, lblError);
+        });
+
+        Button btnClose = new Button("Close Manager");
+        btnClose.setOnAction(e -> dialog.close());
+        // Closing the dialog without the new password closes the locked window as well
+        dialog.setOnHidden(e -> {
+            if (stage.getScene().getRoot().isDisabled()) {
+                stage.close();
+            }
+        });
+
+        HBox buttons = new HBox(10, btnUnlock, btnClose);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER);
+        VBox layout = new VBox(10, lblInfo, pfNew, lblError, buttons);
+        layout.setPadding(new javafx.geometry.Insets(20));
+
+        dialog.setScene(new javafx.scene.Scene(layout, 420, 200));
+        dialog.show();
+    }
+
+    // Tells a damaged vault file (checksums do not match) apart from a wrong password or a bug,
+    // and points to the newest backup that still verifies
+    private void explainLoadFailure() {
+        runInBackground("integrity-check", () -> {
+            IntegrityScanner.Result result = IntegrityScanner.verify(DATA_PATH, 0);
+            if (result.getStatus() != IntegrityScanner.Status.DAMAGED) {
+                return;
+            }
+            IntegrityScanner.Result backup = IntegrityScanner.findGoodBackup(BACKUP_DIR);
+            Platform.runLater(() -> {
+                statusMessage.setText("The vault file is damaged: " + result.getDetail() + "\n" + describeBackup(backup));
+                statusMessage.setStyle("-fx-text-fill: red;");
+            });
+        }, statusMessage);
     }
 
-    // Reverses escapeJson so we get the original strings back
-    private String unescapeJson(String value) {
-        return value
-                .replace("\\n", "\n")
-                .replace("\\\"", "\"")
-                .replace("\\\\", "\\");
+    // Scanner callback (scanner thread): a file that verified before no longer matches its checksums
+    private static void onIntegrityProblem(IntegrityScanner.Result damaged, IntegrityScanner.Result lastGoodBackup) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Vault Integrity");
+            alert.setHeaderText(damaged.getFile().getFileName() + " is damaged");
+            alert.setContentText(damaged.getDetail() + "\n\n" + describeBackup(lastGoodBackup)
+                    + "\n\nThe entries shown in the manager are still intact; saving a change writes a new vault file.");
+            Stage alertStage = (Stage) alert.getDialogPane().getScene().getWindow();
+            alertStage.getIcons().add(new Image(PasswordManagerController.class.getResourceAsStream("/icons/icon.png")));
+            alert.show();
+        });
+    }
+
+    private static String describeBackup(IntegrityScanner.Result backup) {
+        if (backup == null) {
+            return "No verified backup is available.";
+        }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+        return "Last known-good backup: " + backup.getFile() + " (verified "
+                + formatter.format(Instant.ofEpochMilli(backup.getCheckedAt())) + ").";
+    }
+
+    @FXML
+    // Starts or stops the local agent that answers credential lookups of scripts
+    protected void onToggleAgent() {
+        if (!agentMenuItem.isSelected()) {
+            VaultAgent.stopRunning();
+            statusMessage.setText("Local agent stopped.");
+            statusMessage.setStyle("-fx-text-fill: green;");
+            return;
+        }
+        if (vault == null) {
+            agentMenuItem.setSelected(false);
+            return;
+        }
+
+        try {
+            VaultAgent.start(AGENT_SOCKET, vault);
+            statusMessage.setText("Local agent listening on " + AGENT_SOCKET.getFileName() + ".");
+            statusMessage.setStyle("-fx-text-fill: green;");
+        } catch (Exception e) {
+            agentMenuItem.setSelected(false);
+            statusMessage.setText("Could not start the local agent: " + e.getMessage());
+            statusMessage.setStyle("-fx-text-fill: red;");
+            e.printStackTrace();
+        }
+    }
+
+    // Encrypts all entries with the master password and writes them to disk (merging changes of other instances)
+    private void saveEntries() {
+        if (vault == null) {
+            return;
+        }
+        usageSave.stop();   // this save also writes the recorded uses
+
+        try {
+            vault.save();
+        } catch (Exception e) {
+            if (vault.isRekeyed()) {
+                // onVaultRekeyed() locks the window; the change is saved once the new password is entered
+                return;
+            }
+            statusMessage.setText("Error: Could not save the entries.");
+            statusMessage.setStyle("-fx-text-fill: red;");
+            e.printStackTrace();
+        }
     }
 
     private void applyWindowIcon(Stage stage) {
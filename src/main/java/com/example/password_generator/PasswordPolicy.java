@@ -0,0 +1,147 @@
+package com.example.password_generator;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Rules for generated passwords: length, min/max count per character class, the symbol set,
+// excluded characters, an ambiguity filter and a limit on how often one character may occur.
+// Policies are stored per entry in the vault as a short "key=value;..." string (see encode/decode).
+public class PasswordPolicy {
+
+    public enum CharClass { UPPER, LOWER, DIGIT, SYMBOL }
+
+    public static final int MAX_LENGTH = 100;
+    public static final String DEFAULT_SYMBOLS = "!@#$%^&*()-_=+<>?";
+
+    // Characters that are easy to confuse when read or typed by hand
+    public static final String AMBIGUOUS = "Il1|O0o`'\"";
+
+    private static final String[] BASE = {
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZ", "abcdefghijklmnopqrstuvwxyz", "0123456789", null};
+
+    private int length = 16;
+    private final int[] min = {1, 1, 1, 1};
+    private final int[] max = {MAX_LENGTH, MAX_LENGTH, MAX_LENGTH, MAX_LENGTH};
+    private String symbols = DEFAULT_SYMBOLS;
+    private String excluded = "";
+    private boolean excludeAmbiguous = false;
+    private int maxOccurrences = 0;   // 0 = no limit
+
+    public int getLength() { return length; }
+    public int getMin(CharClass c) { return min[c.ordinal()]; }
+    public int getMax(CharClass c) { return max[c.ordinal()]; }
+    public String getSymbols() { return symbols; }
+    public String getExcluded() { return excluded; }
+    public boolean isExcludeAmbiguous() { return excludeAmbiguous; }
+    public int getMaxOccurrences() { return maxOccurrences; }
+
+    public void setLength(int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Length must be between 1 and " + MAX_LENGTH + ".");
+        }
+        this.length = length;
+    }
+
+    // max 0 disables the class
+    public void setRange(CharClass c, int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid range " + min + ".." + max + " for " + c + ".");
+        }
+        this.min[c.ordinal()] = min;
+        this.max[c.ordinal()] = Math.min(max, MAX_LENGTH);
+    }
+
+    public void setSymbols(String symbols) { this.symbols = symbols == null ? "" : symbols; }
+    public void setExcluded(String excluded) { this.excluded = excluded == null ? "" : excluded; }
+    public void setExcludeAmbiguous(boolean excludeAmbiguous) { this.excludeAmbiguous = excludeAmbiguous; }
+
+    // How often a single character may appear in the password (0 = no limit)
+    public void setMaxOccurrences(int maxOccurrences) {
+        if (maxOccurrences < 0) {
+            throw new IllegalArgumentException("Max occurrences must not be negative.");
+        }
+        this.maxOccurrences = maxOccurrences;
+    }
+
+    // Allowed characters of a class after removing excluded (and ambiguous) ones; classes never overlap
+    public String alphabet(CharClass c) {
+        String base = c == CharClass.SYMBOL ? symbols : BASE[c.ordinal()];
+        Set<Character> chars = new LinkedHashSet<>();
+        for (char ch : base.toCharArray()) {
+            boolean foreign = c == CharClass.SYMBOL && Character.isLetterOrDigit(ch);
+            boolean removed = excluded.indexOf(ch) >= 0 || (excludeAmbiguous && AMBIGUOUS.indexOf(ch) >= 0);
+            if (!foreign && !removed && !Character.isWhitespace(ch)) {
+                chars.add(ch);
+            }
+        }
+        StringBuilder sb = new StringBuilder(chars.size());
+        chars.forEach(sb::append);
+        return sb.toString();
+    }
+
+    // Policy matching the four checkboxes of the generator window: one of each selected class at least
+    public static PasswordPolicy fromSelection(int length, boolean upper, boolean lower, boolean digits, boolean symbols) {
+        PasswordPolicy policy = new PasswordPolicy();
+        policy.setLength(length);
+        boolean[] selected = {upper, lower, digits, symbols};
+        for (CharClass c : CharClass.values()) {
+            if (selected[c.ordinal()]) {
+                policy.setRange(c, 1, MAX_LENGTH);
+            } else {
+                policy.setRange(c, 0, 0);
+            }
+        }
+        return policy;
+    }
+
+    // "len=16;upper=1-100;lower=1-100;digit=2-100;symbol=0-0;symbols=...;exclude=...;ambiguous=1;repeat=3"
+    public String encode() {
+        StringBuilder sb = new StringBuilder("len=").append(length);
+        for (CharClass c : CharClass.values()) {
+            sb.append(';').append(key(c)).append('=').append(min[c.ordinal()]).append('-').append(max[c.ordinal()]);
+        }
+        sb.append(";symbols=").append(URLEncoder.encode(symbols, StandardCharsets.UTF_8));
+        sb.append(";exclude=").append(URLEncoder.encode(excluded, StandardCharsets.UTF_8));
+        sb.append(";ambiguous=").append(excludeAmbiguous ? 1 : 0);
+        sb.append(";repeat=").append(maxOccurrences);
+        return sb.toString();
+    }
+
+    public static PasswordPolicy decode(String text) {
+        PasswordPolicy policy = new PasswordPolicy();
+        for (String part : text.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) continue;
+            String key = part.substring(0, eq);
+            String value = part.substring(eq + 1);
+            try {
+                switch (key) {
+                    case "len": policy.setLength(Integer.parseInt(value)); break;
+                    case "symbols": policy.setSymbols(URLDecoder.decode(value, StandardCharsets.UTF_8)); break;
+                    case "exclude": policy.setExcluded(URLDecoder.decode(value, StandardCharsets.UTF_8)); break;
+                    case "ambiguous": policy.setExcludeAmbiguous(value.equals("1")); break;
+                    case "repeat": policy.setMaxOccurrences(Integer.parseInt(value)); break;
+                    default:
+                        for (CharClass c : CharClass.values()) {
+                            if (key(c).equals(key)) {
+                                int dash = value.indexOf('-');
+                                policy.setRange(c, Integer.parseInt(value.substring(0, dash)),
+                                        Integer.parseInt(value.substring(dash + 1)));
+                            }
+                        }
+                }
+            } catch (RuntimeException e) {
+                // Unknown or damaged value: keep the default for this key
+            }
+        }
+        return policy;
+    }
+
+    private static String key(CharClass c) {
+        return c.name().toLowerCase(Locale.ROOT);
+    }
+}
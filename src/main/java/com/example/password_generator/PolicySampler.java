@@ -0,0 +1,307 @@
+package com.example.password_generator;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.ChaCha20ParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Draws passwords uniformly from all strings that satisfy a PasswordPolicy, without rejection loops.
+//
+// The number of valid strings is counted once per policy with dynamic programming:
+//   ways[c][k]   strings of length k over the alphabet of class c with at most `cap` of each char
+//   suffix[i][s] strings of length s built from classes i.. that meet their min/max counts
+// A password is then sampled top-down: the count of every class with probability proportional to
+// the number of completions, the characters of each class (per-character counts when capped), and
+// finally a shuffle of all characters. Every valid string has probability 1 / total
+// (see PolicySamplerTest for the statistical check).
+//
+// Random bits come from a SecureRandom-keyed ChaCha20 keystream (see RandomBits), which keeps the sampler fast.
+// Not thread-safe: use one sampler per thread.
+public class PolicySampler {
+
+    private static final double[][] BINOMIAL = binomials(PasswordPolicy.MAX_LENGTH);
+
+    private final int length;
+    private final int cap;
+    private final char[][] alphabets;
+    private final int[] mins;
+    private final int[] maxs;
+    private final double[][] ways;
+    private final double[][] suffix;
+    private final double[][][] capWays;   // per class: [n chars][k] (only used when capped)
+    private final boolean[][] tryFree;     // per class and count: unrestricted draws usually respect the cap
+    private final RandomBits random = new RandomBits();
+
+    private final char[] buffer;
+    private final int[] counts;
+    private final int[] drawn;
+    private final int[] occurrences;
+
+    public PolicySampler(PasswordPolicy policy) {
+        this.length = policy.getLength();
+        this.cap = policy.getMaxOccurrences() == 0 ? length : Math.min(policy.getMaxOccurrences(), length);
+
+        List<char[]> usedAlphabets = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        for (PasswordPolicy.CharClass c : PasswordPolicy.CharClass.values()) {
+            String alphabet = policy.alphabet(c);
+            int min = policy.getMin(c);
+            int max = Math.min(policy.getMax(c), length);
+            if (alphabet.isEmpty() || max == 0) {
+                if (min > 0) {
+                    throw new IllegalArgumentException("No characters left for " + c.name().toLowerCase(Locale.ROOT) + ".");
+                }
+                continue;
+            }
+            usedAlphabets.add(alphabet.toCharArray());
+            ranges.add(new int[]{min, max});
+        }
+
+        int classes = usedAlphabets.size();
+        this.alphabets = usedAlphabets.toArray(new char[0][]);
+        this.mins = new int[classes];
+        this.maxs = new int[classes];
+        for (int i = 0; i < classes; i++) {
+            mins[i] = ranges.get(i)[0];
+            maxs[i] = ranges.get(i)[1];
+        }
+
+        // Per class: strings of length k with at most `cap` copies of each character
+        this.capWays = new double[classes][][];
+        this.ways = new double[classes][];
+        this.tryFree = new boolean[classes][length + 1];
+        int widest = 0;
+        for (int c = 0; c < classes; c++) {
+            int n = alphabets[c].length;
+            capWays[c] = cappedWays(n, length, cap);
+            ways[c] = capWays[c][n];
+            for (int k = 0; k <= length; k++) {
+                tryFree[c][k] = ways[c][k] >= 0.5 * Math.pow(n, k);
+            }
+            widest = Math.max(widest, n);
+        }
+
+        // suffix[i][s] = sum over k of C(s, k) * ways[i][k] * suffix[i+1][s-k]
+        this.suffix = new double[classes + 1][length + 1];
+        suffix[classes][0] = 1;
+        for (int i = classes - 1; i >= 0; i--) {
+            for (int s = 0; s <= length; s++) {
+                double total = 0;
+                for (int k = mins[i]; k <= Math.min(maxs[i], s); k++) {
+                    total += BINOMIAL[s][k] * ways[i][k] * suffix[i + 1][s - k];
+                }
+                suffix[i][s] = total;
+            }
+        }
+        if (classes == 0 || suffix[0][length] == 0) {
+            throw new IllegalArgumentException("No password can satisfy this policy.");
+        }
+
+        this.buffer = new char[length];
+        this.counts = new int[classes];
+        this.drawn = new int[length];
+        this.occurrences = new int[widest];
+    }
+
+    // Number of different passwords the policy allows
+    public double combinations() {
+        return suffix[0][length];
+    }
+
+    // Exact entropy of a generated password: log2 of the number of allowed passwords
+    public double entropyBits() {
+        return Math.log(combinations()) / Math.log(2);
+    }
+
+    public String next() {
+        // 1. How many characters of each class
+        int remaining = length;
+        for (int i = 0; i < counts.length; i++) {
+            double target = random.nextDouble() * suffix[i][remaining];
+            int upper = Math.min(maxs[i], remaining);
+            int chosen = -1;
+            double acc = 0;
+            for (int k = mins[i]; k <= upper; k++) {
+                double w = BINOMIAL[remaining][k] * ways[i][k] * suffix[i + 1][remaining - k];
+                if (w == 0) continue;
+                chosen = k;
+                acc += w;
+                if (acc > target) break;
+            }
+            counts[i] = chosen;
+            remaining -= chosen;
+        }
+
+        // 2. The characters of each class (as a multiset), 3. shuffled into place
+        int pos = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (cap >= counts[i]) {
+                pos = drawFree(i, counts[i], pos);
+            } else if (!tryFree[i][counts[i]] || !drawFreeWithinCap(i, counts[i], pos)) {
+                pos = drawCapped(i, counts[i], pos);
+            } else {
+                pos += counts[i];
+            }
+        }
+        for (int j = length - 1; j > 0; j--) {
+            int k = random.nextInt(j + 1);
+            char tmp = buffer[j];
+            buffer[j] = buffer[k];
+            buffer[k] = tmp;
+        }
+        return new String(buffer);
+    }
+
+    // No limit can be hit: independent uniform characters
+    private int drawFree(int c, int k, int pos) {
+        char[] alphabet = alphabets[c];
+        for (int j = 0; j < k; j++) {
+            buffer[pos++] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return pos;
+    }
+
+    // One unrestricted draw, kept only if no character exceeds the cap. Conditioned on success this is
+    // uniform over the allowed strings, and on failure drawCapped takes over, so the mix stays exact.
+    // Only tried when the success probability is at least 1/2: at most one extra draw, never a loop.
+    private boolean drawFreeWithinCap(int c, int k, int pos) {
+        char[] alphabet = alphabets[c];
+        boolean ok = true;
+        for (int j = 0; j < k; j++) {
+            int index = random.nextInt(alphabet.length);
+            drawn[j] = index;
+            if (++occurrences[index] > cap) {
+                ok = false;
+            }
+        }
+        for (int j = 0; j < k; j++) {
+            occurrences[drawn[j]] = 0;
+            buffer[pos + j] = alphabet[drawn[j]];
+        }
+        return ok;
+    }
+
+    // Per-character counts, one character after the other, weighted by the number of completions
+    private int drawCapped(int c, int k, int pos) {
+        char[] alphabet = alphabets[c];
+        double[][] table = capWays[c];
+        int remaining = k;
+        for (int t = 0; t < alphabet.length && remaining > 0; t++) {
+            int charsLeft = alphabet.length - t;
+            double target = random.nextDouble() * table[charsLeft][remaining];
+            int chosen = 0;
+            double acc = 0;
+            for (int j = 0; j <= Math.min(cap, remaining); j++) {
+                double w = BINOMIAL[remaining][j] * table[charsLeft - 1][remaining - j];
+                if (w == 0) continue;
+                chosen = j;
+                acc += w;
+                if (acc > target) break;
+            }
+            for (int j = 0; j < chosen; j++) {
+                buffer[pos++] = alphabet[t];
+            }
+            remaining -= chosen;
+        }
+        return pos;
+    }
+
+    // table[n][k]: strings of length k over n characters with at most `cap` copies of each
+    private static double[][] cappedWays(int chars, int length, int cap) {
+        double[][] table = new double[chars + 1][length + 1];
+        table[0][0] = 1;
+        for (int n = 1; n <= chars; n++) {
+            for (int k = 0; k <= length; k++) {
+                double total = 0;
+                for (int j = 0; j <= Math.min(cap, k); j++) {
+                    total += BINOMIAL[k][j] * table[n - 1][k - j];
+                }
+                table[n][k] = total;
+            }
+        }
+        return table;
+    }
+
+    private static double[][] binomials(int n) {
+        double[][] c = new double[n + 1][n + 1];
+        for (int i = 0; i <= n; i++) {
+            c[i][0] = 1;
+            for (int j = 1; j <= i; j++) {
+                c[i][j] = c[i - 1][j - 1] + c[i - 1][j];
+            }
+        }
+        return c;
+    }
+
+    // Random bits from a ChaCha20 keystream in 64 KiB blocks; every block gets a fresh key and nonce
+    // from SecureRandom. Reading SecureRandom directly limits the sampler to about half a million
+    // passwords per second, the keystream is a CSPRNG in its own right and is many times faster.
+    // Bounded ints are unbiased: the partial range at the top is rejected.
+    private static class RandomBits {
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] key = new byte[32];
+        private final byte[] nonce = new byte[12];
+        private final byte[] zeros = new byte[65536];
+        private final byte[] block = new byte[65536];
+        private int pos = block.length;
+
+        private void refill() {
+            random.nextBytes(key);
+            random.nextBytes(nonce);
+            try {
+                Cipher cipher = Cipher.getInstance("ChaCha20");
+                cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "ChaCha20"), new ChaCha20ParameterSpec(nonce, 1));
+                cipher.doFinal(zeros, 0, zeros.length, block, 0);
+            } catch (GeneralSecurityException e) {
+                // ChaCha20 is part of every Java 11+ runtime; fall back to SecureRandom just in case
+                random.nextBytes(block);
+            }
+            Arrays.fill(key, (byte) 0);
+            pos = 0;
+        }
+
+        // 16 random bits
+        int nextShort() {
+            if (pos + 2 > block.length) {
+                refill();
+            }
+            int value = ((block[pos] & 0xff) << 8) | (block[pos + 1] & 0xff);
+            pos += 2;
+            return value;
+        }
+
+        // 32 random bits as an unsigned value
+        long nextBits() {
+            return ((long) nextShort() << 16) | nextShort();
+        }
+
+        // Alphabets and positions are small: 16 bits per draw (rejection rate below 1/256 up to bound 256)
+        int nextInt(int bound) {
+            if (bound <= 256) {
+                int limit = 65536 - 65536 % bound;
+                while (true) {
+                    int bits = nextShort();
+                    if (bits < limit) {
+                        return bits % bound;
+                    }
+                }
+            }
+            long limit = (1L << 32) - ((1L << 32) % bound);
+            while (true) {
+                long bits = nextBits();
+                if (bits < limit) {
+                    return (int) (bits % bound);
+                }
+            }
+        }
+
+        double nextDouble() {
+            return ((nextBits() << 21) ^ (nextBits() >>> 11)) * 0x1.0p-53;
+        }
+    }
+}
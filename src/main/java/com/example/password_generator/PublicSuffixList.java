@@ -0,0 +1,95 @@
+package com.example.password_generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Public suffix rules (https://publicsuffix.org) to find the registrable domain (eTLD+1) of a host,
+// e.g. "example.co.uk" for "login.example.co.uk" and "alice.github.io" for "alice.github.io".
+// The bundled list is loaded once into hash sets; a lookup checks each suffix of the host once.
+public class PublicSuffixList {
+
+    private static final String RESOURCE = "/psl/public_suffix_list.dat";
+
+    private static PublicSuffixList instance;
+
+    private final Set<String> rules = new HashSet<>();        // "com", "co.uk", "*.ck"
+    private final Set<String> exceptions = new HashSet<>();   // "www.ck" for the rule "!www.ck"
+
+    private PublicSuffixList(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("//")) continue;
+                if (line.startsWith("!")) {
+                    exceptions.add(toAscii(line.substring(1)));
+                } else {
+                    rules.add(toAscii(line));
+                }
+            }
+        }
+    }
+
+    public static synchronized PublicSuffixList get() {
+        if (instance == null) {
+            try (InputStream in = PublicSuffixList.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("Missing resource " + RESOURCE);
+                }
+                instance = new PublicSuffixList(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return instance;
+    }
+
+    // Registrable domain of a normalized (lowercase, ASCII) host, or null if the host is itself a public suffix
+    public String registrableDomain(String host) {
+        // Candidates from longest to shortest; the first matching rule is the one with the most labels
+        int suffixStart = -1;
+        int start = 0;
+        while (start >= 0) {
+            String candidate = host.substring(start);
+            if (exceptions.contains(candidate)) {
+                // Exception: the suffix is the candidate without its first label
+                suffixStart = host.indexOf('.', start) + 1;
+                break;
+            }
+            int dot = host.indexOf('.', start);
+            if (rules.contains(candidate) || (dot >= 0 && rules.contains("*" + host.substring(dot)))) {
+                suffixStart = start;
+                break;
+            }
+            start = dot < 0 ? -1 : dot + 1;
+        }
+        if (suffixStart < 0) {
+            // Default rule "*": the last label is the suffix
+            int lastDot = host.lastIndexOf('.');
+            suffixStart = lastDot + 1;
+        }
+        if (suffixStart == 0) {
+            return null;
+        }
+
+        // One more label to the left of the suffix
+        int labelStart = host.lastIndexOf('.', suffixStart - 2) + 1;
+        return host.substring(labelStart);
+    }
+
+    private static String toAscii(String rule) {
+        try {
+            return IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return rule.toLowerCase(Locale.ROOT);
+        }
+    }
+}
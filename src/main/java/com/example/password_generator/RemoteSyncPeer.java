@@ -0,0 +1,88 @@
+package com.example.password_generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+// Client side of the sync protocol: talks to a SyncServer over one socket connection
+public class RemoteSyncPeer implements SyncPeer, AutoCloseable {
+
+    private static final int HASH_LENGTH = 32;
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public RemoteSyncPeer(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setSoTimeout(TIMEOUT_MILLIS);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    @Override
+    public List<byte[]> nodeHashes(List<Integer> nodes) throws IOException {
+        out.write(SyncServer.OP_NODE_HASHES);
+        writeInts(nodes);
+        out.flush();
+
+        int count = SyncServer.readCount(in);
+        List<byte[]> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] hash = new byte[HASH_LENGTH];
+            in.readFully(hash);
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    @Override
+    public List<SyncRecord> leafStamps(List<Integer> leaves) throws IOException {
+        out.write(SyncServer.OP_LEAF_STAMPS);
+        writeInts(leaves);
+        out.flush();
+        return SyncServer.readRecords(in, false);
+    }
+
+    @Override
+    public List<SyncRecord> fetch(List<String> ids) throws IOException {
+        out.write(SyncServer.OP_FETCH);
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            out.writeUTF(id);
+        }
+        out.flush();
+        return SyncServer.readRecords(in, true);
+    }
+
+    @Override
+    public void store(List<SyncRecord> records) throws IOException {
+        out.write(SyncServer.OP_STORE);
+        SyncServer.writeRecords(out, records, true);
+        out.flush();
+        in.readInt(); // acknowledgement
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(SyncServer.OP_BYE);
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void writeInts(List<Integer> values) throws IOException {
+        out.writeInt(values.size());
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+}
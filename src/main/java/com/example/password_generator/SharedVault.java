@@ -0,0 +1,463 @@
+package com.example.password_generator;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+// One in-memory vault per file, shared by all manager windows of the process: the thread-safe Vault
+// plus its persistence. Changes go through getVault(); getEntries() is a JavaFX mirror of it that
+// windows bind to instead of keeping their own copy. A save takes an
+// exclusive FileChannel lock on "<file>.lock", so another app instance never writes at the same time,
+// and first merges whatever that instance wrote since we last looked.
+// A WatchService notices external writes; entries are merged by id and version, so only the entries
+// that actually changed are replaced in the list (the file itself is one encrypted blob and is
+// decrypted once per external write; our own writes are recognized by digest and skipped).
+// Every save also hands the vault JSON to a background thread that stores it as a BackupStore snapshot,
+// at most once every -Dvault.backup.minutes (default 10, 0 = no snapshots); saves in between are coalesced.
+// The mirror is updated on the JavaFX thread (directly if the change was made there) and is read-only
+// for everybody else.
+// If another instance changes the master password, the file no longer decrypts here while its checksums
+// still match. The vault then stops saving and calls the rekey listener until rekey() gets the new password.
+public class SharedVault {
+
+    private static final Map<Path, SharedVault> OPEN = new HashMap<>();
+
+    // Writers produce several events per save; wait until they settle before reading
+    private static final long SETTLE_MILLIS = 200;
+    private static final String REKEYED_MESSAGE = "The master password was changed by another instance of the app.";
+
+    private final long backupIntervalMillis = Long.getLong("vault.backup.minutes", 10) * 60_000;
+
+    private final Path file;
+    private final Path lockFile;
+    private final IntegrityScanner scanner;
+    private final AuditLog auditLog;
+    private final Path backupDir;
+    private BackupStore backupStore;   // opened by the backup thread (key derivation)
+    private final ScheduledExecutorService backupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "vault-backup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Newest vault state not yet stored as a snapshot (null = nothing pending, no job scheduled)
+    private final AtomicReference<Vault.Snapshot> pendingBackup = new AtomicReference<>();
+    private volatile long lastBackupMillis = 0;
+    private final Vault vault = new Vault();
+    private final EntryList entries = new EntryList();
+    private final boolean fxRunning = isFxRunning();
+    private volatile String masterPassword;
+    private volatile String knownDigest;   // digest of the file content we last read or wrote
+    // Another app instance changed the master password: nothing is saved until rekey() got the new one
+    private volatile boolean rekeyed;
+    private volatile Runnable rekeyListener;
+
+    private SharedVault(Path file, String masterPassword) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        this.backupDir = file.resolveSibling("backups");
+        this.scanner = new IntegrityScanner(file, backupDir);
+        this.auditLog = new AuditLog(file.resolveSibling("audit"), masterPassword);
+        this.masterPassword = masterPassword;
+        vault.addListener(this::mirror);
+    }
+
+    // Returns the vault of the file, loading it (and starting its watcher) on first use.
+    // Must be called on the JavaFX thread.
+    public static synchronized SharedVault open(Path file, String masterPassword) throws Exception {
+        Path key = file.toAbsolutePath().normalize();
+        SharedVault vault = OPEN.get(key);
+        if (vault == null) {
+            vault = new SharedVault(key, masterPassword);
+            vault.load();
+            vault.startWatching();
+            vault.scanner.start();
+            vault.auditLog.start();
+            OPEN.put(key, vault);
+        } else if (vault.isRekeyed() && !masterPassword.equals(vault.masterPassword)) {
+            vault.rekey(masterPassword);
+        }
+        return vault;
+    }
+
+    // Entries and deletion markers; all changes go through here
+    public Vault getVault() {
+        return vault;
+    }
+
+    // JavaFX mirror of the vault entries for tables and indexes (do not modify)
+    public EntryList getEntries() {
+        return entries;
+    }
+
+    // Background checksum verification of the vault file and its backups
+    public IntegrityScanner getScanner() {
+        return scanner;
+    }
+
+    // Encrypted record of copies, views and changes of entries
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    public String getMasterPassword() {
+        return masterPassword;
+    }
+
+    // The snapshot store in backups/, opened on first use (one key derivation, so not on the FX thread)
+    public synchronized BackupStore getBackupStore() throws Exception {
+        if (backupStore == null) {
+            backupStore = BackupStore.open(backupDir, masterPassword);
+        }
+        return backupStore;
+    }
+
+    // Re-encrypts the vault with a new master password. The keys of the audit log and the backups are
+    // re-wrapped only once the vault file is written: if the save fails, everything keeps the old password.
+    public synchronized void changeMasterPassword(String newMasterPassword) throws Exception {
+        BackupStore backups = ChunkStore.exists(backupDir) ? getBackupStore() : null;   // still opens with the old password
+        String oldMasterPassword = masterPassword;
+        this.masterPassword = newMasterPassword;
+        try {
+            save();
+        } catch (Exception e) {
+            if (!isEncryptedWith(newMasterPassword)) {
+                this.masterPassword = oldMasterPassword;
+                throw e;
+            }
+            // The file was written but its checksums were not: the scanner repairs those on the next load
+            e.printStackTrace();
+        }
+        auditLog.changeMasterPassword(newMasterPassword);
+        if (backups != null) {
+            backups.changeMasterPassword(newMasterPassword);
+        }
+    }
+
+    private boolean isEncryptedWith(String password) {
+        try {
+            String content = readIfExists();
+            return content != null && VaultFormat.decode(content, password) != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Called (on the saving or watcher thread) once the file turns out to be encrypted with another master password
+    public void setRekeyListener(Runnable listener) {
+        this.rekeyListener = listener;
+    }
+
+    public boolean isRekeyed() {
+        return rekeyed;
+    }
+
+    // Continues after another app instance changed the master password. The new password must decrypt the
+    // file; its entries are merged and the changes made here in the meantime are saved with it.
+    public void rekey(String newMasterPassword) throws Exception {
+        synchronized (this) {
+            String content = readIfExists();
+            if (content == null) {
+                throw new IOException("The vault file is missing.");
+            }
+            Map<String, SyncRecord> deletions = new HashMap<>();
+            List<PasswordEntry> incoming = VaultJson.parse(VaultFormat.decode(content, newMasterPassword), deletions);
+            vault.merge(incoming, deletions.values());
+            knownDigest = digest(content);
+            masterPassword = newMasterPassword;
+            // The other instance re-wrapped the keys of the audit log and the backups as well
+            auditLog.masterPasswordChanged(newMasterPassword);
+            rekeyed = false;
+        }
+        save();
+    }
+
+    // The file does not decrypt, but it matches its checksums: it is not damaged, another app instance
+    // wrote it with a new master password
+    private boolean detectRekey() throws Exception {
+        if (IntegrityScanner.verify(file, 0).getStatus() != IntegrityScanner.Status.OK) {
+            return false;
+        }
+        if (!rekeyed) {
+            rekeyed = true;
+            Runnable listener = rekeyListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+        return true;
+    }
+
+    // Encrypts and writes all entries under the cross-process lock (any thread). Synchronized with the
+    // watcher's digest check, so it never sees our new file together with the digest of the previous one.
+    public synchronized void save() throws Exception {
+        if (rekeyed) {
+            throw new IOException(REKEYED_MESSAGE);
+        }
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            // Another process wrote since we last looked: take over its changes first
+            String onDisk = readIfExists();
+            if (onDisk != null && !digest(onDisk).equals(knownDigest)) {
+                Map<String, SyncRecord> deletions = new HashMap<>();
+                List<PasswordEntry> incoming;
+                try {
+                    incoming = VaultJson.parse(VaultFormat.decode(onDisk, masterPassword), deletions);
+                } catch (Exception e) {
+                    if (detectRekey()) {
+                        throw new IOException(REKEYED_MESSAGE, e);
+                    }
+                    // A file that fails its checksums cannot be merged; the entries in memory replace it
+                    if (IntegrityScanner.verify(file, 0).getStatus() != IntegrityScanner.Status.DAMAGED) {
+                        throw e;
+                    }
+                    incoming = new ArrayList<>();
+                }
+                vault.merge(incoming, deletions.values());
+            }
+
+            Vault.Snapshot snapshot = vault.snapshot();
+            String json = VaultJson.serialize(snapshot.getEntries(), snapshot.getTombstones());
+            String encrypted = VaultFormat.encode(json, masterPassword);
+            byte[] data = encrypted.getBytes(StandardCharsets.UTF_8);
+            ChunkStore.writeAtomically(file, data);
+            IntegrityScanner.writeChecksums(file, data);
+            knownDigest = digest(encrypted);
+            scheduleBackup(snapshot);
+        }
+    }
+
+    // Queues a snapshot of the given state. If a snapshot job is already waiting it simply takes the
+    // newer state, so a burst of saves ends up as one snapshot.
+    private void scheduleBackup(Vault.Snapshot snapshot) {
+        if (backupIntervalMillis <= 0) {
+            return;
+        }
+        if (pendingBackup.getAndSet(snapshot) != null) {
+            return;
+        }
+        long delay = Math.max(0, lastBackupMillis + backupIntervalMillis - System.currentTimeMillis());
+        backupExecutor.schedule(this::writeBackup, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Writes a snapshot of the current state right away, e.g. before a restore (not on the FX thread)
+    public void backupNow() throws Exception {
+        writeSnapshot(vault.snapshot());
+    }
+
+    private void writeBackup() {
+        lastBackupMillis = System.currentTimeMillis();
+        try {
+            writeSnapshot(pendingBackup.getAndSet(null));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Snapshots leave out the usage counts: a save that only recorded uses gives the same content (and hash)
+    // as the newest snapshot, so it adds none and does not push real restore points out of the rotation
+    private void writeSnapshot(Vault.Snapshot snapshot) throws Exception {
+        String json = VaultJson.serialize(snapshot.getEntries(), snapshot.getTombstones(), false);
+        getBackupStore().create(json, snapshot.getEntries().size());
+    }
+
+    // Vault listener: brings the mirror up to date for the entries of the change. It copies their current
+    // state from the vault (not the state in the change), so changes applied late or out of order by
+    // Platform.runLater still end in the vault's state.
+    private void mirror(Vault.Change change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        // Without a JavaFX toolkit (command line tools, load tests) there is only the calling thread
+        if (!fxRunning || Platform.isFxApplicationThread()) {
+            applyToMirror(change);
+        } else {
+            Platform.runLater(() -> applyToMirror(change));
+        }
+    }
+
+    // Asking for the JavaFX thread would start the toolkit; runLater only fails if it is not running
+    private static boolean isFxRunning() {
+        try {
+            Platform.runLater(() -> { });
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void applyToMirror(Vault.Change change) {
+        if (change.isReset()) {
+            entries.setAll(vault.entries());
+            return;
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (List<PasswordEntry> part : List.of(change.getAdded(), change.getUpdated(), change.getRemoved())) {
+            for (PasswordEntry entry : part) {
+                ids.add(entry.getId());
+            }
+        }
+        List<PasswordEntry> current = vault.getAll(ids);
+        Map<String, PasswordEntry> currentById = new HashMap<>();
+        for (PasswordEntry entry : current) {
+            currentById.put(entry.getId(), entry);
+        }
+        entries.batch(() -> {
+            List<PasswordEntry> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (String id : ids) {
+                PasswordEntry now = currentById.get(id);
+                int index = entries.indexOf(id);
+                if (now == null) {
+                    if (index >= 0) removed.add(id);
+                } else if (index < 0) {
+                    added.add(now);
+                } else if (entries.get(index) != now) {
+                    entries.set(index, now);
+                }
+            }
+            entries.addAll(added);
+            entries.removeIds(removed);
+        });
+    }
+
+    private void load() throws Exception {
+        String content = readIfExists();
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        String json = VaultFormat.decode(content, masterPassword);
+        Map<String, SyncRecord> tombstones = new HashMap<>();
+        List<PasswordEntry> loaded = VaultJson.parse(json, tombstones);
+        vault.reset(loaded, tombstones.values());
+        knownDigest = digest(content);
+        // The state as found on open is the most valuable snapshot (skipped if it is already the newest)
+        scheduleBackup(vault.snapshot());
+
+        repairChecksums(knownDigest);
+    }
+
+    // Called after the file with this digest passed its AEAD check, so it is intact. If its checksum tree
+    // is missing (vaults from before the trees existed) or does not match (a crash between writing the
+    // file and its checksums), the tree is rewritten; otherwise the scanner would report the good file as
+    // damaged forever. Under the lock, and only if the file is still the one that was checked.
+    private void repairChecksums(String checkedDigest) throws Exception {
+        if (IntegrityScanner.verify(file, 0).isOk()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            String current = readIfExists();
+            if (current != null && digest(current).equals(checkedDigest) && !IntegrityScanner.verify(file, 0).isOk()) {
+                IntegrityScanner.writeChecksums(file, current.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void startWatching() {
+        Thread watcher = new Thread(this::watch, "vault-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch() {
+        try (WatchService watchService = file.getFileSystem().newWatchService()) {
+            Files.createDirectories(file.getParent());
+            file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    checkForExternalChange();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutting down
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Decrypts the file only if its content differs from what we last read or wrote, and merges it
+    // right here on the watcher thread (the mirror follows on the JavaFX thread)
+    private void checkForExternalChange() {
+        try {
+            String content;
+            String digest;
+            synchronized (this) {
+                content = readIfExists();
+                if (content == null || content.isEmpty()) {
+                    return;
+                }
+                digest = digest(content);
+                if (digest.equals(knownDigest)) {
+                    return;
+                }
+            }
+
+            String json;
+            try {
+                json = VaultFormat.decode(content, masterPassword);
+            } catch (Exception e) {
+                if (detectRekey()) {
+                    return;
+                }
+                throw e;
+            }
+            Map<String, SyncRecord> deletions = new HashMap<>();
+            List<PasswordEntry> incoming = VaultJson.parse(json, deletions);
+            synchronized (this) {
+                vault.merge(incoming, deletions.values());
+                knownDigest = digest;
+            }
+            repairChecksums(digest);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String readIfExists() throws Exception {
+        return Files.exists(file) ? Files.readString(file) : null;
+    }
+
+    private static String digest(String content) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
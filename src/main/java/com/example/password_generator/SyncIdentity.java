@@ -0,0 +1,58 @@
+package com.example.password_generator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.UUID;
+
+// Identity of this vault replica: a random replica id (used in version stamps) and the salt
+// of the key that encrypts our sync records. Stored next to the vault, format: replicaId:base64(salt)
+public class SyncIdentity {
+
+    private static final Path CONFIG_PATH = Path.of(
+            System.getenv("APPDATA"),
+            "PasswordGenerator",
+            "sync.config"
+    );
+
+    private static SyncIdentity instance;
+
+    private final String replicaId;
+    private final byte[] salt;
+
+    private SyncIdentity(String replicaId, byte[] salt) {
+        this.replicaId = replicaId;
+        this.salt = salt;
+    }
+
+    // Loads the identity on first use and creates it if this machine has none yet
+    public static synchronized SyncIdentity get() {
+        if (instance == null) {
+            instance = loadOrCreate();
+        }
+        return instance;
+    }
+
+    public String getReplicaId() { return replicaId; }
+    public byte[] getSalt() { return salt.clone(); }
+
+    private static SyncIdentity loadOrCreate() {
+        try {
+            if (Files.exists(CONFIG_PATH)) {
+                String[] parts = Files.readString(CONFIG_PATH).trim().split(":");
+                if (parts.length == 2) {
+                    return new SyncIdentity(parts[0], Base64.getDecoder().decode(parts[1]));
+                }
+            }
+
+            SyncIdentity created = new SyncIdentity(UUID.randomUUID().toString(), CryptoUtils.newSalt());
+            Files.createDirectories(CONFIG_PATH.getParent());
+            Files.writeString(CONFIG_PATH, created.replicaId + ":" + Base64.getEncoder().encodeToString(created.salt));
+            return created;
+        } catch (Exception e) {
+            // Without a writable config we still work, just with a throw-away identity for this session
+            e.printStackTrace();
+            return new SyncIdentity(UUID.randomUUID().toString(), CryptoUtils.newSalt());
+        }
+    }
+}
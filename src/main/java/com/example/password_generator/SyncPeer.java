@@ -0,0 +1,20 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.util.List;
+
+// The other side of a sync exchange (in-memory store or a sync server over a socket)
+public interface SyncPeer {
+
+    // Hashes of the given Merkle tree nodes (same order as the request)
+    List<byte[]> nodeHashes(List<Integer> nodes) throws IOException;
+
+    // Version stamps (no payload) of all records in the given leaf nodes
+    List<SyncRecord> leafStamps(List<Integer> leaves) throws IOException;
+
+    // Full records (with encrypted payload) for the given ids; unknown ids are skipped
+    List<SyncRecord> fetch(List<String> ids) throws IOException;
+
+    // Offers records to the peer; the peer keeps those that are newer than its own copy
+    void store(List<SyncRecord> records) throws IOException;
+}
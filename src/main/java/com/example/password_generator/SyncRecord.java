@@ -0,0 +1,80 @@
+package com.example.password_generator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// One encrypted entry (or deletion marker) as it is exchanged between vault replicas
+public class SyncRecord {
+    private final String id;
+    private final long version;
+    private final String origin;
+    private final boolean deleted;
+
+    // Encrypted entry JSON (salt + IV + ciphertext); null when only the version stamp is transferred
+    private final byte[] payload;
+
+    public SyncRecord(String id, long version, String origin, boolean deleted, byte[] payload) {
+        this.id = id;
+        this.version = version;
+        this.origin = origin == null ? "" : origin;
+        this.deleted = deleted;
+        this.payload = payload;
+    }
+
+    // Deletion marker so that a removed entry is not brought back by an older replica
+    public static SyncRecord tombstone(String id, long version, String origin) {
+        return new SyncRecord(id, version, origin, true, new byte[0]);
+    }
+
+    public String getId() { return id; }
+    public long getVersion() { return version; }
+    public String getOrigin() { return origin; }
+    public boolean isDeleted() { return deleted; }
+    public byte[] getPayload() { return payload; }
+
+    // Same record without payload (what the Merkle tree and the stamp exchange look at)
+    public SyncRecord stampOnly() {
+        return new SyncRecord(id, version, origin, deleted, null);
+    }
+
+    // Conflict resolution: higher version wins, equal versions are decided by the origin replica id,
+    // and on a full tie a deletion beats an edit. Every replica therefore picks the same winner.
+    public boolean isNewerThan(SyncRecord other) {
+        if (other == null) return true;
+        if (version != other.version) return version > other.version;
+        int cmp = origin.compareTo(other.origin);
+        if (cmp != 0) return cmp > 0;
+        return deleted && !other.deleted;
+    }
+
+    // Binary form used by the sync protocol and by the sync server's store file
+    public void writeTo(DataOutputStream out, boolean withPayload) throws IOException {
+        out.writeUTF(id);
+        out.writeLong(version);
+        out.writeUTF(origin);
+        out.writeBoolean(deleted);
+        if (withPayload) {
+            byte[] data = payload == null ? new byte[0] : payload;
+            out.writeInt(data.length);
+            out.write(data);
+        }
+    }
+
+    public static SyncRecord readFrom(DataInputStream in, boolean withPayload) throws IOException {
+        String id = in.readUTF();
+        long version = in.readLong();
+        String origin = in.readUTF();
+        boolean deleted = in.readBoolean();
+        byte[] payload = null;
+        if (withPayload) {
+            int length = in.readInt();
+            if (length < 0 || length > SyncServer.MAX_RECORD_BYTES) {
+                throw new IOException("Invalid record length: " + length);
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        }
+        return new SyncRecord(id, version, origin, deleted, payload);
+    }
+}
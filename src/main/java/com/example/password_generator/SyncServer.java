@@ -0,0 +1,209 @@
+package com.example.password_generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Small local sync server that stands in for a remote replica.
+// It only stores encrypted records and their version stamps, it never sees the master password.
+// Run it as a separate process with: SyncServer <port> [storeFile]
+public class SyncServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7420;
+    static final int MAX_RECORD_BYTES = 1 << 20;   // one entry never gets close to 1 MiB
+    private static final int MAX_ITEMS = 1 << 20;   // upper bound for list sizes in one request
+
+    // Protocol opcodes (one byte per request, followed by the request body)
+    static final int OP_BYE = 0;
+    static final int OP_NODE_HASHES = 1;
+    static final int OP_LEAF_STAMPS = 2;
+    static final int OP_FETCH = 3;
+    static final int OP_STORE = 4;
+
+    private final SyncStore store;
+    private final Path storeFile;
+    private final ServerSocket serverSocket;
+    private volatile boolean running = true;
+
+    public SyncServer(int port, Path storeFile) throws IOException {
+        this.storeFile = storeFile;
+        this.store = new SyncStore(loadRecords(storeFile));
+        // Loopback only: the stand-in is not meant to be reachable from the network
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public SyncStore getStore() {
+        return store;
+    }
+
+    // Starts accepting clients on a daemon thread
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "sync-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket client = serverSocket.accept();
+                Thread handler = new Thread(() -> handle(client), "sync-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Serves requests of one client until it says bye or disconnects
+    private void handle(Socket client) {
+        try (Socket socket = client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            while (true) {
+                int op = in.read();
+                if (op < 0 || op == OP_BYE) {
+                    return;
+                }
+                switch (op) {
+                    case OP_NODE_HASHES: {
+                        List<byte[]> hashes = store.nodeHashes(readInts(in, 2 * MerkleTree.LEAF_COUNT));
+                        out.writeInt(hashes.size());
+                        for (byte[] hash : hashes) {
+                            out.write(hash);
+                        }
+                        break;
+                    }
+                    case OP_LEAF_STAMPS: {
+                        List<Integer> leaves = readInts(in, 2 * MerkleTree.LEAF_COUNT);
+                        for (int leaf : leaves) {
+                            if (!MerkleTree.isLeaf(leaf)) throw new IOException("Not a leaf: " + leaf);
+                        }
+                        writeRecords(out, store.leafStamps(leaves), false);
+                        break;
+                    }
+                    case OP_FETCH: {
+                        int count = readCount(in);
+                        List<String> ids = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            ids.add(in.readUTF());
+                        }
+                        writeRecords(out, store.fetch(ids), true);
+                        break;
+                    }
+                    case OP_STORE: {
+                        List<SyncRecord> incoming = readRecords(in, true);
+                        if (!store.merge(incoming).isEmpty()) {
+                            saveRecords();
+                        }
+                        out.writeInt(incoming.size());
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown opcode: " + op);
+                }
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // client went away mid-request, nothing to clean up
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    // --- Helpers shared with RemoteSyncPeer ---
+
+    static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ITEMS) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+
+    static List<Integer> readInts(DataInputStream in, int maxValue) throws IOException {
+        int count = readCount(in);
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int value = in.readInt();
+            if (value < MerkleTree.ROOT || value >= maxValue) {
+                throw new IOException("Invalid node: " + value);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    static void writeRecords(DataOutputStream out, List<SyncRecord> records, boolean withPayload) throws IOException {
+        out.writeInt(records.size());
+        for (SyncRecord record : records) {
+            record.writeTo(out, withPayload);
+        }
+    }
+
+    static List<SyncRecord> readRecords(DataInputStream in, boolean withPayload) throws IOException {
+        int count = readCount(in);
+        List<SyncRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(SyncRecord.readFrom(in, withPayload));
+        }
+        return records;
+    }
+
+    // --- Optional persistence of the server's records ---
+
+    private static List<SyncRecord> loadRecords(Path file) throws IOException {
+        if (file == null || !Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readRecords(in, true);
+        }
+    }
+
+    private synchronized void saveRecords() throws IOException {
+        if (storeFile == null) {
+            return;
+        }
+        Path tmp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeRecords(out, store.records(), true);
+        }
+        Files.move(tmp, storeFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path file = args.length > 1 ? Path.of(args[1]) : null;
+
+        SyncServer server = new SyncServer(port, file);
+        System.out.println("Sync server listening on 127.0.0.1:" + server.getPort()
+                + " (" + server.getStore().size() + " records)");
+        server.acceptLoop();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.password_generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory set of sync records with its Merkle tree. Used for the local replica,
+// inside the sync server, and directly as an in-memory loopback peer.
+public class SyncStore implements SyncPeer {
+
+    private final Map<String, SyncRecord> records = new HashMap<>();
+    private MerkleTree tree;
+
+    public SyncStore() {
+    }
+
+    public SyncStore(Collection<SyncRecord> initial) {
+        for (SyncRecord record : initial) {
+            records.put(record.getId(), record);
+        }
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    public synchronized List<SyncRecord> records() {
+        return new ArrayList<>(records.values());
+    }
+
+    public synchronized byte[] rootHash() {
+        return tree().hash(MerkleTree.ROOT);
+    }
+
+    @Override
+    public synchronized List<byte[]> nodeHashes(List<Integer> nodes) {
+        MerkleTree t = tree();
+        List<byte[]> hashes = new ArrayList<>(nodes.size());
+        for (int node : nodes) {
+            hashes.add(t.hash(node));
+        }
+        return hashes;
+    }
+
+    @Override
+    public synchronized List<SyncRecord> leafStamps(List<Integer> leaves) {
+        MerkleTree t = tree();
+        List<SyncRecord> stamps = new ArrayList<>();
+        for (int leaf : leaves) {
+            stamps.addAll(t.leafStamps(leaf));
+        }
+        return stamps;
+    }
+
+    @Override
+    public synchronized List<SyncRecord> fetch(List<String> ids) {
+        List<SyncRecord> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            SyncRecord record = records.get(id);
+            if (record != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void store(List<SyncRecord> incoming) {
+        merge(incoming);
+    }
+
+    // Keeps every incoming record that wins against the current copy and returns the accepted ones
+    public synchronized List<SyncRecord> merge(List<SyncRecord> incoming) {
+        List<SyncRecord> accepted = new ArrayList<>();
+        for (SyncRecord record : incoming) {
+            if (record.getPayload() == null) {
+                continue; // stamps alone can never replace a record
+            }
+            if (record.isNewerThan(records.get(record.getId()))) {
+                records.put(record.getId(), record);
+                accepted.add(record);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            tree = null;
+        }
+        return accepted;
+    }
+
+    public synchronized SyncRecord get(String id) {
+        return records.get(id);
+    }
+
+    // The tree is rebuilt lazily after changes
+    private MerkleTree tree() {
+        if (tree == null) {
+            tree = new MerkleTree(records.values());
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,671 @@
+package com.example.password_generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Bitmap index over the tags and folders of the entries, for filters like "prod AND db AND NOT legacy".
+//
+// Every entry gets a slot number; every tag has a compressed bitmap of the slots carrying it. A folder
+// "Team/Backend" is indexed as the keys "folder:team" and "folder:team/backend", so "folder:team"
+// also matches the subfolders. A filter is evaluated with bitwise AND / OR / AND-NOT over these
+// bitmaps (NOT x = all live slots AND-NOT x) and only the matching slots are turned back into entries.
+//
+// Slots are assigned in the order entries are first indexed and are not reused, so matching entries
+// come out in insertion order; an edited entry (same id) keeps its slot. Dead slots are compacted away
+// once they make up a quarter of the index.
+// Not thread-safe: all calls must come from the same (background) thread.
+public class TagIndex {
+
+    private static final String FOLDER_PREFIX = "folder:";
+
+    private final Map<String, Bitmap> bitmaps = new HashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Bitmap live = new Bitmap();
+
+    private PasswordEntry[] entries = new PasswordEntry[16];
+    private String[][] keysBySlot = new String[16][];
+    private int nextSlot = 0;
+    private int deadSlots = 0;
+
+    public int size() {
+        return slotsById.size();
+    }
+
+    // Applies one change of the entry list. An entry that is replaced by a new version (same id)
+    // is updated in its slot instead of being removed and added again.
+    public void update(List<PasswordEntry> removed, List<PasswordEntry> added) {
+        Set<String> addedIds = new HashSet<>();
+        for (PasswordEntry entry : added) {
+            addedIds.add(entry.getId());
+        }
+        for (PasswordEntry entry : removed) {
+            if (!addedIds.contains(entry.getId())) {
+                remove(entry);
+            }
+        }
+        for (PasswordEntry entry : added) {
+            put(entry);
+        }
+    }
+
+    // Adds the entry, or re-indexes the slot of an older version of it
+    public void put(PasswordEntry entry) {
+        Integer existing = slotsById.get(entry.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            unindex(slot);
+        } else {
+            slot = nextSlot++;
+            ensureCapacity(slot);
+            slotsById.put(entry.getId(), slot);
+            live.add(slot);
+        }
+        entries[slot] = entry;
+        keysBySlot[slot] = keysOf(entry);
+        for (String key : keysBySlot[slot]) {
+            bitmaps.computeIfAbsent(key, k -> new Bitmap()).add(slot);
+        }
+    }
+
+    public void remove(PasswordEntry entry) {
+        Integer slot = slotsById.get(entry.getId());
+        if (slot == null || entries[slot] != entry) {
+            return;  // unknown, or already replaced by a newer version
+        }
+        slotsById.remove(entry.getId());
+        unindex(slot);
+        live.remove(slot);
+        entries[slot] = null;
+        keysBySlot[slot] = null;
+        deadSlots++;
+        if (deadSlots > 1024 && deadSlots > nextSlot / 4) {
+            rebuild();
+        }
+    }
+
+    public void clear() {
+        bitmaps.clear();
+        slotsById.clear();
+        live.clear();
+        Arrays.fill(entries, null);
+        Arrays.fill(keysBySlot, null);
+        nextSlot = 0;
+        deadSlots = 0;
+    }
+
+    // Slots of all entries matching the query
+    public Bitmap evaluate(Query query) {
+        return query.evaluate(this);
+    }
+
+    // The entries behind the set bits of a result, in slot order
+    public List<PasswordEntry> entries(Bitmap result) {
+        List<PasswordEntry> list = new ArrayList<>(result.cardinality());
+        result.forEach(slot -> list.add(entries[slot]));
+        return list;
+    }
+
+    public boolean matches(Bitmap result, PasswordEntry entry) {
+        Integer slot = slotsById.get(entry.getId());
+        return slot != null && entries[slot] == entry && result.contains(slot);
+    }
+
+    // Number of entries per tag (folders not included), sorted by tag
+    public Map<String, Integer> tagCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, Bitmap> e : bitmaps.entrySet()) {
+            if (!e.getKey().startsWith(FOLDER_PREFIX) && !e.getValue().isEmpty()) {
+                counts.put(e.getKey(), e.getValue().cardinality());
+            }
+        }
+        return counts;
+    }
+
+    private Bitmap bitmapOf(String key) {
+        Bitmap bitmap = bitmaps.get(key);
+        return bitmap == null ? new Bitmap() : bitmap;
+    }
+
+    private void unindex(int slot) {
+        for (String key : keysBySlot[slot]) {
+            Bitmap bitmap = bitmaps.get(key);
+            bitmap.remove(slot);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    // Drops dead slots by re-indexing the live entries in slot order
+    private void rebuild() {
+        List<PasswordEntry> alive = new ArrayList<>(slotsById.size());
+        for (int i = 0; i < nextSlot; i++) {
+            if (entries[i] != null) alive.add(entries[i]);
+        }
+        clear();
+        for (PasswordEntry entry : alive) {
+            put(entry);
+        }
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < entries.length) {
+            return;
+        }
+        int capacity = Math.max(entries.length * 2, slot + 1);
+        entries = Arrays.copyOf(entries, capacity);
+        keysBySlot = Arrays.copyOf(keysBySlot, capacity);
+    }
+
+    // Index keys of an entry: its tags plus "folder:<path>" for the folder and each parent folder
+    private static String[] keysOf(PasswordEntry entry) {
+        Set<String> keys = new LinkedHashSet<>(entry.getTags());
+        String folder = normalizeFolder(entry.getFolder()).toLowerCase(Locale.ROOT);
+        if (!folder.isEmpty()) {
+            int end = -1;
+            do {
+                end = folder.indexOf('/', end + 1);
+                keys.add(FOLDER_PREFIX + (end < 0 ? folder : folder.substring(0, end)));
+            } while (end >= 0);
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    // Tags as typed by the user ("prod, #db Legacy") -> ["prod", "db", "legacy"].
+    // "and", "or" and "not" are rejected: the filter reads them as operators, so they could never be matched.
+    public static List<String> parseTags(String text) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String word : text.trim().split("[\\s,]+")) {
+            String tag = normalizeTag(word);
+            if (isOperator(tag)) {
+                throw new IllegalArgumentException("\"" + tag + "\" is a filter keyword and cannot be used as a tag.");
+            }
+            if (!tag.isEmpty()) tags.add(tag);
+        }
+        return new ArrayList<>(tags);
+    }
+
+    // Lowercase, without a leading '#' and without the characters the filter syntax uses
+    static String normalizeTag(String word) {
+        String tag = word.toLowerCase(Locale.ROOT).replaceAll("[()\"':]", "");
+        while (tag.startsWith("#")) {
+            tag = tag.substring(1);
+        }
+        return tag;
+    }
+
+    private static boolean isOperator(String tag) {
+        return tag.equals("and") || tag.equals("or") || tag.equals("not");
+    }
+
+    // " Team / Backend/ " -> "Team/Backend" (case is kept for display, the index ignores it)
+    public static String normalizeFolder(String folder) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : folder.split("/")) {
+            String name = part.trim();
+            if (name.isEmpty()) continue;
+            if (sb.length() > 0) sb.append('/');
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+
+    // Parsed tag filter. Grammar (NOT binds tighter than AND, AND tighter than OR; AND may be left out):
+    //   or     := and ("OR" and)*
+    //   and    := not (["AND"] not)*
+    //   not    := "NOT" not | "(" or ")" | tag | "folder:" path
+    public abstract static class Query {
+
+        abstract Bitmap evaluate(TagIndex index);
+
+        public static Query parse(String text) {
+            Parser parser = new Parser(tokenize(text));
+            Query query = parser.parseOr();
+            if (parser.position < parser.tokens.size()) {
+                throw new IllegalArgumentException("Unexpected \"" + parser.tokens.get(parser.position) + "\".");
+            }
+            return query;
+        }
+
+        private static List<String> tokenize(String text) {
+            List<String> tokens = new ArrayList<>();
+            StringBuilder word = new StringBuilder();
+            for (char c : text.toCharArray()) {
+                if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                    if (word.length() > 0) {
+                        tokens.add(word.toString());
+                        word.setLength(0);
+                    }
+                    if (c == '(' || c == ')') tokens.add(String.valueOf(c));
+                } else {
+                    word.append(c);
+                }
+            }
+            if (word.length() > 0) {
+                tokens.add(word.toString());
+            }
+            return tokens;
+        }
+    }
+
+    private static class Parser {
+        final List<String> tokens;
+        int position = 0;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Query parseOr() {
+            Query left = parseAnd();
+            while (accept("OR")) {
+                Query l = left, r = parseAnd();
+                left = new Query() {
+                    Bitmap evaluate(TagIndex index) { return l.evaluate(index).or(r.evaluate(index)); }
+                };
+            }
+            return left;
+        }
+
+        Query parseAnd() {
+            Query left = parseNot();
+            while (position < tokens.size() && !isKeyword("OR") && !tokens.get(position).equals(")")) {
+                accept("AND");
+                Query l = left;
+                // "a AND NOT b" is evaluated as a single AND-NOT instead of complementing b first
+                if (accept("NOT")) {
+                    Query r = parseNot();
+                    left = new Query() {
+                        Bitmap evaluate(TagIndex index) { return l.evaluate(index).andNot(r.evaluate(index)); }
+                    };
+                } else {
+                    Query r = parseNot();
+                    left = new Query() {
+                        Bitmap evaluate(TagIndex index) { return l.evaluate(index).and(r.evaluate(index)); }
+                    };
+                }
+            }
+            return left;
+        }
+
+        Query parseNot() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("The filter ends too early.");
+            }
+            if (accept("NOT")) {
+                Query inner = parseNot();
+                return new Query() {
+                    Bitmap evaluate(TagIndex index) { return index.live.andNot(inner.evaluate(index)); }
+                };
+            }
+            String token = tokens.get(position++);
+            if (token.equals("(")) {
+                Query inner = parseOr();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing \")\".");
+                }
+                return inner;
+            }
+            if (token.equals(")") || token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR")) {
+                throw new IllegalArgumentException("Unexpected \"" + token + "\".");
+            }
+            String key;
+            if (token.toLowerCase(Locale.ROOT).startsWith(FOLDER_PREFIX)) {
+                key = FOLDER_PREFIX + normalizeFolder(token.substring(FOLDER_PREFIX.length())).toLowerCase(Locale.ROOT);
+            } else {
+                key = normalizeTag(token);
+            }
+            return new Query() {
+                Bitmap evaluate(TagIndex index) { return index.bitmapOf(key); }
+            };
+        }
+
+        private boolean isKeyword(String keyword) {
+            return tokens.get(position).equalsIgnoreCase(keyword);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && isKeyword(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Compressed set of slot numbers in the style of Roaring bitmaps: the 32-bit values are split into
+    // chunks of 65536 by their high 16 bits, and each chunk is stored either as a sorted char array
+    // (up to 4096 values, 2 bytes each) or as a 1024-word bitset (dense chunks, 8 KiB).
+    // AND / OR / AND-NOT walk both chunk lists and combine chunk by chunk, word by word for bitsets.
+    public static class Bitmap {
+
+        private static final int ARRAY_MAX = 4096;
+        private static final int WORDS = 1024;
+
+        private char[] keys = new char[0];
+        private Chunk[] chunks = new Chunk[0];
+        private int size = 0;
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int cardinality() {
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                total += chunks[i].cardinality;
+            }
+            return total;
+        }
+
+        public boolean contains(int value) {
+            int i = find((char) (value >>> 16));
+            return i >= 0 && chunks[i].contains((char) value);
+        }
+
+        public void add(int value) {
+            char key = (char) (value >>> 16);
+            int i = find(key);
+            if (i < 0) {
+                i = -i - 1;
+                insertChunk(i, key, new Chunk(new char[4], 0));
+            }
+            chunks[i] = chunks[i].add((char) value);
+        }
+
+        public void remove(int value) {
+            int i = find((char) (value >>> 16));
+            if (i < 0) {
+                return;
+            }
+            Chunk chunk = chunks[i].remove((char) value);
+            if (chunk.cardinality == 0) {
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(chunks, i + 1, chunks, i, size - i - 1);
+                size--;
+            } else {
+                chunks[i] = chunk;
+            }
+        }
+
+        public void clear() {
+            keys = new char[0];
+            chunks = new Chunk[0];
+            size = 0;
+        }
+
+        public void forEach(java.util.function.IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                chunks[i].forEach(keys[i] << 16, action);
+            }
+        }
+
+        public Bitmap and(Bitmap other) {
+            Bitmap result = new Bitmap();
+            int i = 0, j = 0;
+            while (i < size && j < other.size) {
+                if (keys[i] < other.keys[j]) {
+                    i++;
+                } else if (keys[i] > other.keys[j]) {
+                    j++;
+                } else {
+                    result.append(keys[i], Chunk.and(chunks[i++], other.chunks[j++]));
+                }
+            }
+            return result;
+        }
+
+        public Bitmap or(Bitmap other) {
+            Bitmap result = new Bitmap();
+            int i = 0, j = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                    result.append(keys[i], chunks[i++].copy());
+                } else if (i == size || keys[i] > other.keys[j]) {
+                    result.append(other.keys[j], other.chunks[j++].copy());
+                } else {
+                    result.append(keys[i], Chunk.or(chunks[i++], other.chunks[j++]));
+                }
+            }
+            return result;
+        }
+
+        public Bitmap andNot(Bitmap other) {
+            Bitmap result = new Bitmap();
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                while (j < other.size && other.keys[j] < keys[i]) {
+                    j++;
+                }
+                boolean same = j < other.size && other.keys[j] == keys[i];
+                result.append(keys[i], same ? Chunk.andNot(chunks[i], other.chunks[j]) : chunks[i].copy());
+            }
+            return result;
+        }
+
+        private int find(char key) {
+            return Arrays.binarySearch(keys, 0, size, key);
+        }
+
+        // Appends a chunk with a key greater than all present keys (empty chunks are dropped)
+        private void append(char key, Chunk chunk) {
+            if (chunk.cardinality > 0) {
+                insertChunk(size, key, chunk);
+            }
+        }
+
+        private void insertChunk(int i, char key, Chunk chunk) {
+            if (size == keys.length) {
+                int capacity = Math.max(4, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                chunks = Arrays.copyOf(chunks, capacity);
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(chunks, i, chunks, i + 1, size - i);
+            keys[i] = key;
+            chunks[i] = chunk;
+            size++;
+        }
+
+        // The low 16 bits of the values of one chunk: sorted array (values != null) or bitset (words != null)
+        private static class Chunk {
+            char[] values;
+            long[] words;
+            int cardinality;
+
+            Chunk(char[] values, int cardinality) {
+                this.values = values;
+                this.cardinality = cardinality;
+            }
+
+            Chunk(long[] words, int cardinality) {
+                this.words = words;
+                this.cardinality = cardinality;
+            }
+
+            // Picks the smaller representation for a bitset result
+            static Chunk ofWords(long[] words) {
+                int cardinality = 0;
+                for (long word : words) {
+                    cardinality += Long.bitCount(word);
+                }
+                if (cardinality > ARRAY_MAX) {
+                    return new Chunk(words, cardinality);
+                }
+                char[] values = new char[cardinality];
+                int n = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                return new Chunk(values, cardinality);
+            }
+
+            boolean contains(char value) {
+                if (words != null) {
+                    return (words[value >>> 6] & (1L << value)) != 0;
+                }
+                return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+            }
+
+            Chunk add(char value) {
+                if (words != null) {
+                    long bit = 1L << value;
+                    if ((words[value >>> 6] & bit) == 0) {
+                        words[value >>> 6] |= bit;
+                        cardinality++;
+                    }
+                    return this;
+                }
+                int i = Arrays.binarySearch(values, 0, cardinality, value);
+                if (i >= 0) {
+                    return this;
+                }
+                if (cardinality == ARRAY_MAX) {
+                    Chunk dense = new Chunk(toWords(), cardinality);
+                    return dense.add(value);
+                }
+                i = -i - 1;
+                if (cardinality == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length * 2));
+                }
+                System.arraycopy(values, i, values, i + 1, cardinality - i);
+                values[i] = value;
+                cardinality++;
+                return this;
+            }
+
+            Chunk remove(char value) {
+                if (words != null) {
+                    long bit = 1L << value;
+                    if ((words[value >>> 6] & bit) != 0) {
+                        words[value >>> 6] &= ~bit;
+                        cardinality--;
+                    }
+                    // Back to an array only well below the limit, so add/remove at the border does not flip-flop
+                    return cardinality < ARRAY_MAX / 2 ? ofWords(words) : this;
+                }
+                int i = Arrays.binarySearch(values, 0, cardinality, value);
+                if (i >= 0) {
+                    System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                    cardinality--;
+                }
+                return this;
+            }
+
+            void forEach(int high, java.util.function.IntConsumer action) {
+                if (words != null) {
+                    for (int w = 0; w < WORDS; w++) {
+                        long word = words[w];
+                        while (word != 0) {
+                            action.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+                            word &= word - 1;
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < cardinality; i++) {
+                        action.accept(high | values[i]);
+                    }
+                }
+            }
+
+            Chunk copy() {
+                return words != null ? new Chunk(words.clone(), cardinality)
+                        : new Chunk(Arrays.copyOf(values, cardinality), cardinality);
+            }
+
+            long[] toWords() {
+                if (words != null) {
+                    return words.clone();
+                }
+                long[] result = new long[WORDS];
+                for (int i = 0; i < cardinality; i++) {
+                    result[values[i] >>> 6] |= 1L << values[i];
+                }
+                return result;
+            }
+
+            static Chunk and(Chunk a, Chunk b) {
+                if (a.words != null && b.words != null) {
+                    long[] result = new long[WORDS];
+                    for (int w = 0; w < WORDS; w++) {
+                        result[w] = a.words[w] & b.words[w];
+                    }
+                    return ofWords(result);
+                }
+                // At least one side is an array: probe the other side for each of its values
+                Chunk small = a.words == null && (b.words != null || a.cardinality <= b.cardinality) ? a : b;
+                Chunk other = small == a ? b : a;
+                char[] result = new char[small.cardinality];
+                int n = 0;
+                for (int i = 0; i < small.cardinality; i++) {
+                    if (other.contains(small.values[i])) result[n++] = small.values[i];
+                }
+                return new Chunk(result, n);
+            }
+
+            static Chunk or(Chunk a, Chunk b) {
+                if (a.words == null && b.words == null && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                    char[] result = new char[a.cardinality + b.cardinality];
+                    int i = 0, j = 0, n = 0;
+                    while (i < a.cardinality || j < b.cardinality) {
+                        if (j == b.cardinality || (i < a.cardinality && a.values[i] < b.values[j])) {
+                            result[n++] = a.values[i++];
+                        } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                            result[n++] = b.values[j++];
+                        } else {
+                            result[n++] = a.values[i++];
+                            j++;
+                        }
+                    }
+                    return new Chunk(result, n);
+                }
+                long[] result = a.toWords();
+                if (b.words != null) {
+                    for (int w = 0; w < WORDS; w++) {
+                        result[w] |= b.words[w];
+                    }
+                } else {
+                    for (int i = 0; i < b.cardinality; i++) {
+                        result[b.values[i] >>> 6] |= 1L << b.values[i];
+                    }
+                }
+                return ofWords(result);
+            }
+
+            static Chunk andNot(Chunk a, Chunk b) {
+                if (a.words == null) {
+                    char[] result = new char[a.cardinality];
+                    int n = 0;
+                    for (int i = 0; i < a.cardinality; i++) {
+                        if (!b.contains(a.values[i])) result[n++] = a.values[i];
+                    }
+                    return new Chunk(result, n);
+                }
+                long[] result = a.words.clone();
+                if (b.words != null) {
+                    for (int w = 0; w < WORDS; w++) {
+                        result[w] &= ~b.words[w];
+                    }
+                } else {
+                    for (int i = 0; i < b.cardinality; i++) {
+                        result[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+                    }
+                }
+                return ofWords(result);
+            }
+        }
+    }
+}
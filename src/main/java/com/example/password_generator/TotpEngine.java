@@ -0,0 +1,130 @@
+package com.example.password_generator;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Computes TOTP codes (RFC 6238: HMAC-SHA1, 30 second steps, 6 digits) for many secrets.
+// Initialized Mac instances are cached per secret and codes are cached per time step,
+// so rendering the same rows again within a window costs a map lookup.
+// Not thread-safe: used from the JavaFX thread only.
+public class TotpEngine {
+
+    public static final int STEP_SECONDS = 30;
+    private static final int DIGITS = 6;
+    private static final int[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final Map<String, Mac> macs = new HashMap<>();
+    private final Map<String, String> codes = new HashMap<>();
+    private long cachedStep = -1;
+
+    // Code for the secret in the current time step
+    public String code(String secret) {
+        return code(secret, System.currentTimeMillis());
+    }
+
+    public String code(String secret, long timeMillis) {
+        long step = step(timeMillis);
+        if (step != cachedStep) {
+            codes.clear();
+            cachedStep = step;
+        }
+        String code = codes.get(secret);
+        if (code == null) {
+            code = generate(mac(secret), step);
+            codes.put(secret, code);
+        }
+        return code;
+    }
+
+    public static long step(long timeMillis) {
+        return Math.floorDiv(timeMillis, STEP_SECONDS * 1000L);
+    }
+
+    // Milliseconds until the next code change
+    public static long millisUntilNextStep(long timeMillis) {
+        long stepMillis = STEP_SECONDS * 1000L;
+        return stepMillis - Math.floorMod(timeMillis, stepMillis);
+    }
+
+    // Checks whether a string is a usable Base32 secret (spaces and lowercase are tolerated)
+    public static boolean isValidSecret(String secret) {
+        try {
+            return decodeBase32(secret).length > 0;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Forgets cached Mac instances of secrets that are no longer in the vault
+    public void clear() {
+        macs.clear();
+        codes.clear();
+    }
+
+    private Mac mac(String secret) {
+        Mac mac = macs.get(secret);
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance("HmacSHA1");
+                mac.init(new SecretKeySpec(decodeBase32(secret), "HmacSHA1"));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            macs.put(secret, mac);
+        }
+        return mac;
+    }
+
+    // RFC 4226 HOTP value for the counter, with dynamic truncation
+    private static String generate(Mac mac, long counter) {
+        byte[] message = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            message[i] = (byte) counter;
+            counter >>>= 8;
+        }
+        byte[] hash = mac.doFinal(message);
+
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+
+        StringBuilder code = new StringBuilder(Integer.toString(binary % POWERS[DIGITS]));
+        while (code.length() < DIGITS) {
+            code.insert(0, '0');
+        }
+        return code.toString();
+    }
+
+    static byte[] decodeBase32(String secret) {
+        String clean = secret.replace(" ", "").replace("=", "").toUpperCase(Locale.ROOT);
+        byte[] out = new byte[clean.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+
+        for (int i = 0; i < clean.length(); i++) {
+            char c = clean.charAt(i);
+            int value;
+            if (c >= 'A' && c <= 'Z') {
+                value = c - 'A';
+            } else if (c >= '2' && c <= '7') {
+                value = c - '2' + 26;
+            } else {
+                throw new IllegalArgumentException("Invalid Base32 character: " + c);
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                out[index++] = (byte) (buffer >> (bits - 8));
+                bits -= 8;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.password_generator;
+
+// How often and how recently an entry was used (copied, viewed, edited), stored with the entry in the vault.
+// The frecency score is a sum of exponentially decaying weights, one per use, with a half-life of 30 days.
+// It is kept as a log-time key: ln(sum of weight * e^(rate * time of use)). Adding a use is one logAddExp
+// (O(1)), and the keys of all entries stay comparable forever without re-scoring anything as time passes,
+// because the common decay factor e^(-rate * now) does not change the order. score(now) undoes it for display.
+// Shared by all revisions of an entry (see PasswordEntry.revise). Usage is local metadata: recording a use
+// does not stamp the entry, so it never causes a sync conflict.
+public class UsageStats {
+
+    public enum Use {
+        COPY(1.0), VIEW(0.3), EDIT(0.5);
+
+        private final double weight;
+
+        Use(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final double HALF_LIFE_DAYS = 30;
+    private static final double RATE_PER_MILLI = Math.log(2) / (HALF_LIFE_DAYS * 24 * 60 * 60 * 1000);
+    private static final Use[] USES = Use.values();
+
+    private final int[] counts = new int[USES.length];
+    private final long[] lastTimes = new long[USES.length];
+    private volatile double key = Double.NEGATIVE_INFINITY;
+
+    public synchronized void record(Use use, long now) {
+        counts[use.ordinal()]++;
+        lastTimes[use.ordinal()] = now;
+        key = logAddExp(key, Math.log(use.weight) + RATE_PER_MILLI * now);
+    }
+
+    // Ranking key: higher = used more and more recently (-Infinity = never used)
+    public double getKey() { return key; }
+
+    // Decayed score at the given time: 1.0 = one copy right now
+    public double score(long now) {
+        return Math.exp(key - RATE_PER_MILLI * now);
+    }
+
+    public synchronized int getCount(Use use) { return counts[use.ordinal()]; }
+    public synchronized long getLastTime(Use use) { return lastTimes[use.ordinal()]; }
+
+    public synchronized int getTotalCount() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public synchronized long getLastUsed() {
+        long last = 0;
+        for (long time : lastTimes) {
+            last = Math.max(last, time);
+        }
+        return last;
+    }
+
+    public boolean isEmpty() {
+        return key == Double.NEGATIVE_INFINITY;
+    }
+
+    // Takes over uses recorded in another copy of the same entry (another instance, an older snapshot).
+    // The maximum of both sides, so absorbing twice or in any order gives the same result.
+    public void absorb(UsageStats other) {
+        if (other == this || other.isEmpty()) {
+            return;
+        }
+        int[] otherCounts;
+        long[] otherTimes;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherTimes = other.lastTimes.clone();
+        }
+        synchronized (this) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Math.max(counts[i], otherCounts[i]);
+                lastTimes[i] = Math.max(lastTimes[i], otherTimes[i]);
+            }
+            key = Math.max(key, other.key);
+        }
+    }
+
+    // "copies views edits lastCopy lastView lastEdit key" (stored in the vault JSON)
+    public synchronized String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (int count : counts) {
+            sb.append(count).append(' ');
+        }
+        for (long time : lastTimes) {
+            sb.append(time).append(' ');
+        }
+        return sb.append(key).toString();
+    }
+
+    // Unknown or damaged values give empty stats: usage is never worth failing a load for
+    public static UsageStats decode(String text) {
+        UsageStats stats = new UsageStats();
+        if (text == null || text.isBlank()) {
+            return stats;
+        }
+        String[] parts = text.trim().split(" ");
+        if (parts.length != 2 * USES.length + 1) {
+            return stats;
+        }
+        try {
+            for (int i = 0; i < USES.length; i++) {
+                stats.counts[i] = Integer.parseInt(parts[i]);
+                stats.lastTimes[i] = Long.parseLong(parts[USES.length + i]);
+            }
+            stats.key = Double.parseDouble(parts[2 * USES.length]);
+        } catch (NumberFormatException e) {
+            return new UsageStats();
+        }
+        return stats;
+    }
+
+    private static double logAddExp(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) return b;
+        if (b == Double.NEGATIVE_INFINITY) return a;
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+}
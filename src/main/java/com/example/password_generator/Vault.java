@@ -0,0 +1,620 @@
+package com.example.password_generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// The entries and deletion markers of a vault, safe to use from any thread and independent of the UI.
+// SharedVault persists it, the manager window shows a JavaFX mirror of it, the agent and sync read it.
+//
+// Reads are optimistic: they run without locking against concurrent maps and are validated with a
+// StampedLock stamp afterwards. Only if a write committed in the meantime is the read repeated under
+// the read lock, so readers never block each other and a multi-entry read (find, snapshot) never sees
+// half of a batch.
+// Writes are serialized by the write lock and combined: a writer that gets the lock also applies the
+// writes other threads queued meanwhile, so a burst of concurrent writes becomes one commit, one revision
+// and one listener notification. A batch() applies any number of puts and deletes as one commit; if its
+// callback throws, its own changes are rolled back and the combined writes of other threads still commit.
+// A batch callback may read the vault (the thread holds the write lock, so those reads go directly to
+// the maps), but must make its changes through the Batch argument; batch() inside a callback is rejected.
+// Listeners are called after the commit (outside the lock), in commit order, on the thread that
+// committed. They may read the vault but must not write to it. A write returns once the listeners saw
+// its commit, even if another thread committed it.
+public class Vault {
+
+    // At most this many queued writes are combined into one commit
+    private static final int MAX_COMBINED = 256;
+
+    public interface Listener {
+        void vaultChanged(Change change);
+    }
+
+    // Entries touched by one commit; reset = the whole content was replaced (load)
+    public static class Change {
+        private final long revision;
+        private final boolean reset;
+        private final List<PasswordEntry> added;
+        private final List<PasswordEntry> updated;
+        private final List<PasswordEntry> removed;
+
+        Change(long revision, boolean reset, List<PasswordEntry> added, List<PasswordEntry> updated,
+               List<PasswordEntry> removed) {
+            this.revision = revision;
+            this.reset = reset;
+            this.added = added;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        public long getRevision() { return revision; }
+        public boolean isReset() { return reset; }
+        public List<PasswordEntry> getAdded() { return added; }
+        public List<PasswordEntry> getUpdated() { return updated; }   // the new versions
+        public List<PasswordEntry> getRemoved() { return removed; }
+
+        public boolean isEmpty() {
+            return !reset && added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    // A consistent view of the whole vault (entries in insertion order)
+    public static class Snapshot {
+        private final long revision;
+        private final List<PasswordEntry> entries;
+        private final List<SyncRecord> tombstones;
+
+        Snapshot(long revision, List<PasswordEntry> entries, List<SyncRecord> tombstones) {
+            this.revision = revision;
+            this.entries = entries;
+            this.tombstones = tombstones;
+        }
+
+        public long getRevision() { return revision; }
+        public List<PasswordEntry> getEntries() { return entries; }
+        public List<SyncRecord> getTombstones() { return tombstones; }
+    }
+
+    // The modifications of one commit. Only valid inside batch(); reads see the batch's own writes.
+    public class Batch {
+        // id -> entry before this commit (null = did not exist), in the order of the first change
+        private final Map<String, PasswordEntry> before = new LinkedHashMap<>();
+        private boolean reset;
+        private boolean tombstonesChanged;
+
+        // Undo log of the write that is running (one callback of the combined commit): the state before
+        // its first change of each id, so a callback that throws leaves nothing behind
+        private final Map<String, Slot> undoSlots = new HashMap<>();
+        private final Map<String, SyncRecord> undoTombstones = new HashMap<>();
+        private final List<String> undoBefore = new ArrayList<>();
+        // Only if the write cleared everything: the content at that moment (later changes need no log)
+        private Map<String, Slot> undoAllSlots;
+        private Map<String, SyncRecord> undoAllTombstones;
+        private Map<String, PasswordEntry> undoBeforeAll;
+        private long undoNextSeq;
+        private boolean undoReset;
+        private boolean undoTombstonesChanged;
+
+        public PasswordEntry get(String id) {
+            Slot slot = slots.get(id);
+            return slot == null ? null : slot.entry;
+        }
+
+        // Adds the entry or replaces the entry with the same id (which keeps its position)
+        public void put(PasswordEntry entry) {
+            saveSlot(entry.getId());
+            Slot old = slots.get(entry.getId());
+            long seq = old != null ? old.seq : nextSeq++;
+            slots.put(entry.getId(), new Slot(seq, entry));
+            ordered.put(seq, entry);
+            touched(entry.getId(), old);
+        }
+
+        // Removes the entry and leaves a deletion marker for sync; returns the removed entry or null
+        public PasswordEntry delete(String id, String replicaId) {
+            PasswordEntry removed = remove(id);
+            if (removed != null) {
+                putTombstone(SyncRecord.tombstone(id, PasswordEntry.nextVersion(removed.getVersion()), replicaId));
+            }
+            return removed;
+        }
+
+        // Removes the entry without a deletion marker (the caller records one, e.g. a pulled deletion)
+        PasswordEntry remove(String id) {
+            saveSlot(id);
+            Slot old = slots.remove(id);
+            if (old == null) {
+                return null;
+            }
+            ordered.remove(old.seq);
+            touched(id, old);
+            return old.entry;
+        }
+
+        SyncRecord getTombstone(String id) {
+            return tombstones.get(id);
+        }
+
+        void putTombstone(SyncRecord tombstone) {
+            saveTombstone(tombstone.getId());
+            tombstones.put(tombstone.getId(), tombstone);
+            tombstonesChanged = true;
+        }
+
+        void removeTombstone(String id) {
+            saveTombstone(id);
+            tombstonesChanged |= tombstones.remove(id) != null;
+        }
+
+        // Removes all entries and deletion markers (reset)
+        private void clearAll() {
+            if (undoAllSlots == null) {
+                undoAllSlots = new HashMap<>(slots);
+                undoAllTombstones = new HashMap<>(tombstones);
+                undoBeforeAll = new LinkedHashMap<>(before);
+            }
+            slots.clear();
+            ordered.clear();
+            tombstones.clear();
+            before.clear();
+            reset = true;
+        }
+
+        private void touched(String id, Slot old) {
+            if (!before.containsKey(id)) {
+                before.put(id, old == null ? null : old.entry);
+                undoBefore.add(id);
+            }
+        }
+
+        private void saveSlot(String id) {
+            if (undoAllSlots == null && !undoSlots.containsKey(id)) {
+                undoSlots.put(id, slots.get(id));
+            }
+        }
+
+        private void saveTombstone(String id) {
+            if (undoAllSlots == null && !undoTombstones.containsKey(id)) {
+                undoTombstones.put(id, tombstones.get(id));
+            }
+        }
+
+        private void beginWrite() {
+            undoSlots.clear();
+            undoTombstones.clear();
+            undoBefore.clear();
+            undoAllSlots = null;
+            undoAllTombstones = null;
+            undoBeforeAll = null;
+            undoNextSeq = nextSeq;
+            undoReset = reset;
+            undoTombstonesChanged = tombstonesChanged;
+        }
+
+        // Puts back the state from before the running write (still under the write lock, so no reader
+        // validates a stamp that saw the partial changes)
+        private void rollbackWrite() {
+            if (undoAllSlots != null) {
+                slots.clear();
+                ordered.clear();
+                tombstones.clear();
+                for (Map.Entry<String, Slot> saved : undoAllSlots.entrySet()) {
+                    slots.put(saved.getKey(), saved.getValue());
+                    ordered.put(saved.getValue().seq, saved.getValue().entry);
+                }
+                tombstones.putAll(undoAllTombstones);
+            }
+            // Changes made before a clear (or without one)
+            for (Map.Entry<String, Slot> saved : undoSlots.entrySet()) {
+                Slot current = slots.get(saved.getKey());
+                if (current != null) {
+                    ordered.remove(current.seq);
+                }
+                Slot old = saved.getValue();
+                if (old != null) {
+                    slots.put(saved.getKey(), old);
+                    ordered.put(old.seq, old.entry);
+                } else {
+                    slots.remove(saved.getKey());
+                }
+            }
+            for (Map.Entry<String, SyncRecord> saved : undoTombstones.entrySet()) {
+                if (saved.getValue() != null) {
+                    tombstones.put(saved.getKey(), saved.getValue());
+                } else {
+                    tombstones.remove(saved.getKey());
+                }
+            }
+            if (undoBeforeAll != null) {
+                before.clear();
+                before.putAll(undoBeforeAll);
+            } else {
+                undoBefore.forEach(before::remove);
+            }
+            nextSeq = undoNextSeq;
+            reset = undoReset;
+            tombstonesChanged = undoTombstonesChanged;
+        }
+
+        private boolean isEmpty() {
+            return !reset && !tombstonesChanged && before.isEmpty();
+        }
+
+        private Change toChange(long revision) {
+            List<PasswordEntry> added = new ArrayList<>();
+            List<PasswordEntry> updated = new ArrayList<>();
+            List<PasswordEntry> removed = new ArrayList<>();
+            if (!reset) {
+                for (Map.Entry<String, PasswordEntry> change : before.entrySet()) {
+                    PasswordEntry old = change.getValue();
+                    PasswordEntry now = get(change.getKey());
+                    if (old == null && now != null) {
+                        added.add(now);
+                    } else if (old != null && now == null) {
+                        removed.add(old);
+                    } else if (old != now) {
+                        updated.add(now);
+                    }
+                }
+            }
+            return new Change(revision, reset, added, updated, removed);
+        }
+    }
+
+    private static class Slot {
+        final long seq;
+        final PasswordEntry entry;
+
+        Slot(long seq, PasswordEntry entry) {
+            this.seq = seq;
+            this.entry = entry;
+        }
+    }
+
+    // A write waiting for the lock; whoever holds the lock runs it and stores the result here
+    private static class PendingWrite<T> {
+        final Function<Vault.Batch, T> changes;
+        boolean done;          // these fields are written and read under the write lock
+        long revision;         // of the commit that contained the write
+        T result;
+        RuntimeException error;
+
+        PendingWrite(Function<Vault.Batch, T> changes) {
+            this.changes = changes;
+        }
+
+        void run(Vault.Batch batch) {
+            batch.beginWrite();
+            try {
+                result = changes.apply(batch);
+            } catch (RuntimeException e) {
+                batch.rollbackWrite();
+                error = e;
+            }
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, PasswordEntry> ordered = new ConcurrentSkipListMap<>();
+    private final Map<String, SyncRecord> tombstones = new ConcurrentHashMap<>();
+    private final Queue<PendingWrite<?>> pending = new ConcurrentLinkedQueue<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long nextSeq = 0;                  // guarded by the write lock
+    private volatile Thread combiner;          // the thread holding the write lock (StampedLock is not reentrant)
+    private volatile long revision = 0;        // written under the write lock
+
+    // Commit order for listener calls: revision of the last change handed to the listeners
+    private final Object notifyMonitor = new Object();
+    private long notifiedRevision = 0;         // guarded by notifyMonitor
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // ---- Reads (any thread, never blocked by other readers) ----
+
+    public PasswordEntry get(String id) {
+        return read(() -> {
+            Slot slot = slots.get(id);
+            return slot == null ? null : slot.entry;
+        });
+    }
+
+    // The entries with these ids that exist, in the order of the ids
+    public List<PasswordEntry> getAll(Collection<String> ids) {
+        return read(() -> {
+            List<PasswordEntry> found = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Slot slot = slots.get(id);
+                if (slot != null) found.add(slot.entry);
+            }
+            return found;
+        });
+    }
+
+    // All entries matching the filter, in insertion order
+    public List<PasswordEntry> find(Predicate<PasswordEntry> filter) {
+        return read(() -> {
+            List<PasswordEntry> found = new ArrayList<>();
+            for (PasswordEntry entry : ordered.values()) {
+                if (filter.test(entry)) found.add(entry);
+            }
+            return found;
+        });
+    }
+
+    public List<PasswordEntry> entries() {
+        return read(() -> new ArrayList<>(ordered.values()));
+    }
+
+    public List<SyncRecord> getTombstones() {
+        return read(() -> new ArrayList<>(tombstones.values()));
+    }
+
+    public Snapshot snapshot() {
+        return read(() -> new Snapshot(revision, new ArrayList<>(ordered.values()), new ArrayList<>(tombstones.values())));
+    }
+
+    public int size() {
+        return read(slots::size);
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    // Runs the reader without a lock and keeps the result if no write committed in between;
+    // otherwise runs it again under the read lock (waits for the writer, but not for other readers)
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp == 0 && combiner == Thread.currentThread()) {
+            return reader.get();   // a batch callback: this thread holds the write lock, nobody else writes
+        }
+        if (stamp != 0) {
+            T result = reader.get();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // ---- Writes (any thread, serialized) ----
+
+    public void put(PasswordEntry entry) {
+        batch(batch -> {
+            batch.put(entry);
+            return null;
+        });
+    }
+
+    public void putAll(Collection<PasswordEntry> entries) {
+        batch(batch -> {
+            entries.forEach(batch::put);
+            return null;
+        });
+    }
+
+    // Returns the removed entry (null if there was none); leaves a deletion marker for sync
+    public PasswordEntry delete(String id, String replicaId) {
+        return batch(batch -> batch.delete(id, replicaId));
+    }
+
+    // Returns the removed entries
+    public List<PasswordEntry> deleteAll(Collection<String> ids, String replicaId) {
+        return batch(batch -> {
+            List<PasswordEntry> removed = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                PasswordEntry entry = batch.delete(id, replicaId);
+                if (entry != null) removed.add(entry);
+            }
+            return removed;
+        });
+    }
+
+    // Applies all modifications made by `changes` as one commit and returns its result.
+    // `changes` may run on another writer's thread and may read the vault, but must change it only
+    // through its Batch argument. If it throws, its modifications are rolled back and the exception is
+    // rethrown here.
+    public <T> T batch(Function<Batch, T> changes) {
+        if (combiner == Thread.currentThread()) {
+            throw new IllegalStateException("batch() inside a batch callback; use its Batch argument");
+        }
+        PendingWrite<T> write = new PendingWrite<>(changes);
+        pending.add(write);
+        List<Change> committed = new ArrayList<>(1);
+        long stamp = lock.writeLock();
+        combiner = Thread.currentThread();
+        try {
+            // More than one round only if more than MAX_COMBINED writes were queued before ours
+            while (!write.done) {
+                Change change = commitPending();
+                if (change != null) committed.add(change);
+            }
+        } finally {
+            combiner = null;
+            lock.unlockWrite(stamp);
+        }
+        for (Change change : committed) {
+            notifyListeners(change);
+        }
+        // If another thread committed our write, return only after the listeners saw it
+        if (awaitNotified(write.revision)) {
+            Thread.currentThread().interrupt();
+        }
+        if (write.error != null) {
+            throw write.error;
+        }
+        return write.result;
+    }
+
+    // Replaces the whole content (a freshly loaded file)
+    public void reset(Collection<PasswordEntry> entries, Collection<SyncRecord> deletions) {
+        batch(batch -> {
+            batch.clearAll();
+            entries.forEach(batch::put);
+            deletions.forEach(batch::putTombstone);
+            return null;
+        });
+    }
+
+    // Takes over entries and deletions unless the local state is newer; returns the number of changes.
+    // Unchanged entries stay the same objects, so listeners only see the real differences.
+    public int merge(Collection<PasswordEntry> incoming, Collection<SyncRecord> deletions) {
+        return batch(batch -> {
+            int changes = 0;
+            for (PasswordEntry entry : incoming) {
+                SyncRecord stamp = stampOf(entry);
+                PasswordEntry existing = batch.get(entry.getId());
+                if (existing != null) {
+                    if (stamp.isNewerThan(stampOf(existing))) {
+                        entry.getUsage().absorb(existing.getUsage());
+                        batch.put(entry);
+                        changes++;
+                    } else {
+                        existing.getUsage().absorb(entry.getUsage());
+                    }
+                } else if (stamp.isNewerThan(batch.getTombstone(entry.getId()))) {
+                    batch.removeTombstone(entry.getId());
+                    batch.put(entry);
+                    changes++;
+                }
+            }
+            for (SyncRecord deletion : deletions) {
+                PasswordEntry existing = batch.get(deletion.getId());
+                if (existing != null && !deletion.isNewerThan(stampOf(existing))) {
+                    continue;
+                }
+                if (existing != null) {
+                    batch.remove(deletion.getId());
+                    changes++;
+                }
+                if (deletion.isNewerThan(batch.getTombstone(deletion.getId()))) {
+                    batch.putTombstone(deletion);
+                }
+            }
+            return changes;
+        });
+    }
+
+    // Makes the entries of a snapshot the current state. Entries that differ from the snapshot are
+    // replaced by the snapshot version with a new stamp, entries missing in it are deleted, so the
+    // restore wins over older copies on other replicas. Returns the number of changes.
+    public int restore(List<PasswordEntry> snapshotEntries, String replicaId) {
+        return batch(batch -> {
+            Map<String, PasswordEntry> current = new HashMap<>();
+            for (PasswordEntry entry : ordered.values()) {
+                current.put(entry.getId(), entry);
+            }
+
+            int changes = 0;
+            for (PasswordEntry entry : snapshotEntries) {
+                PasswordEntry existing = current.remove(entry.getId());
+                if (existing != null && existing.getVersion() == entry.getVersion()
+                        && existing.getOrigin().equals(entry.getOrigin())) {
+                    continue;   // unchanged since the snapshot
+                }
+                if (existing != null) {
+                    entry.getUsage().absorb(existing.getUsage());   // restoring data does not undo the usage
+                }
+                SyncRecord tombstone = batch.getTombstone(entry.getId());
+                batch.removeTombstone(entry.getId());
+                long newest = Math.max(entry.getVersion(), Math.max(existing == null ? 0 : existing.getVersion(),
+                        tombstone == null ? 0 : tombstone.getVersion()));
+                entry.setVersion(newest);
+                entry.stamp(replicaId);
+                batch.put(entry);
+                changes++;
+            }
+            for (PasswordEntry removed : current.values()) {
+                batch.delete(removed.getId(), replicaId);
+                changes++;
+            }
+            return changes;
+        });
+    }
+
+    static SyncRecord stampOf(PasswordEntry entry) {
+        return new SyncRecord(entry.getId(), entry.getVersion(), entry.getOrigin(), false, null);
+    }
+
+    // Under the write lock: runs the queued writes (ours and those of waiting threads) as one commit
+    private Change commitPending() {
+        Batch batch = new Batch();
+        List<PendingWrite<?>> combined = new ArrayList<>();
+        PendingWrite<?> write;
+        while (combined.size() < MAX_COMBINED && (write = pending.poll()) != null) {
+            write.run(batch);
+            combined.add(write);
+        }
+        Change change = null;
+        if (!batch.isEmpty()) {
+            revision++;
+            change = batch.toChange(revision);
+        }
+        for (PendingWrite<?> done : combined) {
+            done.revision = revision;
+            done.done = true;
+        }
+        return change;
+    }
+
+    // Hands the change to the listeners once all earlier changes were handed over
+    private void notifyListeners(Change change) {
+        boolean interrupted = awaitNotified(change.getRevision() - 1);
+        try {
+            for (Listener listener : listeners) {
+                try {
+                    listener.vaultChanged(change);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();   // one broken listener must not stop the others (or the writer)
+                }
+            }
+        } finally {
+            synchronized (notifyMonitor) {
+                notifiedRevision = change.getRevision();
+                notifyMonitor.notifyAll();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Waits until the listeners saw the given revision; returns whether the thread was interrupted meanwhile
+    private boolean awaitNotified(long revision) {
+        boolean interrupted = false;
+        synchronized (notifyMonitor) {
+            while (notifiedRevision < revision) {
+                try {
+                    notifyMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        return interrupted;
+    }
+}
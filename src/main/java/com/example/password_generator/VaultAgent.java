@@ -0,0 +1,448 @@
+package com.example.password_generator;
+
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Optional local agent: answers credential lookups of scripts and tools from the unlocked vault,
+// so they neither need the master password nor pay a key derivation per request.
+//
+// Transport is a Unix domain socket next to passwords.enc (agent.sock). One selector thread does all
+// socket I/O without blocking; complete requests are answered by a small fixed pool, so many clients
+// share a few threads. Lookups read an immutable index (exact service names plus a DomainIndex for
+// URLs and host names) that is rebuilt whenever the vault changes, so a lookup is a few hash map accesses.
+//
+// Access control: only processes of the same OS user may connect (SO_PEERCRED where the platform
+// supports it, plus owner-only permissions on the socket file). After LOCK_TIMEOUT without lookups, or
+// MAX_UNLOCKED after the vault was last unlocked in the app (however busy clients are), the index is
+// dropped and every lookup answers LOCKED until the vault is unlocked in the app again.
+//
+// Protocol, all integers big endian, strings as u16 length + UTF-8:
+//   request:  u32 length | u8 op | payload          op LOOKUP: string service name, URL or host
+//   response: u32 length | u8 status | payload      OK: u16 count, count x (service, username, password)
+// A result that does not fit these u16 fields (more than 65535 matches or a longer field) is answered
+// with TOO_LARGE instead of being cut off.
+public class VaultAgent {
+
+    public static final byte OP_PING = 1;
+    public static final byte OP_LOOKUP = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NOT_FOUND = 1;
+    public static final byte STATUS_LOCKED = 2;
+    public static final byte STATUS_BAD_REQUEST = 3;
+    public static final byte STATUS_TOO_LARGE = 4;
+
+    static final int MAX_U16 = 0xFFFF;
+
+    static final int MAX_REQUEST_BYTES = 4096;
+    private static final int WORKER_THREADS = 4;
+    private static final long LOCK_TIMEOUT_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("vault.agent.lockMinutes", 15));
+    // A script polling now and then must not keep the vault open for good
+    private static final long MAX_UNLOCKED_MILLIS =
+            TimeUnit.HOURS.toMillis(Long.getLong("vault.agent.maxUnlockedHours", 8));
+
+    private static VaultAgent running;
+
+    private final Path socketPath;
+    private final SharedVault vault;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService lockTimer;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final UserPrincipal owner;
+
+    // Rebuilds the index whenever the vault changes (registered for the agent's lifetime)
+    private final Vault.Listener vaultListener = change -> reindex();
+
+    private volatile Lookup index;   // null while locked
+    private long indexRevision = -1; // vault revision of the newest index built (guarded by this)
+    private volatile boolean locked = true;   // written under this; a queued rebuild checks it there
+    private volatile long unlockedAt;
+    private volatile long lastActivity;
+    private volatile boolean stopped;
+
+    private VaultAgent(Path socketPath, SharedVault vault) throws IOException {
+        this.socketPath = socketPath;
+        this.vault = vault;
+        this.owner = FileSystems.getDefault().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+
+        removeStaleSocket(socketPath);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(socketPath));
+        restrictToOwner(socketPath);
+        this.server.configureBlocking(false);
+        this.selector = Selector.open();
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.workers = Executors.newFixedThreadPool(WORKER_THREADS, daemon("vault-agent-worker"));
+        this.lockTimer = Executors.newSingleThreadScheduledExecutor(daemon("vault-agent-lock"));
+    }
+
+    // Starts the agent for the vault (once per process) and unlocks it. Call on the JavaFX thread.
+    public static synchronized VaultAgent start(Path socketPath, SharedVault vault) throws IOException {
+        if (running == null) {
+            VaultAgent agent = new VaultAgent(socketPath, vault);
+            vault.getVault().addListener(agent.vaultListener);
+            Thread io = new Thread(agent::serve, "vault-agent-io");
+            io.setDaemon(true);
+            io.start();
+            agent.lockTimer.scheduleWithFixedDelay(agent::lockIfIdle, 1, 1, TimeUnit.MINUTES);
+            running = agent;
+        }
+        running.unlock();
+        return running;
+    }
+
+    // The running agent, or null
+    public static synchronized VaultAgent get() {
+        return running;
+    }
+
+    public static synchronized void stopRunning() {
+        if (running != null) {
+            running.stop();
+            running = null;
+        }
+    }
+
+    public boolean isLocked() {
+        return index == null;
+    }
+
+    // Makes the vault available to clients again (the user has just entered the master password)
+    public void unlock() {
+        synchronized (this) {
+            locked = false;
+            unlockedAt = System.currentTimeMillis();
+            lastActivity = unlockedAt;
+        }
+        reindex();
+    }
+
+    public synchronized void lock() {
+        locked = true;
+        index = null;
+        indexRevision = -1;
+    }
+
+    private void stop() {
+        stopped = true;
+        lock();
+        vault.getVault().removeListener(vaultListener);
+        selector.wakeup();
+        workers.shutdownNow();
+        lockTimer.shutdownNow();
+        try {
+            server.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Deletes a socket file left over from a crashed instance. If an agent still answers on it (another
+    // app instance), the socket is not ours to take over.
+    static void removeStaleSocket(Path socketPath) throws IOException {
+        if (!Files.exists(socketPath)) {
+            return;
+        }
+        boolean alive;
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            alive = probe.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            alive = false;   // connection refused: nobody listens any more
+        }
+        if (alive) {
+            throw new IOException("another instance already runs an agent on " + socketPath.getFileName());
+        }
+        Files.deleteIfExists(socketPath);
+    }
+
+    private void lockIfIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastActivity > LOCK_TIMEOUT_MILLIS || now - unlockedAt > MAX_UNLOCKED_MILLIS) {
+            lock();
+        }
+    }
+
+    // Builds the lookup index from a vault snapshot on a worker (called on any thread). Rebuilds can
+    // finish out of order, so an index only replaces one of an older vault revision. A rebuild queued
+    // before lock() finds the agent locked and is dropped, so only unlock() makes the vault available.
+    private void reindex() {
+        if (stopped || locked) {
+            return; // stays locked
+        }
+        workers.execute(() -> {
+            Vault.Snapshot snapshot = vault.getVault().snapshot();
+            Lookup lookup = new Lookup(snapshot.getEntries());
+            synchronized (this) {
+                if (!stopped && !locked && snapshot.getRevision() > indexRevision) {
+                    index = lookup;
+                    indexRevision = snapshot.getRevision();
+                }
+            }
+        });
+    }
+
+    // Selector loop: accepts clients, collects request frames and writes queued responses
+    private void serve() {
+        while (!stopped) {
+            try {
+                selector.select();
+
+                Connection pending;
+                while ((pending = pendingWrites.poll()) != null) {
+                    if (pending.key.isValid()) {
+                        pending.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) ((Connection) key.attachment()).read();
+                        if (key.isValid() && key.isWritable()) ((Connection) key.attachment()).write();
+                    } catch (IOException e) {
+                        key.channel().close(); // client went away or sent garbage
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped) e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = server.accept();
+        if (client == null) {
+            return;
+        }
+        if (!isSameUser(client)) {
+            client.close();
+            return;
+        }
+        client.configureBlocking(false);
+        SelectionKey key = client.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(key));
+    }
+
+    private boolean isSameUser(SocketChannel client) {
+        try {
+            UnixDomainPrincipal peer = client.getOption(ExtendedSocketOptions.SO_PEERCRED);
+            return peer.user().equals(owner);
+        } catch (UnsupportedOperationException | IOException e) {
+            // No peer credentials on this platform (Windows): the socket file lives in the user's
+            // own profile directory, which other users cannot open
+            return true;
+        }
+    }
+
+    // Runs on a worker: one request frame (op + payload) -> one response frame
+    private ByteBuffer handle(ByteBuffer request) {
+        try {
+            byte op = request.get();
+            if (op == OP_PING) {
+                return response(isLocked() ? STATUS_LOCKED : STATUS_OK, null);
+            }
+            if (op != OP_LOOKUP) {
+                return response(STATUS_BAD_REQUEST, null);
+            }
+
+            String service = readString(request);
+            Lookup current = index;
+            if (current == null) {
+                return response(STATUS_LOCKED, null);
+            }
+            lastActivity = System.currentTimeMillis();
+
+            List<PasswordEntry> matches = current.find(service);
+            if (matches.isEmpty()) {
+                return response(STATUS_NOT_FOUND, null);
+            }
+            for (PasswordEntry entry : matches) {
+                vault.getAuditLog().record(AuditLog.Action.AGENT_LOOKUP, entry);
+            }
+            return response(STATUS_OK, matches);
+        } catch (RuntimeException e) {
+            return response(STATUS_BAD_REQUEST, null);
+        }
+    }
+
+    static ByteBuffer response(byte status, List<PasswordEntry> entries) {
+        List<byte[]> strings = new ArrayList<>();
+        int length = 1;
+        if (entries != null) {
+            if (entries.size() > MAX_U16) {
+                return response(STATUS_TOO_LARGE, null);
+            }
+            length += 2;
+            for (PasswordEntry entry : entries) {
+                for (String s : new String[]{entry.getService(), entry.getUsername(), entry.getPassword()}) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > MAX_U16) {
+                        return response(STATUS_TOO_LARGE, null);
+                    }
+                    strings.add(bytes);
+                    length += 2 + bytes.length;
+                }
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(4 + length);
+        out.putInt(length).put(status);
+        if (entries != null) {
+            out.putShort((short) entries.size());
+            for (byte[] bytes : strings) {
+                out.putShort((short) bytes.length).put(bytes);
+            }
+        }
+        return out.flip();
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String normalize(String service) {
+        return service.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Not a POSIX file system; the profile directory's ACL applies
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Immutable after construction: exact service names first, then URL/host matching
+    private static class Lookup {
+        private final Map<String, List<PasswordEntry>> byService = new HashMap<>();
+        private final DomainIndex domains;
+
+        Lookup(List<PasswordEntry> entries) {
+            for (PasswordEntry entry : entries) {
+                byService.computeIfAbsent(normalize(entry.getService()), k -> new ArrayList<>(1)).add(entry);
+            }
+            domains = new DomainIndex(entries);
+        }
+
+        List<PasswordEntry> find(String query) {
+            List<PasswordEntry> matches = byService.get(normalize(query));
+            return matches != null ? matches : domains.lookup(query);
+        }
+    }
+
+    // Per client state: partial request frame, requests waiting for a worker and responses waiting
+    // to be written. A connection is served by at most one worker at a time, so answers keep the order.
+    private class Connection {
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(4 + MAX_REQUEST_BYTES);
+        private final Queue<byte[]> requests = new ConcurrentLinkedQueue<>();
+        private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Connection(SelectionKey key) {
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            if (((SocketChannel) key.channel()).read(in) < 0) {
+                key.channel().close();
+                return;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > MAX_REQUEST_BYTES) {
+                    throw new IOException("Invalid request length " + length);
+                }
+                if (in.remaining() < 4 + length) break;
+
+                in.getInt();
+                byte[] frame = new byte[length];
+                in.get(frame);
+                requests.add(frame);
+            }
+            in.compact();
+            schedule();
+        }
+
+        private void schedule() {
+            if (!requests.isEmpty() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this::answer);
+            }
+        }
+
+        private void answer() {
+            byte[] frame;
+            while ((frame = requests.poll()) != null) {
+                out.add(handle(ByteBuffer.wrap(frame)));
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+            scheduled.set(false);
+            schedule();
+        }
+
+        void write() throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            ByteBuffer next;
+            while ((next = out.peek()) != null) {
+                channel.write(next);
+                if (next.hasRemaining()) {
+                    return; // socket buffer full, continue when writable again
+                }
+                out.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
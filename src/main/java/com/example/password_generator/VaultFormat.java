@@ -0,0 +1,118 @@
+package com.example.password_generator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// On-disk format of passwords.enc: optional deflate stage before the AES-GCM encryption.
+//
+//   legacy / uncompressed:  base64(IV | SALT | CIPHERTEXT(json))
+//   compressed:             "PGV2:deflate1:" + base64(IV | SALT | CIPHERTEXT(deflate(json)))
+//
+// The header is outside of the ciphertext so the reader knows which stage to undo after decryption.
+// Files without header are read exactly as before.
+public class VaultFormat {
+
+    static final String COMPRESSED_HEADER = "PGV2:deflate1:";
+
+    // Small vaults are not worth it: below this size the plain format is written
+    public static final int COMPRESSION_THRESHOLD = 4096;
+
+    // Compression can be switched off with -Dvault.compress=false
+    private static final boolean COMPRESSION_ENABLED =
+            Boolean.parseBoolean(System.getProperty("vault.compress", "true"));
+
+    // Preset dictionary for deflate, primed with the JSON field names and common service names.
+    // Deflate prefers matches close to the end, so the most frequent strings come last.
+    // Changing it requires a new header version ("deflate2"), otherwise old files can no longer be read.
+    private static final byte[] DICTIONARY = (
+            "login.accounts.mail.app.my.secure.portal.admin.api.dev.test.prod.staging.intranet."
+                    + ".org.net.de.io.co.uk.ch.at.fr.edu.gov "
+                    + "adobe.com atlassian.net bitbucket.org discord.com dropbox.com ebay.com "
+                    + "netflix.com spotify.com steampowered.com reddit.com slack.com zoom.us "
+                    + "instagram.com facebook.com twitter.com x.com linkedin.com paypal.com "
+                    + "apple.com icloud.com microsoft.com live.com outlook.com hotmail.com yahoo.com "
+                    + "amazon.com aws.amazon.com gitlab.com github.com google.com gmail.com "
+                    + "https://www.http://.com@gmail.com@outlook.com"
+                    + "\"deleted\":\"true\"},{\"id\":\""
+                    + "\",\"history\":\""
+                    + "\"},{\"id\":\""
+                    + "\",\"version\":\"\",\"origin\":\""
+                    + "\",\"service\":\""
+                    + "\",\"username\":\""
+                    + "\",\"password\":\""
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private VaultFormat() {
+    }
+
+    // Encrypts the vault JSON; compresses first if enabled and the payload is large enough
+    public static String encode(String json, String masterPassword) throws Exception {
+        return encode(json, masterPassword, COMPRESSION_ENABLED && json.length() >= COMPRESSION_THRESHOLD);
+    }
+
+    public static String encode(String json, String masterPassword, boolean compress) throws Exception {
+        if (!compress) {
+            return CryptoUtils.encrypt(json, masterPassword);
+        }
+        byte[] compressed = compress(json.getBytes(StandardCharsets.UTF_8));
+        return COMPRESSED_HEADER + CryptoUtils.encryptBytes(compressed, masterPassword);
+    }
+
+    // Reads both formats: header present -> decrypt + inflate, no header -> plain decrypt
+    public static String decode(String content, String masterPassword) throws Exception {
+        String trimmed = content.trim();
+        if (!trimmed.startsWith(COMPRESSED_HEADER)) {
+            return CryptoUtils.decrypt(trimmed, masterPassword);
+        }
+        byte[] compressed = CryptoUtils.decryptBytes(trimmed.substring(COMPRESSED_HEADER.length()), masterPassword);
+        return new String(decompress(compressed), StandardCharsets.UTF_8);
+    }
+
+    static byte[] compress(byte[] data) {
+        // Level 1: passwords and ids hardly compress, the savings come from the repeated
+        // field names and services, which the fastest level already catches (see VaultBenchmark)
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] decompress(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.needsInput()) {
+                        throw new DataFormatException("Compressed vault data is truncated.");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
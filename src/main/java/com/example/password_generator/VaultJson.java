@@ -0,0 +1,224 @@
+package com.example.password_generator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Minimal JSON format of the vault (entries + deletion markers). Written and parsed by hand on purpose,
+// the format is tiny and fully under our control, so no JSON library is needed.
+public class VaultJson {
+
+    private VaultJson() {
+    }
+
+    // Converts the entries (plus deletion markers) to a minimal JSON array
+    public static String serialize(List<PasswordEntry> entries, Collection<SyncRecord> tombstones) {
+        return serialize(entries, tombstones, true);
+    }
+
+    // Same, optionally without the usage counts (backup snapshots, see SharedVault)
+    public static String serialize(List<PasswordEntry> entries, Collection<SyncRecord> tombstones, boolean withUsage) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            appendEntry(sb, entries.get(i), withUsage);
+        }
+        for (SyncRecord tombstone : tombstones) {
+            if (sb.length() > 1) {
+                sb.append(",");
+            }
+            sb.append("{");
+            sb.append("\"id\":\"").append(escapeJson(tombstone.getId())).append("\",");
+            sb.append("\"version\":\"").append(tombstone.getVersion()).append("\",");
+            sb.append("\"origin\":\"").append(escapeJson(tombstone.getOrigin())).append("\",");
+            sb.append("\"deleted\":\"true\"");
+            sb.append("}");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    // Writes one entry as a JSON object
+    public static void appendEntry(StringBuilder sb, PasswordEntry entry) {
+        appendEntry(sb, entry, true);
+    }
+
+    private static void appendEntry(StringBuilder sb, PasswordEntry entry, boolean withUsage) {
+        sb.append("{");
+        sb.append("\"id\":\"").append(escapeJson(entry.getId())).append("\",");
+        sb.append("\"version\":\"").append(entry.getVersion()).append("\",");
+        sb.append("\"origin\":\"").append(escapeJson(entry.getOrigin())).append("\",");
+        sb.append("\"service\":\"").append(escapeJson(entry.getService())).append("\",");
+        sb.append("\"username\":\"").append(escapeJson(entry.getUsername())).append("\",");
+        sb.append("\"password\":\"").append(escapeJson(entry.getPassword())).append("\"");
+        if (!entry.getHistoryData().isEmpty()) {
+            sb.append(",\"history\":\"").append(entry.getHistoryData()).append("\"");
+        }
+        if (!entry.getTotpSecret().isEmpty()) {
+            sb.append(",\"totp\":\"").append(escapeJson(entry.getTotpSecret())).append("\"");
+        }
+        if (!entry.getAttachmentIds().isEmpty()) {
+            sb.append(",\"attachments\":\"").append(String.join(",", entry.getAttachmentIds())).append("\"");
+        }
+        if (!entry.getUrls().isEmpty()) {
+            // URLs cannot contain spaces, so one space separates them
+            sb.append(",\"urls\":\"").append(escapeJson(String.join(" ", entry.getUrls()))).append("\"");
+        }
+        if (!entry.getPolicy().isEmpty()) {
+            sb.append(",\"policy\":\"").append(escapeJson(entry.getPolicy())).append("\"");
+        }
+        if (!entry.getTags().isEmpty()) {
+            // Tags never contain spaces (see TagIndex.normalizeTag)
+            sb.append(",\"tags\":\"").append(escapeJson(String.join(" ", entry.getTags()))).append("\"");
+        }
+        if (!entry.getFolder().isEmpty()) {
+            sb.append(",\"folder\":\"").append(escapeJson(entry.getFolder())).append("\"");
+        }
+        if (withUsage && !entry.getUsage().isEmpty()) {
+            sb.append(",\"usage\":\"").append(entry.getUsage().encode()).append("\"");
+        }
+        sb.append("}");
+    }
+
+    // Parses the minimal JSON format back into PasswordEntry objects (deletion markers go to tombstonesOut)
+    public static List<PasswordEntry> parse(String json, Map<String, SyncRecord> tombstonesOut) {
+        List<PasswordEntry> entries = new ArrayList<>();
+        String trimmed = json.trim();
+        if (trimmed.length() < 2 || trimmed.charAt(0) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
+            return entries;
+        }
+
+        String content = trimmed.substring(1, trimmed.length() - 1).trim();
+        if (content.isEmpty()) {
+            return entries;
+        }
+
+        String[] objects = content.split("(?<=\\}),(?=\\{)");
+        for (String obj : objects) {
+            String o = obj.trim();
+            if (!o.startsWith("{") || !o.endsWith("}")) {
+                continue;
+            }
+            o = o.substring(1, o.length() - 1);
+
+            if ("true".equals(extractJsonField(o, "deleted"))) {
+                String id = extractJsonField(o, "id");
+                if (id != null) {
+                    tombstonesOut.put(id, SyncRecord.tombstone(id, parseVersion(extractJsonField(o, "version")),
+                            extractJsonField(o, "origin")));
+                }
+                continue;
+            }
+
+            PasswordEntry entry = parseEntry(o);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+
+        return entries;
+    }
+
+    // Builds one entry from the content of a JSON object (without the braces)
+    public static PasswordEntry parseEntry(String o) {
+        String service = extractJsonField(o, "service");
+        String username = extractJsonField(o, "username");
+        String password = extractJsonField(o, "password");
+
+        if (service == null || username == null || password == null) {
+            return null;
+        }
+
+        // Files written before sync support have no ids: derive a stable one from the content,
+        // so that every replica assigns the same id to the same legacy entry
+        String id = extractJsonField(o, "id");
+        if (id == null) {
+            id = UUID.nameUUIDFromBytes((service + "\u0000" + username + "\u0000" + password)
+                    .getBytes(StandardCharsets.UTF_8)).toString();
+        }
+
+        PasswordEntry entry = new PasswordEntry(id, service, username, password);
+        entry.setVersion(parseVersion(extractJsonField(o, "version")));
+        String origin = extractJsonField(o, "origin");
+        if (origin != null) {
+            entry.setOrigin(origin);
+        }
+        entry.setHistoryData(extractJsonField(o, "history"));
+        entry.setTotpSecret(extractJsonField(o, "totp"));
+        String attachments = extractJsonField(o, "attachments");
+        if (attachments != null && !attachments.isEmpty()) {
+            entry.setAttachmentIds(Arrays.asList(attachments.split(",")));
+        }
+        String urls = extractJsonField(o, "urls");
+        if (urls != null && !urls.isBlank()) {
+            entry.setUrls(Arrays.asList(urls.trim().split("\\s+")));
+        }
+        entry.setPolicy(extractJsonField(o, "policy"));
+        String tags = extractJsonField(o, "tags");
+        if (tags != null && !tags.isBlank()) {
+            entry.setTags(Arrays.asList(tags.trim().split("\\s+")));
+        }
+        entry.setFolder(extractJsonField(o, "folder"));
+        entry.setUsage(UsageStats.decode(extractJsonField(o, "usage")));
+        return entry;
+    }
+
+    private static long parseVersion(String value) {
+        try {
+            return value == null ? 0L : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    // Extracts a single string field from a very small JSON object (no full JSON parser on purpose)
+    static String extractJsonField(String objectContent, String fieldName) {
+        String pattern = "\"" + fieldName + "\"" + ":\"";
+        int start = objectContent.indexOf(pattern);
+        if (start < 0) {
+            return null;
+        }
+        start += pattern.length();
+        int end = start;
+        StringBuilder value = new StringBuilder();
+        boolean escaped = false;
+        while (end < objectContent.length()) {
+            char c = objectContent.charAt(end);
+            if (escaped) {
+                value.append(c);
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                break;
+            } else {
+                value.append(c);
+            }
+            end++;
+        }
+        return unescapeJson(value.toString());
+    }
+
+    // Escapes characters that would break the simple JSON representation
+    static String escapeJson(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+
+    // Reverses escapeJson so we get the original strings back
+    private static String unescapeJson(String value) {
+        return value
+                .replace("\\n", "\n")
+                .replace("\\\"", "\"")
+                .replace("\\\\", "\\");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Delta synchronization between the local replica and a peer.
+// Only Merkle subtrees whose hashes differ are descended into, and only records that
+// are missing or older on one side are transferred.
+public class VaultSync {
+
+    // Outcome of one exchange: records the local side accepted + number of records pushed to the peer
+    public static class Result {
+        private final List<SyncRecord> pulled;
+        private final int pushed;
+
+        Result(List<SyncRecord> pulled, int pushed) {
+            this.pulled = pulled;
+            this.pushed = pushed;
+        }
+
+        public List<SyncRecord> getPulled() { return pulled; }
+        public int getPushed() { return pushed; }
+    }
+
+    private VaultSync() {
+    }
+
+    public static Result synchronize(SyncStore local, SyncPeer remote) throws IOException {
+        // 1. Walk down the tree level by level, one round trip per level
+        List<Integer> frontier = Collections.singletonList(MerkleTree.ROOT);
+        List<Integer> differingLeaves = new ArrayList<>();
+
+        while (!frontier.isEmpty()) {
+            List<byte[]> remoteHashes = remote.nodeHashes(frontier);
+            List<byte[]> localHashes = local.nodeHashes(frontier);
+            List<Integer> next = new ArrayList<>();
+
+            for (int i = 0; i < frontier.size(); i++) {
+                if (Arrays.equals(localHashes.get(i), remoteHashes.get(i))) {
+                    continue; // identical subtree, nothing to transfer
+                }
+                int node = frontier.get(i);
+                if (MerkleTree.isLeaf(node)) {
+                    differingLeaves.add(node);
+                } else {
+                    next.add(2 * node);
+                    next.add(2 * node + 1);
+                }
+            }
+            frontier = next;
+        }
+
+        if (differingLeaves.isEmpty()) {
+            return new Result(Collections.emptyList(), 0);
+        }
+
+        // 2. Compare version stamps inside the differing leaves
+        Map<String, SyncRecord> localStamps = byId(local.leafStamps(differingLeaves));
+        Map<String, SyncRecord> remoteStamps = byId(remote.leafStamps(differingLeaves));
+
+        List<String> toPull = new ArrayList<>();
+        List<String> toPush = new ArrayList<>();
+
+        for (SyncRecord theirs : remoteStamps.values()) {
+            if (theirs.isNewerThan(localStamps.get(theirs.getId()))) {
+                toPull.add(theirs.getId());
+            }
+        }
+        for (SyncRecord ours : localStamps.values()) {
+            if (ours.isNewerThan(remoteStamps.get(ours.getId()))) {
+                toPush.add(ours.getId());
+            }
+        }
+
+        // 3. Transfer only the winning records
+        List<SyncRecord> pulled = toPull.isEmpty()
+                ? Collections.emptyList()
+                : local.merge(remote.fetch(toPull));
+
+        if (!toPush.isEmpty()) {
+            remote.store(local.fetch(toPush));
+        }
+
+        return new Result(pulled, toPush.size());
+    }
+
+    private static Map<String, SyncRecord> byId(List<SyncRecord> records) {
+        Map<String, SyncRecord> map = new HashMap<>();
+        for (SyncRecord record : records) {
+            map.put(record.getId(), record);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.password_generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Word list for passphrases, kept as one block of UTF-8 bytes plus word offsets instead of a
+// List<String>: a custom list file is memory-mapped (the OS pages it in on demand), the bundled
+// list is read into a single byte array. Words are only turned into Strings when drawn.
+//
+// Format: one word per line; lines starting with '#' are comments. Diceware style lines
+// ("11111<tab>abacus") are accepted, the last field is the word. Duplicates are rejected,
+// because they would make the entropy readout wrong.
+public class WordList {
+
+    private static final String BUNDLED = "/wordlists/eff_large_wordlist.txt";
+
+    private static WordList bundled;
+
+    private final ByteBuffer data;
+    private final int[] starts;
+    private final int[] ends;
+
+    private WordList(ByteBuffer data) {
+        this.data = data;
+
+        int[] s = new int[1024];
+        int[] e = new int[1024];
+        int count = 0;
+        int limit = data.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && data.get(lineEnd) != '\n') lineEnd++;
+
+            // Trim whitespace / \r and take the last field
+            int end = lineEnd;
+            while (end > lineStart && isSpace(data.get(end - 1))) end--;
+            int start = end;
+            while (start > lineStart && !isSpace(data.get(start - 1))) start--;
+            boolean comment = firstNonSpace(lineStart, lineEnd) == '#';
+
+            if (start < end && !comment) {
+                if (count == s.length) {
+                    s = Arrays.copyOf(s, count * 2);
+                    e = Arrays.copyOf(e, count * 2);
+                }
+                s[count] = start;
+                e[count] = end;
+                count++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        this.starts = Arrays.copyOf(s, count);
+        this.ends = Arrays.copyOf(e, count);
+
+        if (count < 2) {
+            throw new IllegalArgumentException("The word list needs at least two words.");
+        }
+        Set<String> distinct = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (!distinct.add(word(i))) {
+                throw new IllegalArgumentException("The word list contains \"" + word(i) + "\" twice.");
+            }
+        }
+    }
+
+    // The EFF large word list (7776 words, 12.92 bits per word) shipped with the app
+    public static synchronized WordList bundled() throws IOException {
+        if (bundled == null) {
+            try (InputStream in = WordList.class.getResourceAsStream(BUNDLED)) {
+                if (in == null) {
+                    throw new IOException("Missing resource " + BUNDLED);
+                }
+                bundled = new WordList(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        }
+        return bundled;
+    }
+
+    // The list chosen with -Dpassphrase.wordlist=<file>, otherwise the bundled one
+    public static WordList configured() throws IOException {
+        String custom = System.getProperty("passphrase.wordlist");
+        return custom != null ? load(Path.of(custom)) : bundled();
+    }
+
+    // Memory-maps a word list file (the mapping stays valid after the channel is closed)
+    public static WordList load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new WordList(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public String word(int index) {
+        byte[] bytes = new byte[ends[index] - starts[index]];
+        data.get(starts[index], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Entropy of one uniformly drawn word
+    public double bitsPerWord() {
+        return Math.log(size()) / Math.log(2);
+    }
+
+    private int firstNonSpace(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isSpace(data.get(i))) return data.get(i);
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AttachmentStoreTest {
+
+    private static final long TWO_HOURS = 2 * 60 * 60 * 1000;
+
+    @TempDir
+    Path dir;
+
+    // A blob that was just written is not referenced by an entry yet (the add is still in progress)
+    @Test
+    void collectionKeepsRecentUnreferencedBlobs() throws Exception {
+        AttachmentStore store = AttachmentStore.open(dir, "master");
+        byte[] content = randomBytes(300_000);
+        String blobId = store.put(new ByteArrayInputStream(content), "key.pem");
+
+        assertEquals(0, store.collectGarbage(Collections.emptySet()));
+        assertArrayEquals(content, read(store, blobId));
+    }
+
+    @Test
+    void collectionRemovesOldUnreferencedBlobs() throws Exception {
+        AttachmentStore store = AttachmentStore.open(dir, "master");
+        String kept = store.put(new ByteArrayInputStream(randomBytes(200_000)), "kept.bin");
+        String dropped = store.put(new ByteArrayInputStream(randomBytes(250_000)), "dropped.bin");
+        age(dir);
+
+        int removedChunks = store.collectGarbage(Set.of(kept));
+        assertEquals(200_000, read(store, kept).length);
+        assertThrows(Exception.class, () -> store.info(dropped));
+        assertTrue(removedChunks > 0, "chunks of the dropped blob removed");
+    }
+
+    private static byte[] read(AttachmentStore store, String blobId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.get(blobId, out);
+        return out.toByteArray();
+    }
+
+    // Moves the modification time of every file in the store two hours back
+    private static void age(Path dir) throws Exception {
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - TWO_HOURS);
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Files.setLastModifiedTime(file, old);
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogTest {
+
+    private static final String MASTER_PASSWORD = "audit-log-test";
+
+    @TempDir
+    Path dir;
+
+    // A crash in the middle of an append leaves a last line without a newline
+    @Test
+    void tornAppendIsIgnoredAndReplaced() throws Exception {
+        AuditLog log = new AuditLog(dir, MASTER_PASSWORD);
+        log.record(AuditLog.Action.VIEW, "id-1", "example.com");
+        log.flush();
+        Path logFile = dir.resolve("audit.log");
+        Files.write(logFile, "1 123 456 half-a-segm".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertNull(log.verify());
+        assertEquals(1, log.query(null, 0, Long.MAX_VALUE).size());
+
+        // The next app start appends after the last complete segment
+        AuditLog restarted = new AuditLog(dir, MASTER_PASSWORD);
+        restarted.record(AuditLog.Action.COPY_PASSWORD, "id-1", "example.com");
+        restarted.flush();
+        assertNull(restarted.verify());
+        assertEquals(2, restarted.query(null, 0, Long.MAX_VALUE).size());
+        assertTrue(Files.readString(logFile).endsWith("\n"));
+        assertEquals(2, Files.readAllLines(logFile).size());
+    }
+
+    // A damaged line in the middle of the log is still reported
+    @Test
+    void malformedSegmentIsReported() throws Exception {
+        AuditLog log = new AuditLog(dir, MASTER_PASSWORD);
+        log.record(AuditLog.Action.VIEW, "id-1", "example.com");
+        log.flush();
+        Files.write(dir.resolve("audit.log"), "garbage\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals("Segment 1 is malformed.", log.verify());
+    }
+
+    // The chain itself still links after its tail is cut off; the head record must notice
+    @Test
+    void removedTailIsReported() throws Exception {
+        AuditLog log = new AuditLog(dir, MASTER_PASSWORD);
+        for (int i = 0; i < 3; i++) {
+            log.record(AuditLog.Action.VIEW, "id-" + i, "example.com");
+            log.flush();
+        }
+        assertNull(log.verify());
+        Path logFile = dir.resolve("audit.log");
+        List<String> lines = Files.readAllLines(logFile);
+
+        Files.write(logFile, lines.subList(0, 2));
+        assertEquals("Segment 2 is missing from the end of the log.", log.verify());
+
+        Files.write(logFile, lines.subList(0, 1));
+        assertEquals("Segments 1 to 2 are missing from the end of the log.", log.verify());
+
+        Files.write(logFile, new byte[0]);
+        assertEquals("Segments 0 to 2 are missing from the end of the log.", log.verify());
+
+        Files.delete(logFile);
+        assertEquals("The log is missing.", log.verify());
+
+        Files.write(logFile, lines);
+        assertNull(log.verify());
+        Files.delete(dir.resolve("audit.head"));
+        assertEquals("The head record of the log is missing.", log.verify());
+        Files.delete(logFile);
+        assertEquals("The log is missing.", log.verify());
+    }
+
+    // A crash between the log append and the head update leaves the head one segment behind
+    @Test
+    void headBehindTheLogIsAccepted() throws Exception {
+        AuditLog log = new AuditLog(dir, MASTER_PASSWORD);
+        log.record(AuditLog.Action.VIEW, "id-1", "example.com");
+        log.flush();
+        Path headFile = dir.resolve("audit.head");
+        byte[] head = Files.readAllBytes(headFile);
+        log.record(AuditLog.Action.EDIT, "id-1", "example.com");
+        log.flush();
+
+        Files.write(headFile, head);
+        assertNull(log.verify());
+
+        Files.write(headFile, "forged".getBytes(StandardCharsets.UTF_8));
+        assertEquals("The head record of the log was modified.", log.verify());
+    }
+
+    // A batch that decrypts but names no known action is reported, not thrown
+    @Test
+    void unknownActionIsReported() throws Exception {
+        AuditLog log = new AuditLog(dir, MASTER_PASSWORD);
+        log.record(AuditLog.Action.VIEW, "id-1", "example.com");
+        log.flush();
+        Path logFile = dir.resolve("audit.log");
+        String[] parts = Files.readAllLines(logFile).get(0).split(" ");
+        String header = parts[0] + " " + parts[1] + " " + parts[2] + " " + parts[3];
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(header);
+            out.writeInt(1);
+            out.writeLong(Long.parseLong(parts[1]));
+            out.writeByte(200);
+            out.writeUTF("id-1");
+            out.writeUTF("example.com");
+        }
+        byte[] sealed = ChunkStore.open(dir, MASTER_PASSWORD).encrypt(bytes.toByteArray());
+        Files.writeString(logFile, header + " " + Base64.getEncoder().encodeToString(sealed) + "\n");
+
+        assertEquals("Segment 0 was modified.", log.verify());
+    }
+}
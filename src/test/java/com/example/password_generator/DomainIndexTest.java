@@ -0,0 +1,72 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DomainIndexTest {
+
+    @Test
+    void hostNormalization() {
+        assertEquals("login.example.com", DomainIndex.hostOf("https://Login.Example.com:443/x?y#z"));
+        assertEquals("example.com", DomainIndex.hostOf("user:pass@www.example.com."));
+        assertEquals("[::1]", DomainIndex.hostOf("http://[::1]:8080/"));
+        assertEquals("xn--85x722f.xn--55qx5d.cn", DomainIndex.hostOf("食狮.公司.cn"));
+        assertNull(DomainIndex.hostOf("localhost"));
+        assertNull(DomainIndex.hostOf("not a host"));
+
+        // "www." is only dropped when the rest is not a public suffix
+        assertEquals("www.ck", DomainIndex.hostOf("https://www.ck/"));
+        assertEquals("www.co.uk", DomainIndex.hostOf("www.co.uk"));
+    }
+
+    // The same host first, then its parents up to the registrable domain, then the rest of the site
+    @Test
+    void lookupOrdersBySpecificity() {
+        PasswordEntry other = entry("other", "https://shop.example.co.uk");
+        PasswordEntry site = entry("site", "https://example.co.uk");
+        PasswordEntry exact = entry("exact", "https://login.example.co.uk/signin");
+        PasswordEntry foreign = entry("foreign", "https://example.com");
+        DomainIndex index = new DomainIndex(List.of(other, site, exact, foreign));
+
+        assertEquals(List.of(exact, site, other), index.lookup("https://login.example.co.uk/"));
+        assertEquals(List.of(exact, site, other), index.lookup("a.login.example.co.uk"));
+        assertEquals(List.of(site, other, exact), index.lookup("www.example.co.uk"));
+        // co.uk is a public suffix: other .co.uk sites do not match
+        assertEquals(List.of(), index.lookup("https://another.co.uk"));
+
+        index.remove(site);
+        assertEquals(List.of(exact, other), index.lookup("https://login.example.co.uk/"));
+    }
+
+    @Test
+    void sitesFollowWildcardAndExceptionRules() {
+        PasswordEntry alice = entry("alice", "https://alice.github.io");
+        PasswordEntry bob = entry("bob", "https://bob.github.io");
+        PasswordEntry shop = entry("shop", "https://shop.b.test.ck");
+        PasswordEntry c = entry("c", "https://c.test.ck");
+        PasswordEntry www = entry("www", "https://www.ck");
+        DomainIndex index = new DomainIndex(List.of(alice, bob, shop, c, www));
+
+        assertEquals(List.of(alice), index.lookup("docs.alice.github.io"));
+        assertEquals(List.of(shop), index.lookup("https://b.test.ck"));
+        assertEquals(List.of(c), index.lookup("https://login.c.test.ck"));
+        assertEquals(List.of(www), index.lookup("https://mail.www.ck"));
+
+        assertEquals("alice.github.io", DomainIndex.siteOf(alice));
+        assertEquals("b.test.ck", DomainIndex.siteOf(shop));
+        assertEquals("www.ck", DomainIndex.siteOf(www));
+        assertEquals("192.168.1.1", DomainIndex.siteOf(entry("router", "http://192.168.1.1/admin")));
+        // Without a usable URL the service is the group label
+        assertEquals("my router", DomainIndex.siteOf(new PasswordEntry("My Router", "admin", "pw")));
+    }
+
+    private static PasswordEntry entry(String service, String url) {
+        PasswordEntry entry = new PasswordEntry(service, "user", "pw");
+        entry.setUrls(List.of(url));
+        return entry;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntryHistoryTest {
+
+    // Every edit is recoverable, newest first, also after the entry went through the vault JSON
+    @Test
+    void versionsRoundTrip() {
+        PasswordEntry entry = new PasswordEntry("id-1", "example.com", "alice", "pw0");
+        entry = entry.revise("example.com", "alice", "pw1");
+        entry = entry.revise("example.org", "alice", "pw1");
+        entry = entry.revise("example.org", "bob", "pw2");
+
+        String json = VaultJson.serialize(List.of(entry), List.of());
+        PasswordEntry parsed = VaultJson.parse(json, new HashMap<>()).get(0);
+        for (PasswordEntry e : List.of(entry, parsed)) {
+            List<EntryHistory.Version> versions = EntryHistory.versions(e);
+            assertEquals(3, versions.size());
+            assertVersion(versions.get(0), "example.org", "alice", "pw1");
+            assertVersion(versions.get(1), "example.com", "alice", "pw1");
+            assertVersion(versions.get(2), "example.com", "alice", "pw0");
+            assertTrue(versions.get(0).getReplacedAt() >= versions.get(2).getReplacedAt());
+        }
+    }
+
+    @Test
+    void keepsTheNewestMaxVersions() {
+        PasswordEntry entry = new PasswordEntry("id-1", "example.com", "alice", "pw0");
+        int edits = EntryHistory.MAX_VERSIONS + 5;
+        for (int i = 1; i <= edits; i++) {
+            entry = entry.revise("example.com", "alice", "pw" + i);
+        }
+
+        List<EntryHistory.Version> versions = EntryHistory.versions(entry);
+        assertEquals(EntryHistory.MAX_VERSIONS, versions.size());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals("pw" + (edits - 1 - i), versions.get(i).getPassword());
+        }
+    }
+
+    // A delta only holds the fields that differ from the next newer version
+    @Test
+    void unchangedFieldsAreNotStored() throws Exception {
+        String service = "service-" + "s".repeat(500);
+        String username = "user-" + "u".repeat(500);
+        PasswordEntry entry = new PasswordEntry("id-1", service, username, "pw0");
+        entry = entry.revise(service, username, "pw1");
+        entry = entry.revise(service, "other-user", "pw1");
+
+        byte[] compressed = Base64.getDecoder().decode(entry.getHistoryData());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            assertEquals(2, in.readUnsignedByte());
+            in.readLong();
+            assertEquals(2, in.readUnsignedByte());  // USERNAME only
+            assertEquals(username, in.readUTF());
+            in.readLong();
+            assertEquals(4, in.readUnsignedByte());  // PASSWORD only
+            assertEquals("pw0", in.readUTF());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    // Saving without changes must not push a copy of the current state
+    @Test
+    void unchangedEditKeepsTheHistory() {
+        PasswordEntry entry = new PasswordEntry("id-1", "example.com", "alice", "pw0").revise("example.com", "alice", "pw1");
+        PasswordEntry same = entry.revise("example.com", "alice", "pw1");
+
+        assertSame(entry.getHistoryData(), same.getHistoryData());
+        assertEquals(1, EntryHistory.versions(same).size());
+        assertEquals(0, EntryHistory.versions(new PasswordEntry("example.com", "alice", "pw")).size());
+    }
+
+    private static void assertVersion(EntryHistory.Version version, String service, String username, String password) {
+        assertEquals(service, version.getService());
+        assertEquals(username, version.getUsername());
+        assertEquals(password, version.getPassword());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.password_generator;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntryListTest {
+
+    // After every step of a random mix of single and bulk changes (some of them batched), indexOf(id)
+    // must agree with a linear scan, and replaying the change events onto a copy must give the list.
+    // A batch that edits, inserts next to and removes the same entries is one change event.
+    @Test
+    void indexOfMatchesLinearScan() {
+        Random random = new Random(3);
+        EntryList list = new EntryList();
+        List<PasswordEntry> mirror = new ArrayList<>();
+        int[] events = {0};
+        list.addListener((ListChangeListener<PasswordEntry>) c -> {
+            events[0]++;
+            while (c.next()) {
+                mirror.subList(c.getFrom(), c.getFrom() + c.getRemovedSize()).clear();
+                mirror.addAll(c.getFrom(), c.getAddedSubList());
+            }
+        });
+        Set<String> removedIds = new HashSet<>();
+        int[] nextId = {0};
+
+        for (int step = 0; step < 2_000; step++) {
+            events[0] = 0;
+            if (random.nextInt(3) == 0) {
+                list.batch(() -> {
+                    for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                        change(random, list, removedIds, nextId);
+                    }
+                });
+                assertTrue(events[0] <= 1);
+            } else {
+                change(random, list, removedIds, nextId);
+            }
+
+            assertEquals(list, mirror);
+            for (int i = 0; i < list.size(); i++) {
+                PasswordEntry entry = list.get(i);
+                assertEquals(i, list.indexOf(entry.getId()), entry.getId());
+                assertEquals(i, list.indexOf(entry));
+            }
+            for (String id : removedIds) {
+                assertEquals(-1, list.indexOf(id), id);
+            }
+        }
+    }
+
+    private static void change(Random random, EntryList list, Set<String> removedIds, int[] nextId) {
+        int size = list.size();
+        int op = size < 20 ? 0 : random.nextInt(11);
+        switch (op) {
+            case 0:
+                list.addAll(newEntries(1 + random.nextInt(30), nextId));
+                break;
+            case 1:
+                list.add(random.nextInt(size + 1), newEntries(1, nextId).get(0));
+                break;
+            case 2: {
+                // An edit keeps the id; the old version must no longer be found by identity
+                int index = random.nextInt(size);
+                PasswordEntry old = list.get(index);
+                list.set(index, old.revise(old.getService(), old.getUsername(), old.getPassword() + "x"));
+                assertEquals(-1, list.indexOf(old));
+                break;
+            }
+            case 3: {
+                int index = random.nextInt(size);
+                removedIds.add(list.get(index).getId());
+                list.set(index, newEntries(1, nextId).get(0));
+                break;
+            }
+            case 4: {
+                // Unknown and repeated ids are ignored
+                List<String> ids = new ArrayList<>();
+                for (int i = random.nextInt(size / 4); i >= 0; i--) {
+                    ids.add(list.get(random.nextInt(size)).getId());
+                }
+                ids.add("unknown");
+                ids.add(ids.get(0));
+                removedIds.addAll(ids);
+                list.removeIds(ids);
+                break;
+            }
+            case 5:
+                removedIds.add(list.remove(random.nextInt(size)).getId());
+                break;
+            case 6: {
+                int from = random.nextInt(size);
+                int to = Math.min(size, from + random.nextInt(10));
+                for (PasswordEntry entry : list.subList(from, to)) {
+                    removedIds.add(entry.getId());
+                }
+                list.subList(from, to).clear();
+                break;
+            }
+            case 7: {
+                List<PasswordEntry> doomed = new ArrayList<>();
+                for (int i = random.nextInt(5); i >= 0; i--) {
+                    doomed.add(list.get(random.nextInt(size)));
+                }
+                for (PasswordEntry entry : doomed) {
+                    removedIds.add(entry.getId());
+                }
+                list.removeAll(doomed);
+                break;
+            }
+            case 8:
+                list.addAll(random.nextInt(size + 1), newEntries(1 + random.nextInt(5), nextId));
+                break;
+            case 9: {
+                // Edit and then drop the same entries in one call chain
+                int index = random.nextInt(size);
+                PasswordEntry old = list.get(index);
+                list.set(index, old.revise(old.getService(), old.getUsername(), old.getPassword() + "y"));
+                removedIds.add(old.getId());
+                list.removeIds(List.of(old.getId()));
+                break;
+            }
+            default: {
+                // Keep a random half, plus some new entries
+                List<PasswordEntry> kept = new ArrayList<>();
+                for (PasswordEntry entry : list) {
+                    if (random.nextBoolean()) kept.add(entry); else removedIds.add(entry.getId());
+                }
+                kept.addAll(newEntries(random.nextInt(40), nextId));
+                list.setAll(kept);
+                break;
+            }
+        }
+    }
+
+    private static List<PasswordEntry> newEntries(int count, int[] nextId) {
+        List<PasswordEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int n = nextId[0]++;
+            entries.add(new PasswordEntry("id-" + n, "service" + n, "user", "pw"));
+        }
+        return entries;
+    }
+}
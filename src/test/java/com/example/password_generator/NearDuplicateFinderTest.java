@@ -0,0 +1,59 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NearDuplicateFinderTest {
+
+    private static final String ALPHABET = "abcdefghijkmnpqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    // Passwords that differ in one character must end up together even when their buckets are far
+    // larger than the comparison window: many variants of one password share most bigrams
+    @Test
+    void findsSimilarPasswordsInLargeBuckets() {
+        Random random = new Random(42);
+        List<PasswordEntry> entries = new ArrayList<>();
+        String base = randomPassword(random, 14);
+        for (int i = 0; i < 300; i++) {
+            char[] variant = base.toCharArray();
+            variant[random.nextInt(variant.length)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            entries.add(new PasswordEntry("variant" + i + ".example", "user", new String(variant)));
+        }
+        for (int i = 0; i < 300; i++) {
+            entries.add(new PasswordEntry("random" + i + ".example", "user", randomPassword(random, 14)));
+        }
+
+        List<NearDuplicateFinder.Cluster> clusters = NearDuplicateFinder.find(entries);
+
+        assertEquals(1, clusters.size());
+        assertEquals(300, clusters.get(0).getEntries().size());
+        assertEquals(NearDuplicateFinder.Kind.SIMILAR, clusters.get(0).getKind());
+    }
+
+    @Test
+    void sameBaseWord() {
+        List<PasswordEntry> entries = List.of(
+                new PasswordEntry("a.example", "user", "Summer2024!"),
+                new PasswordEntry("b.example", "user", "summer2025"),
+                new PasswordEntry("c.example", "user", "x7Kq9vTz2mPw"));
+
+        List<NearDuplicateFinder.Cluster> clusters = NearDuplicateFinder.find(entries);
+
+        assertEquals(1, clusters.size());
+        assertEquals(NearDuplicateFinder.Kind.SAME_BASE, clusters.get(0).getKind());
+        assertEquals(2, clusters.get(0).getEntries().size());
+    }
+
+    private static String randomPassword(Random random, int length) {
+        StringBuilder password = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            password.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return password.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Statistical check for PolicySampler.
+// For small policies the allowed space is enumerated by brute force: the sampler's count must match
+// exactly, every sample must be inside the space, and a chi-square test over all outcomes must not
+// reject uniformity. The sampler is not seeded, so the level is strict enough that the build does not
+// flake, while a biased sampler still fails by orders of magnitude.
+public class PolicySamplerTest {
+
+    private static final double ALPHA = 1e-4;
+    private static final int SAMPLES_PER_OUTCOME = 40;
+
+    // Two classes with a minimum and a maximum, no repeat limit
+    @Test
+    void minMaxPerClass() {
+        PasswordPolicy policy = small(4, "ABC", "xy", "12", "#");
+        policy.setRange(PasswordPolicy.CharClass.DIGIT, 1, 4);
+        policy.setRange(PasswordPolicy.CharClass.SYMBOL, 0, 1);
+        checkUniform(policy);
+    }
+
+    // Repeat limit: no character more than twice
+    @Test
+    void repeatLimit() {
+        PasswordPolicy policy = small(5, "AB", "", "123", "");
+        policy.setRange(PasswordPolicy.CharClass.DIGIT, 2, 5);
+        policy.setMaxOccurrences(2);
+        checkUniform(policy);
+    }
+
+    // Exclusions and the ambiguity filter shrink the alphabets
+    @Test
+    void excludedAndAmbiguous() {
+        PasswordPolicy policy = small(4, "IOX", "loa", "012", "<>!");
+        policy.setExcluded(policy.getExcluded() + "<>");
+        policy.setExcludeAmbiguous(true);
+        policy.setMaxOccurrences(3);
+        checkUniform(policy);
+    }
+
+    // A policy over tiny alphabets: every base character outside `keep` is excluded
+    private static PasswordPolicy small(int length, String upper, String lower, String digits, String symbols) {
+        PasswordPolicy policy = new PasswordPolicy();
+        policy.setLength(length);
+        policy.setSymbols(symbols);
+        StringBuilder excluded = new StringBuilder();
+        String keep = upper + lower + digits;
+        for (char c : "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray()) {
+            if (keep.indexOf(c) < 0) excluded.append(c);
+        }
+        policy.setExcluded(excluded.toString());
+        for (PasswordPolicy.CharClass c : PasswordPolicy.CharClass.values()) {
+            policy.setRange(c, 0, PasswordPolicy.MAX_LENGTH);
+        }
+        return policy;
+    }
+
+    private static void checkUniform(PasswordPolicy policy) {
+        Set<String> allowed = enumerate(policy);
+        PolicySampler sampler = new PolicySampler(policy);
+        assertEquals(allowed.size(), sampler.combinations(), "combinations of " + policy.encode());
+
+        int samples = allowed.size() * SAMPLES_PER_OUTCOME;
+        Map<String, int[]> observed = new HashMap<>(allowed.size() * 2);
+        for (int i = 0; i < samples; i++) {
+            String password = sampler.next();
+            assertTrue(allowed.contains(password), password + " violates " + policy.encode());
+            observed.computeIfAbsent(password, p -> new int[1])[0]++;
+        }
+
+        double expected = SAMPLES_PER_OUTCOME;
+        double chiSquare = 0;
+        for (String password : allowed) {
+            int[] count = observed.get(password);
+            double diff = (count == null ? 0 : count[0]) - expected;
+            chiSquare += diff * diff / expected;
+        }
+        int df = allowed.size() - 1;
+        double p = chiSquarePValue(chiSquare, df);
+        assertTrue(p >= ALPHA, String.format("uniformity rejected for %s: space %d, chi2 %.1f, df %d, p %.6f",
+                policy.encode(), allowed.size(), chiSquare, df, p));
+    }
+
+    // All strings over the policy's characters that satisfy every rule
+    private static Set<String> enumerate(PasswordPolicy policy) {
+        StringBuilder all = new StringBuilder();
+        for (PasswordPolicy.CharClass c : PasswordPolicy.CharClass.values()) {
+            all.append(policy.alphabet(c));
+        }
+        char[] chars = all.toString().toCharArray();
+        int length = policy.getLength();
+        Set<String> result = new HashSet<>();
+        int[] digits = new int[length];
+        char[] candidate = new char[length];
+        while (true) {
+            for (int i = 0; i < length; i++) {
+                candidate[i] = chars[digits[i]];
+            }
+            if (satisfies(policy, candidate)) {
+                result.add(new String(candidate));
+            }
+            int i = 0;
+            while (i < length && ++digits[i] == chars.length) {
+                digits[i++] = 0;
+            }
+            if (i == length) {
+                return result;
+            }
+        }
+    }
+
+    private static boolean satisfies(PasswordPolicy policy, char[] candidate) {
+        for (PasswordPolicy.CharClass c : PasswordPolicy.CharClass.values()) {
+            String alphabet = policy.alphabet(c);
+            int count = 0;
+            for (char ch : candidate) {
+                if (alphabet.indexOf(ch) >= 0) count++;
+            }
+            if (count < policy.getMin(c) || count > policy.getMax(c)) {
+                return false;
+            }
+        }
+        if (policy.getMaxOccurrences() > 0) {
+            Map<Character, Integer> occurrences = new HashMap<>();
+            for (char ch : candidate) {
+                if (occurrences.merge(ch, 1, Integer::sum) > policy.getMaxOccurrences()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Upper tail of the chi-square distribution (Wilson-Hilferty normal approximation)
+    private static double chiSquarePValue(double chiSquare, int df) {
+        double k = df;
+        double z = (Math.cbrt(chiSquare / k) - (1 - 2 / (9 * k))) / Math.sqrt(2 / (9 * k));
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    // Complementary error function (Numerical Recipes erfcc, relative error < 1.2e-7)
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678784
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PublicSuffixListTest {
+
+    private final PublicSuffixList list = PublicSuffixList.get();
+
+    @Test
+    void plainAndMultiLevelSuffixes() {
+        assertNull(list.registrableDomain("com"));
+        assertEquals("example.com", list.registrableDomain("example.com"));
+        assertEquals("example.com", list.registrableDomain("a.b.example.com"));
+
+        assertNull(list.registrableDomain("uk"));
+        assertNull(list.registrableDomain("co.uk"));
+        assertEquals("example.co.uk", list.registrableDomain("example.co.uk"));
+        assertEquals("example.co.uk", list.registrableDomain("login.example.co.uk"));
+
+        // Private section: every user site is its own registrable domain
+        assertNull(list.registrableDomain("github.io"));
+        assertEquals("alice.github.io", list.registrableDomain("alice.github.io"));
+        assertEquals("alice.github.io", list.registrableDomain("docs.alice.github.io"));
+    }
+
+    // Unlisted TLDs fall back to the default rule "*"
+    @Test
+    void defaultRule() {
+        assertNull(list.registrableDomain("example"));
+        assertEquals("domain.example", list.registrableDomain("domain.example"));
+        assertEquals("domain.example", list.registrableDomain("a.b.domain.example"));
+    }
+
+    // "*.ck" makes every second-level name a suffix, "!www.ck" takes www.ck out again
+    @Test
+    void wildcardAndExceptionRules() {
+        assertNull(list.registrableDomain("ck"));
+        assertNull(list.registrableDomain("test.ck"));
+        assertEquals("b.test.ck", list.registrableDomain("b.test.ck"));
+        assertEquals("b.test.ck", list.registrableDomain("a.b.test.ck"));
+        assertEquals("www.ck", list.registrableDomain("www.ck"));
+        assertEquals("www.ck", list.registrableDomain("www.www.ck"));
+
+        assertNull(list.registrableDomain("test.kawasaki.jp"));
+        assertEquals("b.test.kawasaki.jp", list.registrableDomain("b.test.kawasaki.jp"));
+        assertEquals("city.kawasaki.jp", list.registrableDomain("city.kawasaki.jp"));
+        assertEquals("city.kawasaki.jp", list.registrableDomain("www.city.kawasaki.jp"));
+    }
+
+    // Rules in Unicode are matched against the ASCII (punycode) form of the host
+    @Test
+    void internationalizedRules() {
+        assertNull(list.registrableDomain("xn--55qx5d.cn"));
+        assertEquals("xn--85x722f.xn--55qx5d.cn", list.registrableDomain("xn--85x722f.xn--55qx5d.cn"));
+        assertEquals("xn--85x722f.xn--55qx5d.cn", list.registrableDomain("www.xn--85x722f.xn--55qx5d.cn"));
+    }
+}
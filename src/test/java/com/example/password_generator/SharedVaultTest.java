@@ -0,0 +1,108 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedVaultTest {
+
+    private static final String MASTER_PASSWORD = "shared-vault-test";
+
+    @TempDir
+    Path dir;
+
+    // A crash between writing the vault and writing its checksums leaves a good file with stale checksums
+    @Test
+    void loadRewritesStaleChecksums() throws Exception {
+        Path file = dir.resolve("passwords.enc");
+        String json = VaultJson.serialize(List.of(new PasswordEntry("example.com", "user", "secret")),
+                Collections.emptyList());
+        byte[] data = VaultFormat.encode(json, MASTER_PASSWORD).getBytes(StandardCharsets.UTF_8);
+        Files.write(file, data);
+        IntegrityScanner.writeChecksums(file, "the previous version of the file".getBytes(StandardCharsets.UTF_8));
+        assertEquals(IntegrityScanner.Status.DAMAGED, IntegrityScanner.verify(file, 0).getStatus());
+
+        SharedVault vault = SharedVault.open(file, MASTER_PASSWORD);
+        assertEquals(1, vault.getVault().size());
+        assertEquals(IntegrityScanner.Status.OK, IntegrityScanner.verify(file, 0).getStatus());
+    }
+
+    // The state before a restore must be stored even if a scheduled snapshot is still waiting
+    @Test
+    void backupNowStoresTheCurrentState() throws Exception {
+        SharedVault vault = SharedVault.open(dir.resolve("passwords.enc"), MASTER_PASSWORD);
+        PasswordEntry entry = new PasswordEntry("example.com", "user", "secret");
+        entry.stamp("test");
+        vault.getVault().put(entry);
+
+        vault.backupNow();
+
+        List<BackupStore.Snapshot> snapshots = vault.getBackupStore().list();
+        assertEquals(1, snapshots.size());
+        List<PasswordEntry> content = VaultJson.parse(vault.getBackupStore().read(snapshots.get(0)), new HashMap<>());
+        assertEquals(entry.getId(), content.get(0).getId());
+    }
+
+    // Recorded uses are saved every 30 s; they must not turn into a new snapshot each time
+    @Test
+    void usageOnlyChangesAddNoSnapshot() throws Exception {
+        SharedVault vault = SharedVault.open(dir.resolve("passwords.enc"), MASTER_PASSWORD);
+        PasswordEntry entry = new PasswordEntry("example.com", "user", "secret");
+        entry.stamp("test");
+        vault.getVault().put(entry);
+        vault.backupNow();
+
+        entry.getUsage().record(UsageStats.Use.COPY, System.currentTimeMillis());
+        vault.backupNow();
+
+        assertEquals(1, vault.getBackupStore().list().size());
+    }
+
+    // Another app instance changed the master password: the file still matches its checksums
+    @Test
+    void rekeyedFileStopsSavesUntilTheNewPasswordIsGiven() throws Exception {
+        Path file = dir.resolve("passwords.enc");
+        SharedVault vault = SharedVault.open(file, MASTER_PASSWORD);
+        PasswordEntry local = new PasswordEntry("local.example", "user", "secret");
+        local.stamp("here");
+        vault.getVault().put(local);
+        vault.save();
+
+        PasswordEntry remote = new PasswordEntry("remote.example", "user", "secret");
+        remote.stamp("there");
+        String json = VaultJson.serialize(List.of(remote), Collections.emptyList());
+        byte[] data = VaultFormat.encode(json, "new-password").getBytes(StandardCharsets.UTF_8);
+        Files.write(file, data);
+        IntegrityScanner.writeChecksums(file, data);
+
+        AtomicInteger notified = new AtomicInteger();
+        vault.setRekeyListener(notified::incrementAndGet);
+        assertThrows(IOException.class, vault::save);
+        assertThrows(IOException.class, vault::save);
+        assertTrue(vault.isRekeyed());
+        assertEquals(1, notified.get());
+        assertArrayEquals(data, Files.readAllBytes(file), "the file written with the new password is kept");
+
+        assertThrows(Exception.class, () -> vault.rekey("wrong-password"));
+        assertTrue(vault.isRekeyed());
+
+        vault.rekey("new-password");
+        assertFalse(vault.isRekeyed());
+        List<PasswordEntry> saved = VaultJson.parse(VaultFormat.decode(Files.readString(file), "new-password"), new HashMap<>());
+        assertEquals(2, saved.size());
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TagIndexTest {
+
+    private static final String[] TAGS = {"a", "b", "c", "d", "e", "f"};
+
+    // Random filters over 70000 entries (two bitmap chunks) must match a plain scan of the entries.
+    // The tag densities are chosen so some chunks are arrays and some bitsets, and the re-tagging
+    // pass turns dense tags sparse and sparse ones dense, so chunks convert in both directions.
+    @Test
+    void evaluateMatchesBruteForce() {
+        Random random = new Random(7);
+        TagIndex index = new TagIndex();
+        Map<String, PasswordEntry> model = new LinkedHashMap<>();
+
+        double[] densities = {0.5, 0.05, 0.07, 0.01, 0.3, 0.002};
+        for (int i = 0; i < 70_000; i++) {
+            PasswordEntry entry = entry("id" + i, random, densities);
+            model.put(entry.getId(), entry);
+            index.put(entry);
+        }
+        checkRandomQueries(index, model, random);
+
+        // Swap the densities for most entries, and drop some entries altogether
+        double[] swapped = {0.002, 0.3, 0.01, 0.07, 0.05, 0.5};
+        List<String> ids = new ArrayList<>(model.keySet());
+        for (String id : ids) {
+            int roll = random.nextInt(10);
+            if (roll < 7) {
+                PasswordEntry entry = entry(id, random, swapped);
+                model.put(id, entry);
+                index.put(entry);
+            } else if (roll < 9) {
+                index.remove(model.remove(id));
+            }
+        }
+        assertEquals(model.size(), index.size());
+        checkRandomQueries(index, model, random);
+    }
+
+    @Test
+    void bitmapOperationsMatchBitSet() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            BitSet x = new BitSet(), y = new BitSet();
+            TagIndex.Bitmap bx = new TagIndex.Bitmap(), by = new TagIndex.Bitmap();
+            fill(random, x, bx);
+            fill(random, y, by);
+
+            BitSet and = (BitSet) x.clone();
+            and.and(y);
+            BitSet or = (BitSet) x.clone();
+            or.or(y);
+            BitSet andNot = (BitSet) x.clone();
+            andNot.andNot(y);
+
+            assertEquals(and, toBitSet(bx.and(by)));
+            assertEquals(or, toBitSet(bx.or(by)));
+            assertEquals(andNot, toBitSet(bx.andNot(by)));
+            assertEquals(x.cardinality(), bx.cardinality());
+        }
+    }
+
+    @Test
+    void parserPrecedence() {
+        TagIndex index = new TagIndex();
+        Map<String, PasswordEntry> model = new LinkedHashMap<>();
+        // Every combination of the tags a, b and c
+        for (int mask = 0; mask < 8; mask++) {
+            PasswordEntry entry = new PasswordEntry("id" + mask, "service" + mask, "user", "pw");
+            List<String> tags = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                if ((mask & (1 << t)) != 0) tags.add(TAGS[t]);
+            }
+            entry.setTags(tags);
+            entry.setFolder(mask % 2 == 0 ? "Team/Backend" : "Team");
+            model.put(entry.getId(), entry);
+            index.put(entry);
+        }
+
+        check(index, model, "a OR b c", tags -> tags.contains("a") || (tags.contains("b") && tags.contains("c")));
+        check(index, model, "a b OR c", tags -> (tags.contains("a") && tags.contains("b")) || tags.contains("c"));
+        check(index, model, "NOT (a OR b)", tags -> !tags.contains("a") && !tags.contains("b"));
+        check(index, model, "NOT a OR b", tags -> !tags.contains("a") || tags.contains("b"));
+        check(index, model, "NOT a b", tags -> !tags.contains("a") && tags.contains("b"));
+        check(index, model, "a AND NOT b", tags -> tags.contains("a") && !tags.contains("b"));
+        check(index, model, "not not A", tags -> tags.contains("a"));
+        check(index, model, "(a OR b) AND (b OR c)",
+                tags -> (tags.contains("a") || tags.contains("b")) && (tags.contains("b") || tags.contains("c")));
+
+        // "folder:team" also matches the subfolder, "folder:team/backend" only the subfolder (even masks)
+        assertEquals(8, index.evaluate(TagIndex.Query.parse("folder:team")).cardinality());
+        assertEquals(4, index.evaluate(TagIndex.Query.parse("folder:Team/Backend")).cardinality());
+        assertEquals(1, index.evaluate(TagIndex.Query.parse("folder:team/backend b c")).cardinality());
+
+        for (String bad : new String[] {"(a OR b", "a OR b)", "a ) (", "()", "a OR", "AND a", "NOT", "a (b"}) {
+            assertThrows(IllegalArgumentException.class, () -> TagIndex.Query.parse(bad), bad);
+        }
+    }
+
+    // Tags the filter would read as operators are refused instead of being stored unmatchable
+    @Test
+    void keywordTagsAreRejected() {
+        assertEquals(List.of("prod", "db", "legacy", "android"), TagIndex.parseTags("prod, #db Legacy android"));
+        for (String text : new String[] {"prod and", "OR", "#Not", "db,(and)"}) {
+            assertThrows(IllegalArgumentException.class, () -> TagIndex.parseTags(text), text);
+        }
+    }
+
+    private static PasswordEntry entry(String id, Random random, double[] densities) {
+        PasswordEntry entry = new PasswordEntry(id, "service", "user", "pw");
+        List<String> tags = new ArrayList<>();
+        for (int t = 0; t < TAGS.length; t++) {
+            if (random.nextDouble() < densities[t]) tags.add(TAGS[t]);
+        }
+        entry.setTags(tags);
+        return entry;
+    }
+
+    private static void checkRandomQueries(TagIndex index, Map<String, PasswordEntry> model, Random random) {
+        for (int i = 0; i < 60; i++) {
+            StringBuilder text = new StringBuilder();
+            Predicate<Set<String>> expected = randomQuery(random, 3, text);
+            check(index, model, text.toString(), expected);
+        }
+    }
+
+    // Builds a random, fully parenthesized filter and the predicate it should stand for
+    private static Predicate<Set<String>> randomQuery(Random random, int depth, StringBuilder text) {
+        int kind = depth == 0 ? 0 : random.nextInt(5);
+        switch (kind) {
+            case 1: {
+                text.append("NOT ");
+                Predicate<Set<String>> inner = randomQuery(random, depth - 1, text);
+                return inner.negate();
+            }
+            case 2:
+            case 3: {
+                text.append('(');
+                Predicate<Set<String>> left = randomQuery(random, depth - 1, text);
+                text.append(random.nextBoolean() ? " AND " : " ");
+                Predicate<Set<String>> right = randomQuery(random, depth - 1, text);
+                text.append(')');
+                return left.and(right);
+            }
+            case 4: {
+                text.append('(');
+                Predicate<Set<String>> left = randomQuery(random, depth - 1, text);
+                text.append(" OR ");
+                Predicate<Set<String>> right = randomQuery(random, depth - 1, text);
+                text.append(')');
+                return left.or(right);
+            }
+            default: {
+                // "zz" is on no entry
+                String tag = random.nextInt(8) == 0 ? "zz" : TAGS[random.nextInt(TAGS.length)];
+                text.append(random.nextBoolean() ? tag : "#" + tag.toUpperCase());
+                return tags -> tags.contains(tag);
+            }
+        }
+    }
+
+    private static void check(TagIndex index, Map<String, PasswordEntry> model, String query,
+                              Predicate<Set<String>> expected) {
+        List<String> want = new ArrayList<>();
+        for (PasswordEntry entry : model.values()) {
+            if (expected.test(Set.copyOf(entry.getTags()))) want.add(entry.getId());
+        }
+        List<String> got = new ArrayList<>();
+        for (PasswordEntry entry : index.entries(index.evaluate(TagIndex.Query.parse(query)))) {
+            got.add(entry.getId());
+        }
+        assertEquals(want, got, query);
+    }
+
+    // Values 60000..139999 span three chunks; each chunk is dense (a bitset) or sparse (an array)
+    private static void fill(Random random, BitSet set, TagIndex.Bitmap bitmap) {
+        double[] densities = new double[3];
+        for (int chunk = 0; chunk < 3; chunk++) {
+            densities[chunk] = random.nextBoolean() ? 0.6 : 0.03;
+        }
+        for (int value = 60_000; value < 140_000; value++) {
+            if (random.nextDouble() < densities[value >>> 16]) {
+                set.set(value);
+                bitmap.add(value);
+            }
+        }
+    }
+
+    private static BitSet toBitSet(TagIndex.Bitmap bitmap) {
+        BitSet set = new BitSet();
+        bitmap.forEach(set::set);
+        return set;
+    }
+}
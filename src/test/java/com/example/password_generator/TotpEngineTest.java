@@ -0,0 +1,70 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TotpEngineTest {
+
+    // The ASCII secret "12345678901234567890" of RFC 6238, Base32 encoded
+    private static final String RFC_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+    // RFC 6238 Appendix B, SHA-1 column; the RFC lists 8 digits, the last 6 are the 6 digit code
+    @Test
+    void rfc6238Vectors() {
+        assertArrayEquals("12345678901234567890".getBytes(StandardCharsets.US_ASCII),
+                TotpEngine.decodeBase32(RFC_SECRET));
+
+        long[] seconds = {59L, 1111111109L, 1111111111L, 1234567890L, 2000000000L, 20000000000L};
+        String[] codes = {"287082", "081804", "050471", "005924", "279037", "353130"};
+        TotpEngine engine = new TotpEngine();
+        for (int i = 0; i < seconds.length; i++) {
+            assertEquals(codes[i], engine.code(RFC_SECRET, seconds[i] * 1000), "T=" + seconds[i]);
+        }
+    }
+
+    // Cached codes must not leak across time steps or between secrets
+    @Test
+    void cacheFollowsStepAndSecret() {
+        TotpEngine engine = new TotpEngine();
+        String lowercase = RFC_SECRET.toLowerCase();
+        assertEquals("287082", engine.code(RFC_SECRET, 59_000));
+        assertEquals("287082", engine.code(lowercase, 30_000));
+        assertEquals("287082", engine.code(RFC_SECRET, 59_999));
+        assertEquals(new TotpEngine().code(RFC_SECRET, 60_000), engine.code(RFC_SECRET, 60_000));
+        assertEquals("081804", engine.code(lowercase, 1111111109L * 1000));
+
+        assertEquals(1, TotpEngine.step(59_999));
+        assertEquals(2, TotpEngine.step(60_000));
+        assertEquals(1, TotpEngine.millisUntilNextStep(59_999));
+        assertEquals(30_000, TotpEngine.millisUntilNextStep(60_000));
+    }
+
+    @Test
+    void base32Decoding() {
+        byte[] foobar = "foobar".getBytes(StandardCharsets.US_ASCII);
+        // RFC 4648 test vectors, with and without padding
+        assertArrayEquals("f".getBytes(StandardCharsets.US_ASCII), TotpEngine.decodeBase32("MY======"));
+        assertArrayEquals("fo".getBytes(StandardCharsets.US_ASCII), TotpEngine.decodeBase32("MZXQ===="));
+        assertArrayEquals("foo".getBytes(StandardCharsets.US_ASCII), TotpEngine.decodeBase32("MZXW6==="));
+        assertArrayEquals("foob".getBytes(StandardCharsets.US_ASCII), TotpEngine.decodeBase32("MZXW6YQ="));
+        assertArrayEquals("fooba".getBytes(StandardCharsets.US_ASCII), TotpEngine.decodeBase32("MZXW6YTB"));
+        assertArrayEquals(foobar, TotpEngine.decodeBase32("MZXW6YTBOI======"));
+        assertArrayEquals(foobar, TotpEngine.decodeBase32("MZXW6YTBOI"));
+        // Lowercase and the grouping authenticator apps show
+        assertArrayEquals(foobar, TotpEngine.decodeBase32("mzxw6ytboi"));
+        assertArrayEquals(foobar, TotpEngine.decodeBase32("mzxw 6ytb oi=="));
+
+        assertThrows(IllegalArgumentException.class, () -> TotpEngine.decodeBase32("MZXW1"));
+        assertTrue(TotpEngine.isValidSecret("gezd gnbv gy3t qojq"));
+        assertFalse(TotpEngine.isValidSecret("MZXW0"));
+        assertFalse(TotpEngine.isValidSecret("M"));
+        assertFalse(TotpEngine.isValidSecret("  "));
+    }
+}
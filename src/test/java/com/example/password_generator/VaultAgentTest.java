@@ -0,0 +1,85 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VaultAgentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void staleSocketIsRemoved() throws Exception {
+        Path socket = dir.resolve("agent.sock");
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+        }
+        assertTrue(Files.exists(socket), "closing the channel leaves the socket file behind");
+
+        VaultAgent.removeStaleSocket(socket);
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void socketOfARunningAgentIsKept() throws Exception {
+        Path socket = dir.resolve("agent.sock");
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            assertThrows(IOException.class, () -> VaultAgent.removeStaleSocket(socket));
+            assertTrue(Files.exists(socket));
+        }
+    }
+
+    // A rebuild that was already queued when the agent timed out must not unlock it again
+    @Test
+    void changeAfterLockKeepsTheAgentLocked() throws Exception {
+        SharedVault vault = SharedVault.open(dir.resolve("passwords.enc"), "agent-test");
+        VaultAgent agent = VaultAgent.start(dir.resolve("agent.sock"), vault);
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (agent.isLocked() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(agent.isLocked());
+
+            agent.lock();
+            PasswordEntry entry = new PasswordEntry("example.com", "user", "secret");
+            entry.stamp("test");
+            vault.getVault().put(entry);
+            Thread.sleep(500);
+            assertTrue(agent.isLocked());
+        } finally {
+            VaultAgent.stopRunning();
+        }
+    }
+
+    // A field longer than its u16 length prefix must not be cut off (or wrap around)
+    @Test
+    void oversizedResponseIsRejected() {
+        PasswordEntry huge = new PasswordEntry("example.com", "user", "x".repeat(VaultAgent.MAX_U16 + 1));
+        ByteBuffer response = VaultAgent.response(VaultAgent.STATUS_OK, List.of(huge));
+        assertEquals(1, response.getInt());
+        assertEquals(VaultAgent.STATUS_TOO_LARGE, response.get());
+
+        PasswordEntry normal = new PasswordEntry("example.com", "user", "secret");
+        response = VaultAgent.response(VaultAgent.STATUS_OK, List.of(normal));
+        response.getInt();
+        assertEquals(VaultAgent.STATUS_OK, response.get());
+        assertEquals(1, Short.toUnsignedInt(response.getShort()));
+        assertEquals("example.com", VaultAgent.readString(response));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.password_generator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Benchmark for the vault file format: file size and encrypt+write time with and without
+// the compression stage, for synthetic vaults of 10k and 100k entries. Lives in the test sources (not a
+// JUnit test): generateEntries is shared with VaultLoadTest and VaultStressTest.
+// Run with: VaultBenchmark [entryCount ...]   (classpath: target/classes and target/test-classes)
+public class VaultBenchmark {
+
+    private static final String MASTER_PASSWORD = "benchmark-master-password";
+    private static final int ROUNDS = 3;
+
+    private static final String[] SERVICES = {
+            "google.com", "github.com", "gitlab.com", "amazon.com", "microsoft.com", "outlook.com",
+            "apple.com", "paypal.com", "netflix.com", "spotify.com", "linkedin.com", "facebook.com",
+            "dropbox.com", "slack.com", "atlassian.net", "reddit.com", "ebay.com", "adobe.com"
+    };
+    private static final String[] PREFIXES = {"", "", "", "login.", "accounts.", "mail.", "admin.", "dev.", "prod."};
+    private static final String[] MAIL_DOMAINS = {"gmail.com", "outlook.com", "example.com", "company.de"};
+    private static final String PASSWORD_CHARS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()-_=+<>?";
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[]{10_000, 100_000} : parseSizes(args);
+
+        Path file = Files.createTempFile("vault-benchmark", ".enc");
+        try {
+            // Warm-up so that JIT compilation does not end up in the first measurement
+            runOnce(VaultJson.serialize(generateEntries(2_000, 1L), Collections.emptyList()), file, true);
+            runOnce(VaultJson.serialize(generateEntries(2_000, 1L), Collections.emptyList()), file, false);
+
+            System.out.printf("%-10s %-12s %14s %14s %16s %16s%n",
+                    "entries", "format", "json bytes", "file bytes", "encrypt+write ms", "read+decrypt ms");
+
+            for (int size : sizes) {
+                String json = VaultJson.serialize(generateEntries(size, 42L), Collections.emptyList());
+                for (boolean compress : new boolean[]{false, true}) {
+                    long bestWrite = Long.MAX_VALUE;
+                    long bestRead = Long.MAX_VALUE;
+                    for (int round = 0; round < ROUNDS; round++) {
+                        long[] times = runOnce(json, file, compress);
+                        bestWrite = Math.min(bestWrite, times[0]);
+                        bestRead = Math.min(bestRead, times[1]);
+                    }
+                    System.out.printf("%-10d %-12s %14d %14d %16.1f %16.1f%n",
+                            size, compress ? "deflate" : "plain", json.length(), Files.size(file),
+                            bestWrite / 1e6, bestRead / 1e6);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // One full round trip; returns {encrypt+write nanos, read+decrypt nanos}
+    private static long[] runOnce(String json, Path file, boolean compress) throws Exception {
+        long start = System.nanoTime();
+        Files.writeString(file, VaultFormat.encode(json, MASTER_PASSWORD, compress));
+        long written = System.nanoTime();
+
+        String decoded = VaultFormat.decode(Files.readString(file), MASTER_PASSWORD);
+        long read = System.nanoTime();
+
+        if (decoded.length() != json.length()) {
+            throw new IllegalStateException("Round trip changed the vault content.");
+        }
+        return new long[]{written - start, read - written};
+    }
+
+    // Synthetic entries with realistic field lengths (deterministic for a given seed)
+    static List<PasswordEntry> generateEntries(int count, long seed) {
+        Random random = new Random(seed);
+        String origin = new UUID(random.nextLong(), random.nextLong()).toString();
+        List<PasswordEntry> entries = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String service = PREFIXES[random.nextInt(PREFIXES.length)] + SERVICES[random.nextInt(SERVICES.length)];
+            String username = randomWord(random, 5 + random.nextInt(8)) + (random.nextBoolean() ? "." + randomWord(random, 4 + random.nextInt(6)) : "")
+                    + "@" + MAIL_DOMAINS[random.nextInt(MAIL_DOMAINS.length)];
+
+            StringBuilder password = new StringBuilder();
+            int length = 12 + random.nextInt(13);
+            for (int c = 0; c < length; c++) {
+                password.append(PASSWORD_CHARS.charAt(random.nextInt(PASSWORD_CHARS.length())));
+            }
+
+            PasswordEntry entry = new PasswordEntry(new UUID(random.nextLong(), random.nextLong()).toString(),
+                    service, username, password.toString());
+            entry.setVersion(1_700_000_000_000L + random.nextInt(1_000_000_000));
+            entry.setOrigin(origin);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
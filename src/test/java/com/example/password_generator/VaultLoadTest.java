@@ -0,0 +1,199 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Load test for the persistence path with synthetic vaults of 1k, 100k and 1M entries.
+// Per size it measures wall time and peak heap of
+//   save    SharedVault.save: VaultJson.serialize -> VaultFormat.encode (AES-GCM) -> atomic write + checksums
+//   load    read -> VaultFormat.decode -> VaultJson.parse (what SharedVault does when it opens a file)
+//   add / edit / delete   one change followed by a save, as in the manager window (average per operation)
+// and compares the results with the budgets in loadtest-budgets.properties ("<entries>.<metric>=<limit>",
+// times in ms, heap in MB). The 1M vault is tagged "large" and excluded from the default build
+// (run it with `mvn -B test -DexcludedGroups=none`, needs about 3 GB of heap).
+// Sizes run from small to large, so the heap left over from a big vault does not count for a small one.
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class VaultLoadTest {
+
+    private static final String MASTER_PASSWORD = "load-test-master-password";
+    private static final String[] METRICS = {"save.ms", "load.ms", "add.ms", "edit.ms", "delete.ms", "heap.mb"};
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = heapPools();
+
+    private static Properties budgets;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // Snapshots run on their own low-priority thread after a save and are not part of the measured
+        // path; on a small machine they would only compete with the measurements for the CPU
+        System.setProperty("vault.backup.minutes", "0");
+
+        budgets = new Properties();
+        try (InputStream in = VaultLoadTest.class.getResourceAsStream("loadtest-budgets.properties")) {
+            assertNotNull(in, "loadtest-budgets.properties is missing");
+            budgets.load(in);
+        }
+
+        // Warm-up so that JIT compilation does not end up in the 1k measurement
+        runSize(2_000, 5);
+    }
+
+    @Test
+    @Order(1)
+    void thousandEntries() throws Exception {
+        checkBudgets(1_000, 50);
+    }
+
+    @Test
+    @Order(2)
+    void hundredThousandEntries() throws Exception {
+        checkBudgets(100_000, 10);
+    }
+
+    // Fewer single-entry saves for the big vault: each one rewrites the whole file
+    @Test
+    @Order(3)
+    @Tag("large")
+    void millionEntries() throws Exception {
+        checkBudgets(1_000_000, 3);
+    }
+
+    private static void checkBudgets(int size, int operations) throws Exception {
+        Map<String, Double> results = runSize(size, operations);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "entries", "save ms", "load ms",
+                "add ms", "edit ms", "delete ms", "heap MB");
+        System.out.printf("%-10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.0f%n", size,
+                results.get("save.ms"), results.get("load.ms"), results.get("add.ms"),
+                results.get("edit.ms"), results.get("delete.ms"), results.get("heap.mb"));
+
+        List<Executable> checks = new ArrayList<>();
+        for (String metric : METRICS) {
+            String limit = budgets.getProperty(size + "." + metric);
+            assertNotNull(limit, "No budget for " + size + "." + metric);
+            double value = results.get(metric);
+            checks.add(() -> assertTrue(value <= Double.parseDouble(limit),
+                    String.format("%d %s: %.1f > budget %s", size, metric, value, limit)));
+        }
+        assertAll("budgets for " + size + " entries", checks);
+    }
+
+    private static Map<String, Double> runSize(int size, int operations) throws Exception {
+        Map<String, Double> results = new LinkedHashMap<>();
+        Path dir = Files.createTempDirectory("vault-loadtest");
+        Path file = dir.resolve("passwords.enc");
+        resetPeakHeap();
+        try {
+            SharedVault vault = SharedVault.open(file, MASTER_PASSWORD);
+            vault.getVault().reset(VaultBenchmark.generateEntries(size, size), Collections.emptyList());
+            String replica = "load-test";
+
+            long start = System.nanoTime();
+            vault.save();
+            results.put("save.ms", millisSince(start));
+
+            start = System.nanoTime();
+            Map<String, SyncRecord> tombstones = new HashMap<>();
+            List<PasswordEntry> loaded = VaultJson.parse(VaultFormat.decode(Files.readString(file), MASTER_PASSWORD), tombstones);
+            results.put("load.ms", millisSince(start));
+            assertEquals(size, loaded.size(), "entries after load");
+            loaded = null;
+
+            List<PasswordEntry> fresh = VaultBenchmark.generateEntries(operations, -size);
+            start = System.nanoTime();
+            for (PasswordEntry entry : fresh) {
+                entry.stamp(replica);
+                vault.getVault().put(entry);
+                vault.save();
+            }
+            results.put("add.ms", millisSince(start) / operations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                int index = (int) ((long) i * vault.getEntries().size() / operations);
+                PasswordEntry current = vault.getEntries().get(index);
+                PasswordEntry revised = current.revise(current.getService(), current.getUsername(), current.getPassword() + "!");
+                revised.stamp(replica);
+                vault.getVault().put(revised);
+                vault.save();
+            }
+            results.put("edit.ms", millisSince(start) / operations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                PasswordEntry middle = vault.getEntries().get(vault.getEntries().size() / 2);
+                vault.getVault().delete(middle.getId(), replica);
+                vault.save();
+            }
+            results.put("delete.ms", millisSince(start) / operations);
+            results.put("heap.mb", peakHeapBytes() / (1024.0 * 1024.0));
+
+            // The vault stays registered for the process; drop its entries so the next size starts clean
+            vault.getVault().reset(Collections.emptyList(), Collections.emptyList());
+        } finally {
+            deleteRecursively(dir);
+        }
+        return results;
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        HEAP_POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    // Sum of the per-pool peaks: an upper bound of the real peak (the pools peak at different times)
+    private static long peakHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            total += pool.getPeakUsage().getUsed();
+        }
+        return total;
+    }
+
+    private static void deleteRecursively(Path dir) throws Exception {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stress test for Vault under concurrent readers and writers (no JavaFX, no files), for a few seconds.
+//   pair writers   update the two entries of a pair in one batch, both with the same password; every
+//                  tenth batch reads through the vault and then fails halfway, which must leave no trace
+//   churn writers  add, edit and delete their own entries with put, putAll, delete and deleteAll
+//   readers        get, getAll, find and snapshot, and check that no read shows half of a batch
+//                  (two entries of a pair with different passwords)
+// A listener rebuilds the vault from the changes alone. Afterwards it must equal the vault, which
+// only works if every commit reached the listeners exactly once and in order.
+public class VaultStressTest {
+
+    private static final int PAIRS = 1_000;
+    private static final int BACKGROUND = 20_000;
+    private static final int READERS = 4;
+    private static final int WRITERS = 4;
+    private static final long DURATION_MILLIS = 3_000;
+
+    @Test
+    void concurrentReadsNeverSeeHalfABatch() throws Exception {
+        Vault vault = new Vault();
+        List<PasswordEntry> initial = VaultBenchmark.generateEntries(BACKGROUND, 7L);
+        for (int i = 0; i < PAIRS; i++) {
+            initial.add(new PasswordEntry(pairId(i, 'a'), "pair " + i, "a", "0"));
+            initial.add(new PasswordEntry(pairId(i, 'b'), "pair " + i, "b", "0"));
+        }
+        vault.reset(initial, new ArrayList<>());
+
+        Violations violations = new Violations();
+        Map<String, PasswordEntry> replica = new HashMap<>();
+        AtomicLong lastRevision = new AtomicLong(vault.getRevision());
+        vault.addListener(change -> {
+            // Listener calls never overlap (commit order), so the plain map needs no lock
+            if (change.getRevision() != lastRevision.get() + 1) {
+                violations.add("listener got revision " + change.getRevision() + " after " + lastRevision.get());
+            }
+            lastRevision.set(change.getRevision());
+            if (change.isReset()) {
+                replica.clear();
+                vault.entries().forEach(entry -> replica.put(entry.getId(), entry));
+                return;
+            }
+            change.getRemoved().forEach(entry -> replica.remove(entry.getId()));
+            change.getAdded().forEach(entry -> replica.put(entry.getId(), entry));
+            change.getUpdated().forEach(entry -> replica.put(entry.getId(), entry));
+        });
+        vault.entries().forEach(entry -> replica.put(entry.getId(), entry));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                if (writer % 2 == 0) pairWriter(vault, writer, running, writes);
+                else churnWriter(vault, writer, running, writes);
+            }, "stress-writer-" + w));
+        }
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            threads.add(new Thread(() -> reader(vault, reader, running, reads, violations), "stress-reader-" + r));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> violations.add(t.getName() + " failed: " + e));
+        }
+
+        threads.forEach(Thread::start);
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join(10_000);
+            assertFalse(thread.isAlive(), thread.getName() + " did not stop");
+        }
+
+        List<PasswordEntry> finalEntries = vault.entries();
+        assertEquals(vault.size(), finalEntries.size(), "entries() vs size()");
+        assertEquals(finalEntries.size(), replica.size(), "entries in the listener replica");
+        for (PasswordEntry entry : finalEntries) {
+            if (replica.get(entry.getId()) != entry) {
+                violations.add("listener replica differs for " + entry.getId());
+                break;
+            }
+        }
+        checkPairs(finalEntries, violations, "final state");
+
+        assertTrue(reads.get() > 0 && writes.get() > 0, "readers and writers made progress");
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    // Thread-safe and bounded, so a broken build does not run out of memory reporting
+    private static class Violations extends ConcurrentLinkedQueue<String> {
+        @Override
+        public boolean add(String violation) {
+            return size() < 20 && super.add(violation);
+        }
+    }
+
+    private static void pairWriter(Vault vault, int writer, AtomicBoolean running, AtomicLong writes) {
+        Random random = new Random(writer);
+        long counter = 0;
+        while (running.get()) {
+            int pair = random.nextInt(PAIRS);
+            String password = writer + ":" + counter;
+            boolean fail = counter++ % 10 == 0;
+            try {
+                vault.batch(batch -> {
+                    for (char side : new char[]{'a', 'b'}) {
+                        PasswordEntry current = fail ? vault.get(pairId(pair, side)) : batch.get(pairId(pair, side));
+                        batch.put(current.revise(current.getService(), current.getUsername(), password));
+                        if (fail) {
+                            throw new IllegalStateException("failed after side " + side);
+                        }
+                    }
+                    return null;
+                });
+            } catch (IllegalStateException e) {
+                if (!fail) throw e;
+            }
+            writes.incrementAndGet();
+        }
+    }
+
+    private static void churnWriter(Vault vault, int writer, AtomicBoolean running, AtomicLong writes) {
+        Random random = new Random(writer);
+        String replicaId = "stress-" + writer;
+        List<String> own = new ArrayList<>();
+        long counter = 0;
+        while (running.get()) {
+            int action = random.nextInt(10);
+            if (action < 4 || own.size() < 10) {
+                PasswordEntry entry = new PasswordEntry("w" + writer + "-" + counter++, "churn", "user", "pw");
+                vault.put(entry);
+                own.add(entry.getId());
+            } else if (action < 5) {
+                List<PasswordEntry> added = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    added.add(new PasswordEntry("w" + writer + "-" + counter++, "churn", "user", "pw"));
+                }
+                vault.putAll(added);
+                added.forEach(entry -> own.add(entry.getId()));
+            } else if (action < 7) {
+                PasswordEntry current = vault.get(own.get(random.nextInt(own.size())));
+                vault.put(current.revise(current.getService(), current.getUsername(), "pw" + counter++));
+            } else if (action < 9) {
+                vault.delete(own.remove(own.size() - 1), replicaId);
+            } else {
+                List<String> ids = new ArrayList<>(own.subList(own.size() - 10, own.size()));
+                own.subList(own.size() - 10, own.size()).clear();
+                vault.deleteAll(ids, replicaId);
+            }
+            writes.incrementAndGet();
+        }
+    }
+
+    private static void reader(Vault vault, int reader, AtomicBoolean running, AtomicLong reads, Violations violations) {
+        Random random = new Random(100 + reader);
+        while (running.get()) {
+            int action = random.nextInt(100);
+            if (action < 60) {
+                int pair = random.nextInt(PAIRS);
+                if (vault.get(pairId(pair, 'a')) == null) {
+                    violations.add("get lost pair " + pair);
+                }
+            } else if (action < 90) {
+                int pair = random.nextInt(PAIRS);
+                checkPairs(vault.getAll(List.of(pairId(pair, 'a'), pairId(pair, 'b'))), violations, "getAll");
+            } else if (action < 99) {
+                String service = "pair " + random.nextInt(PAIRS);
+                checkPairs(vault.find(entry -> entry.getService().equals(service)), violations, "find");
+            } else {
+                Vault.Snapshot snapshot = vault.snapshot();
+                checkPairs(snapshot.getEntries(), violations, "snapshot");
+            }
+            reads.incrementAndGet();
+        }
+    }
+
+    // The two entries of a pair are always written together, so a consistent read shows equal passwords
+    private static void checkPairs(List<PasswordEntry> entries, Violations violations, String read) {
+        Map<String, String> passwords = new HashMap<>();
+        int pairEntries = 0;
+        for (PasswordEntry entry : entries) {
+            if (!entry.getId().startsWith("pair-")) {
+                continue;
+            }
+            pairEntries++;
+            String pair = entry.getId().substring(0, entry.getId().length() - 2);
+            String other = passwords.putIfAbsent(pair, entry.getPassword());
+            if (other != null && !other.equals(entry.getPassword())) {
+                violations.add(read + " saw half of a batch: " + pair + " " + other + " / " + entry.getPassword());
+            }
+        }
+        if (pairEntries % 2 != 0) {
+            violations.add(read + " returned " + pairEntries + " pair entries");
+        }
+    }
+
+    private static String pairId(int pair, char side) {
+        return "pair-" + pair + "-" + side;
+    }
+}
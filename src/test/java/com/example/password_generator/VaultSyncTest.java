@@ -0,0 +1,111 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VaultSyncTest {
+
+    // Two in-memory replicas: SyncStore is its own loopback peer
+    @Test
+    void syncsTwoStoresDirectly() throws Exception {
+        SyncStore local = new SyncStore(localRecords());
+        SyncStore remote = new SyncStore(remoteRecords());
+
+        VaultSync.Result result = VaultSync.synchronize(local, remote);
+
+        checkConverged(local, remote, result);
+        VaultSync.Result again = VaultSync.synchronize(local, remote);
+        assertTrue(again.getPulled().isEmpty());
+        assertEquals(0, again.getPushed());
+    }
+
+    // Same exchange through the wire protocol of the stand-in server
+    @Test
+    void syncsThroughSyncServer() throws Exception {
+        try (SyncServer server = new SyncServer(0, null)) {
+            server.getStore().merge(remoteRecords());
+            server.start();
+            SyncStore local = new SyncStore(localRecords());
+
+            VaultSync.Result result;
+            try (RemoteSyncPeer peer = new RemoteSyncPeer(InetAddress.getLoopbackAddress().getHostAddress(), server.getPort())) {
+                result = VaultSync.synchronize(local, peer);
+            }
+
+            checkConverged(local, server.getStore(), result);
+        }
+    }
+
+    // Records both replicas have in common, plus the local side of every conflict
+    private static List<SyncRecord> localRecords() {
+        List<SyncRecord> records = shared();
+        records.add(record("edited-here", 2, "replica-a"));
+        records.add(record("only-here", 1, "replica-a"));
+        records.add(record("tied", 3, "replica-a"));
+        records.add(SyncRecord.tombstone("deleted-here", 5, "replica-a"));
+        records.add(record("full-tie", 4, "replica-a"));
+        return records;
+    }
+
+    private static List<SyncRecord> remoteRecords() {
+        List<SyncRecord> records = shared();
+        records.add(record("edited-there", 2, "replica-b"));
+        records.add(record("only-there", 1, "replica-b"));
+        records.add(record("tied", 3, "replica-b"));
+        records.add(record("deleted-here", 4, "replica-b"));
+        records.add(SyncRecord.tombstone("full-tie", 4, "replica-a"));
+        return records;
+    }
+
+    // 500 records spread over the tree. "edited-*" start out the same on both sides; the newer
+    // version added after them replaces them on one side.
+    private static List<SyncRecord> shared() {
+        List<SyncRecord> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add(record("entry-" + i, 1, "replica-a"));
+        }
+        records.add(record("edited-here", 1, "replica-a"));
+        records.add(record("edited-there", 1, "replica-a"));
+        return records;
+    }
+
+    private static void checkConverged(SyncStore local, SyncStore remote, VaultSync.Result result) {
+        assertArrayEquals(local.rootHash(), remote.rootHash(), "root hashes after the sync");
+        assertEquals(local.size(), remote.size());
+        assertEquals(507, local.size());
+
+        // Disjoint edits travel both ways
+        assertEquals(2, local.get("edited-there").getVersion());
+        assertEquals(2, remote.get("edited-here").getVersion());
+        assertTrue(local.get("only-there") != null && remote.get("only-here") != null);
+
+        // Same version: the higher origin id wins on both sides
+        assertEquals("replica-b", local.get("tied").getOrigin());
+        assertEquals("replica-b", remote.get("tied").getOrigin());
+
+        // A newer deletion beats an older edit, and on a full tie the deletion wins
+        assertTrue(local.get("deleted-here").isDeleted());
+        assertTrue(remote.get("deleted-here").isDeleted());
+        assertTrue(local.get("full-tie").isDeleted());
+        assertTrue(remote.get("full-tie").isDeleted());
+
+        // Only the differing records were transferred
+        assertEquals(4, result.getPulled().size());   // edited-there, only-there, tied, full-tie
+        assertEquals(3, result.getPushed());          // edited-here, only-here, deleted-here
+        assertFalse(result.getPulled().stream().anyMatch(r -> r.getId().startsWith("entry-")));
+    }
+
+    private static SyncRecord record(String id, long version, String origin) {
+        byte[] payload = (id + "@" + version + "/" + origin).getBytes(StandardCharsets.UTF_8);
+        return new SyncRecord(id, version, origin, false, payload);
+    }
+}
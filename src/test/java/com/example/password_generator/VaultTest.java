@@ -0,0 +1,87 @@
+package com.example.password_generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VaultTest {
+
+    // StampedLock is not reentrant: a read from a batch callback must not wait for its own write lock
+    @Test
+    void callbackMayReadTheVault() {
+        Vault vault = new Vault();
+        PasswordEntry entry = new PasswordEntry("id-1", "example.com", "user", "secret");
+        vault.put(entry);
+
+        int size = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> vault.batch(batch -> {
+            assertSame(entry, vault.get("id-1"));
+            batch.put(new PasswordEntry("id-2", "example.org", "user", "secret"));
+            return vault.size() + vault.snapshot().getEntries().size() + vault.find(e -> true).size();
+        }));
+        assertEquals(6, size);
+    }
+
+    @Test
+    void nestedBatchIsRejected() {
+        Vault vault = new Vault();
+        assertThrows(IllegalStateException.class, () -> vault.batch(batch -> {
+            batch.put(new PasswordEntry("id-1", "example.com", "user", "secret"));
+            vault.put(new PasswordEntry("id-2", "example.org", "user", "secret"));
+            return null;
+        }));
+        assertEquals(0, vault.size());
+    }
+
+    // A callback that throws leaves nothing behind: no entry, no deletion marker, no commit
+    @Test
+    void failedBatchIsRolledBack() {
+        Vault vault = new Vault();
+        PasswordEntry kept = new PasswordEntry("id-1", "example.com", "user", "secret");
+        PasswordEntry deleted = new PasswordEntry("id-2", "example.org", "user", "secret");
+        vault.putAll(List.of(kept, deleted));
+        long revision = vault.getRevision();
+        List<Vault.Change> changes = new ArrayList<>();
+        vault.addListener(changes::add);
+
+        assertThrows(IllegalArgumentException.class, () -> vault.batch(batch -> {
+            batch.put(kept.revise("changed.example", "user", "other"));
+            batch.delete("id-2", "test");
+            batch.put(new PasswordEntry("id-3", "new.example", "user", "secret"));
+            throw new IllegalArgumentException("stop");
+        }));
+
+        assertEquals(revision, vault.getRevision());
+        assertTrue(changes.isEmpty());
+        assertEquals(List.of(kept, deleted), vault.entries());
+        assertTrue(vault.getTombstones().isEmpty());
+        assertNull(vault.get("id-3"));
+
+        // Positions and sequence numbers are as before, so the next write behaves normally
+        vault.put(new PasswordEntry("id-3", "new.example", "user", "secret"));
+        assertEquals(List.of("id-1", "id-2", "id-3"), vault.entries().stream().map(PasswordEntry::getId).toList());
+        assertEquals(1, changes.size());
+        assertEquals(1, changes.get(0).getAdded().size());
+    }
+
+    @Test
+    void failedResetIsRolledBack() {
+        Vault vault = new Vault();
+        PasswordEntry entry = new PasswordEntry("id-1", "example.com", "user", "secret");
+        vault.put(entry);
+        List<PasswordEntry> broken = new ArrayList<>();
+        broken.add(new PasswordEntry("id-2", "example.org", "user", "secret"));
+        broken.add(null);
+
+        assertThrows(NullPointerException.class, () -> vault.reset(broken, List.of()));
+        assertEquals(List.of(entry), vault.entries());
+    }
+}